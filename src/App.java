@@ -1,6 +1,107 @@
 public class App {
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("bench")) {
+            ejecutarBenchmarks(Benchmark.tamanios(args));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("simular")) {
+            simular(args);
+            return;
+        }
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
         System.out.println("Testing Personaje");
         new TestPersonaje().ejecutarTests();
     }
+
+    /**
+     * Ejecuta el Simulador con opciones "clave=valor":
+     *
+     *   personajes=1000 segundos=10 mezcla=40,40,5,15 semilla=1 hilos=0
+     *
+     * La mezcla son los pesos de guardarElemento, tomarElemento,
+     * setBolsa y prepararReceta. Con la opcion "metricas" tambien se
+     * imprimen las Metricas de la corrida.
+     */
+    private static void simular(String[] args) throws InterruptedException {
+        int personajes = 1000;
+        long segundos = 10;
+        int[] mezcla = {40, 40, 5, 15};
+        long semilla = 1;
+        int hilos = 0;
+        boolean metricas = false;
+        for (int a = 1; a < args.length; a++) {
+            String[] opcion = args[a].split("=", 2);
+            switch (opcion[0]) {
+                case "personajes":
+                    personajes = Integer.parseInt(opcion[1]);
+                    break;
+                case "segundos":
+                    segundos = Long.parseLong(opcion[1]);
+                    break;
+                case "mezcla":
+                    String[] pesos = opcion[1].split(",");
+                    mezcla = new int[pesos.length];
+                    for (int p = 0; p < pesos.length; p++) {
+                        mezcla[p] = Integer.parseInt(pesos[p]);
+                    }
+                    break;
+                case "semilla":
+                    semilla = Long.parseLong(opcion[1]);
+                    break;
+                case "hilos":
+                    hilos = Integer.parseInt(opcion[1]);
+                    break;
+                case "metricas":
+                    metricas = true;
+                    break;
+                default:
+                    System.out.println("Opcion desconocida: " + args[a]);
+                    return;
+            }
+        }
+        if (metricas) {
+            Metricas.reiniciar();
+            Metricas.activar();
+        }
+        System.out.println(new Simulador(personajes, segundos * 1000, mezcla, semilla, hilos).ejecutar());
+        if (metricas) {
+            Metricas.desactivar();
+            System.out.print(Metricas.getInstantanea());
+        }
+    }
+
+    private static void ejecutarBenchmarks(int[] tamanios) {
+        System.out.println("Benchmark Bolsa");
+        new BenchmarkBolsa().ejecutarBenchmarks(tamanios);
+        System.out.println("Benchmark BolsaConcurrente");
+        new BenchmarkBolsaConcurrente().ejecutarBenchmarks();
+        System.out.println("Benchmark BolsaStore");
+        new BenchmarkBolsaStore().ejecutarBenchmarks();
+        System.out.println("Benchmark Elemento");
+        new BenchmarkElemento().ejecutarBenchmarks(tamanios);
+        System.out.println("Benchmark Caldero");
+        new BenchmarkCaldero().ejecutarBenchmarks(tamanios);
+        System.out.println("Benchmark Receta");
+        new BenchmarkReceta().ejecutarBenchmarks(tamanios);
+        System.out.println("Benchmark BuscadorDeRecetas");
+        new BenchmarkBuscadorDeRecetas().ejecutarBenchmarks();
+        System.out.println("Benchmark CalderoAsincrono");
+        new BenchmarkCalderoAsincrono().ejecutarBenchmarks();
+        System.out.println("Benchmark CalderoPool");
+        new BenchmarkCalderoPool().ejecutarBenchmarks();
+        System.out.println("Benchmark Personaje");
+        new BenchmarkPersonaje().ejecutarBenchmarks(tamanios);
+        System.out.println("Benchmark Empaquetador");
+        new BenchmarkEmpaquetador().ejecutarBenchmarks();
+        System.out.println("Benchmark Instantanea");
+        new BenchmarkInstantanea().ejecutarBenchmarks();
+        System.out.println("Benchmark Metricas");
+        new BenchmarkMetricas().ejecutarBenchmarks();
+        System.out.println("Benchmark Diario");
+        new BenchmarkDiario().ejecutarBenchmarks();
+        System.out.println("Benchmark PreparacionEnLote");
+        new BenchmarkPreparacionEnLote().ejecutarBenchmarks();
+        System.out.println("Benchmark PlanificadorDePocimas");
+        new BenchmarkPlanificadorDePocimas().ejecutarBenchmarks();
+    }
 }
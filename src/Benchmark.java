@@ -0,0 +1,259 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Arnes minimo de medicion para las clases del proyecto.
+ *
+ * Sigue el esquema de JMH sin depender de el: cada medicion
+ * ejecuta unas rondas de calentamiento, luego rondas medidas,
+ * e informa el tiempo promedio por operacion (ns/op) y los
+ * bytes asignados por operacion cuando la JVM lo permite.
+ *
+ * Los resultados de cada operacion se acumulan en un sumidero
+ * para que el compilador no elimine el trabajo medido.
+ */
+public class Benchmark {
+    // Tamanios de bolsas y recetas sobre los que se mide
+    public static final int[] TAMANIOS = {10, 1_000, 100_000, 1_000_000};
+    public static final int[] TAMANIOS_RAPIDOS = {10, 1_000};
+
+    private static final int RONDAS_CALENTAMIENTO = 3;
+    private static final int RONDAS_MEDIDAS = 5;
+
+    // sumidero -> evita que el JIT descarte resultados no usados
+    private static volatile Object sumidero;
+
+    /**
+     * Operacion a medir. Recibe el numero de invocacion dentro
+     * de la ronda para que pueda elegir datos distintos.
+     */
+    public interface Operacion {
+        Object ejecutar(int i);
+    }
+
+    /**
+     * Preparacion previa a cada ronda (no se mide).
+     */
+    public interface Preparacion {
+        void preparar();
+    }
+
+    /**
+     * Mide una operacion e imprime una linea con el resultado:
+     *
+     *  "<nombre> [n=<tamanio>]: <ns> ns/op, <bytes> B/op"
+     *
+     * @param nombre El nombre de la medicion.
+     * @param tamanio El tamanio de los datos usados.
+     * @param operaciones Invocaciones por ronda.
+     * @param preparacion Se ejecuta antes de cada ronda (puede ser null).
+     * @param op La operacion a medir.
+     * @return El tiempo promedio por operacion en nanosegundos.
+     */
+    public static double medir(String nombre, int tamanio, int operaciones,
+                               Preparacion preparacion, Operacion op) {
+        for (int ronda = 0; ronda < RONDAS_CALENTAMIENTO; ronda++) {
+            ejecutarRonda(operaciones, preparacion, op);
+        }
+
+        long nanosTotales = 0;
+        long bytesTotales = 0;
+        for (int ronda = 0; ronda < RONDAS_MEDIDAS; ronda++) {
+            long[] resultado = ejecutarRonda(operaciones, preparacion, op);
+            nanosTotales += resultado[0];
+            bytesTotales += resultado[1];
+        }
+
+        double nsPorOperacion = (double) nanosTotales / ((long) RONDAS_MEDIDAS * operaciones);
+        double bytesPorOperacion = (double) bytesTotales / ((long) RONDAS_MEDIDAS * operaciones);
+        System.out.println(String.format("%s [n=%d]: %.1f ns/op, %.1f B/op",
+                nombre, tamanio, nsPorOperacion, bytesPorOperacion));
+        return nsPorOperacion;
+    }
+
+    /**
+     * Operacion a medir desde varios hilos a la vez. Recibe el
+     * numero de hilo y el numero de invocacion dentro del hilo.
+     */
+    public interface OperacionConcurrente {
+        Object ejecutar(int hilo, int i);
+    }
+
+    /**
+     * Mide el rendimiento de una operacion ejecutada por varios
+     * hilos que arrancan a la vez, e imprime una linea:
+     *
+     *  "<nombre> [hilos=<hilos>]: <ops> ops/s"
+     *
+     * Se ejecutan rondas de calentamiento y rondas medidas igual
+     * que en medir().
+     *
+     * @param nombre El nombre de la medicion.
+     * @param hilos La cantidad de hilos.
+     * @param operacionesPorHilo Invocaciones de cada hilo por ronda.
+     * @param preparacion Se ejecuta antes de cada ronda (puede ser null).
+     * @param op La operacion a medir.
+     * @return Las operaciones por segundo de todos los hilos.
+     */
+    public static double medirConcurrente(String nombre, int hilos, int operacionesPorHilo,
+                                          Preparacion preparacion, OperacionConcurrente op) {
+        for (int ronda = 0; ronda < RONDAS_CALENTAMIENTO; ronda++) {
+            ejecutarRondaConcurrente(hilos, operacionesPorHilo, preparacion, op);
+        }
+        long nanosTotales = 0;
+        for (int ronda = 0; ronda < RONDAS_MEDIDAS; ronda++) {
+            nanosTotales += ejecutarRondaConcurrente(hilos, operacionesPorHilo, preparacion, op);
+        }
+        double operacionesPorSegundo = (double) RONDAS_MEDIDAS * hilos * operacionesPorHilo
+                * 1_000_000_000L / nanosTotales;
+        System.out.println(String.format("%s [hilos=%d]: %.0f ops/s",
+                nombre, hilos, operacionesPorSegundo));
+        return operacionesPorSegundo;
+    }
+
+    /**
+     * Devuelve la memoria del heap en uso, despues de pedir varias
+     * recolecciones para que quede solo lo retenido.
+     *
+     * @return Los bytes en uso.
+     */
+    public static long memoriaUsada() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Descarta un valor en el sumidero.
+     *
+     * @param valor El valor a consumir.
+     */
+    public static void consumir(Object valor) {
+        sumidero = valor;
+    }
+
+    /**
+     * Genera nombres de ingredientes ordenados y de igual largo:
+     * "Ingrediente0000000", "Ingrediente0000001", ...
+     *
+     * Con 10 nombres consecutivos se comparte el prefijo sin el
+     * ultimo digito, lo que permite consultas por prefijo de
+     * tamanio conocido.
+     *
+     * @param cantidad La cantidad de nombres a generar.
+     * @return Los nombres generados.
+     */
+    public static String[] nombres(int cantidad) {
+        String[] nombres = new String[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            nombres[i] = String.format("Ingrediente%07d", i);
+        }
+        return nombres;
+    }
+
+    /**
+     * Construye una receta cerrada con los ingredientes dados.
+     *
+     * @param nombre El nombre de la receta.
+     * @param ingredientes Los ingredientes de la receta.
+     * @return La receta cerrada.
+     */
+    public static Receta receta(String nombre, String[] ingredientes) {
+        Receta receta = new Receta(nombre);
+        for (String ingrediente : ingredientes) {
+            receta.addIngrediente(ingrediente);
+        }
+        receta.cerrarReceta();
+        return receta;
+    }
+
+    /**
+     * Devuelve los tamanios pedidos por linea de comandos:
+     * "rapido" usa TAMANIOS_RAPIDOS, si no se usa TAMANIOS.
+     *
+     * @param args Los argumentos recibidos.
+     * @return Los tamanios a medir.
+     */
+    public static int[] tamanios(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("rapido")) {
+                return TAMANIOS_RAPIDOS;
+            }
+        }
+        return TAMANIOS;
+    }
+
+    /**
+     * Devuelve los bytes asignados hasta el momento por el hilo actual,
+     * o -1 si la JVM no lo informa.
+     *
+     * @return Los bytes asignados por el hilo actual.
+     */
+    public static long bytesAsignados() {
+        java.lang.management.ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        if (hilos instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) hilos)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long[] ejecutarRonda(int operaciones, Preparacion preparacion, Operacion op) {
+        if (preparacion != null) {
+            preparacion.preparar();
+        }
+        long bytesInicio = bytesAsignados();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < operaciones; i++) {
+            sumidero = op.ejecutar(i);
+        }
+        long fin = System.nanoTime();
+        long bytesFin = bytesAsignados();
+        long bytes = bytesInicio >= 0 ? bytesFin - bytesInicio : 0;
+        return new long[] {fin - inicio, bytes};
+    }
+
+    private static long ejecutarRondaConcurrente(int hilos, int operacionesPorHilo,
+                                                 Preparacion preparacion, OperacionConcurrente op) {
+        if (preparacion != null) {
+            preparacion.preparar();
+        }
+        CyclicBarrier largada = new CyclicBarrier(hilos + 1);
+        Thread[] trabajadores = new Thread[hilos];
+        for (int h = 0; h < hilos; h++) {
+            final int hilo = h;
+            trabajadores[h] = new Thread(() -> {
+                esperar(largada);
+                Object resultado = null;
+                for (int i = 0; i < operacionesPorHilo; i++) {
+                    resultado = op.ejecutar(hilo, i);
+                }
+                sumidero = resultado;
+            });
+            trabajadores[h].start();
+        }
+        esperar(largada);
+        long inicio = System.nanoTime();
+        for (Thread trabajador : trabajadores) {
+            try {
+                trabajador.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static void esperar(CyclicBarrier barrera) {
+        try {
+            barrera.await();
+        } catch (InterruptedException | BrokenBarrierException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Mediciones de Bolsa sobre bolsas de distintos tamanios.
+ */
+public class BenchmarkBolsa {
+    private static final int OPERACIONES = 1_000;
+
+    public void ejecutarBenchmarks (int[] tamanios) {
+        for (int n : tamanios) {
+            benchAddElemento(n);
+            benchDelElemento(n);
+            benchGetElementosConPrefijo(n);
+            benchGetMasPesados(n);
+            benchGetElementosEnLaBolsa(n);
+            benchStream(n);
+            benchUnidades(n);
+        }
+    }
+
+    private Bolsa bolsaLlena(String[] nombres) {
+        Bolsa bolsa = new Bolsa("Mochila", Integer.MAX_VALUE);
+        for (String nombre : nombres) {
+            bolsa.addElemento(new Elemento(nombre, 1));
+        }
+        return bolsa;
+    }
+
+    /**
+     * Agrega elementos nuevos a una bolsa con n elementos. Antes de
+     * cada ronda se quitan los agregados para mantener el tamanio.
+     */
+    public void benchAddElemento(int n) {
+        Bolsa bolsa = bolsaLlena(Benchmark.nombres(n));
+        Elemento[] extras = new Elemento[OPERACIONES];
+        for (int i = 0; i < OPERACIONES; i++) {
+            extras[i] = new Elemento("Extra" + i, 1);
+        }
+        Benchmark.medir("Bolsa.addElemento", n, OPERACIONES,
+            () -> {
+                for (Elemento extra : extras) {
+                    if (bolsa.getMapaDeElementos().containsKey(extra.getNombre())) {
+                        bolsa.delElemento(extra.getNombre());
+                    }
+                }
+            },
+            i -> {
+                bolsa.addElemento(extras[i]);
+                return bolsa;
+            });
+    }
+
+    /**
+     * Quita elementos repartidos por toda la bolsa. Antes de cada
+     * ronda se vuelven a agregar.
+     */
+    public void benchDelElemento(int n) {
+        String[] nombres = Benchmark.nombres(n);
+        Bolsa bolsa = bolsaLlena(nombres);
+        int operaciones = Math.min(OPERACIONES, n);
+        int paso = n / operaciones;
+        Benchmark.medir("Bolsa.delElemento", n, operaciones,
+            () -> {
+                for (int i = 0; i < operaciones; i++) {
+                    String nombre = nombres[i * paso];
+                    if (!bolsa.getMapaDeElementos().containsKey(nombre)) {
+                        bolsa.addElemento(new Elemento(nombre, 1));
+                    }
+                }
+            },
+            i -> bolsa.delElemento(nombres[i * paso]));
+    }
+
+    /**
+     * Busca por prefijos que coinciden con 10 elementos cada uno.
+     */
+    public void benchGetElementosConPrefijo(int n) {
+        String[] nombres = Benchmark.nombres(n);
+        Bolsa bolsa = bolsaLlena(nombres);
+        int grupos = Math.max(1, n / 10);
+        String[] prefijos = new String[grupos];
+        for (int i = 0; i < grupos; i++) {
+            String nombre = nombres[i * 10];
+            prefijos[i] = nombre.substring(0, nombre.length() - 1);
+        }
+        int operaciones = Math.max(5, OPERACIONES * 1_000 / Math.max(n, 1_000));
+        Benchmark.medir("Bolsa.getElementosConPrefijo", n, operaciones, null,
+            i -> bolsa.getElementosConPrefijo(prefijos[(i * 7919) % grupos]));
+    }
+
+    /**
+     * Pide los 10 elementos mas pesados con el indice por peso y
+     * copiando y ordenando getElementosEnLaBolsa(), como se hacia
+     * antes del indice. Los pesos van de 1 a 1.000.
+     */
+    public void benchGetMasPesados(int n) {
+        String[] nombres = Benchmark.nombres(n);
+        Bolsa bolsa = new Bolsa("Mochila", Integer.MAX_VALUE);
+        java.util.Random azar = new java.util.Random(42);
+        for (String nombre : nombres) {
+            bolsa.addElemento(new Elemento(nombre, 1 + azar.nextInt(1_000)));
+        }
+        int operaciones = Math.max(5, OPERACIONES * 1_000 / Math.max(n, 1_000));
+        Benchmark.medir("Ordenar getElementosEnLaBolsa (10 mas pesados)", n, operaciones, null,
+            i -> {
+                java.util.List<Elemento> elementos = new java.util.ArrayList<Elemento>(bolsa.getElementosEnLaBolsa());
+                elementos.sort(Bolsa.POR_PESO.reversed());
+                return elementos.subList(0, Math.min(10, elementos.size()));
+            });
+        Benchmark.medir("Bolsa.getMasPesados(10)", n, operaciones, null,
+            i -> bolsa.getMasPesados(10));
+        Benchmark.medir("Bolsa.getParaLiberar(500)", n, operaciones, null,
+            i -> bolsa.getParaLiberar(500));
+    }
+
+    /**
+     * Pide la copia de los elementos de una bolsa que no cambia (se
+     * reusa la misma copia) y despues de cada cambio (se copia
+     * siempre, como se hacia antes).
+     */
+    public void benchGetElementosEnLaBolsa(int n) {
+        Bolsa bolsa = bolsaLlena(Benchmark.nombres(n));
+        Elemento extra = new Elemento("Extra", 1);
+        int operaciones = Math.max(5, OPERACIONES * 1_000 / Math.max(n, 1_000));
+        Benchmark.medir("Bolsa.getElementosEnLaBolsa, sin cambios", n, operaciones, null,
+            i -> bolsa.getElementosEnLaBolsa());
+        Benchmark.medir("Bolsa.getElementosEnLaBolsa, despues de un cambio", n, operaciones, null,
+            i -> {
+                if (bolsa.addElemento(extra) != ResultadoOperacion.HECHO) {
+                    bolsa.delElemento(extra.getNombre());
+                }
+                return bolsa.getElementosEnLaBolsa();
+            });
+    }
+
+    /**
+     * Suma el peso por tipo (los primeros 12 caracteres del nombre)
+     * y cuenta los elementos pesados, con stream() y
+     * parallelStream(), y con el Stream paralelo del mapa por nombre
+     * (TreeMap) como referencia. Los pesos van de 1 a 1.000.
+     */
+    public void benchStream(int n) {
+        String[] nombres = Benchmark.nombres(n);
+        Bolsa bolsa = new Bolsa("Mochila", Integer.MAX_VALUE);
+        java.util.Random azar = new java.util.Random(42);
+        for (String nombre : nombres) {
+            bolsa.addElemento(new Elemento(nombre, 1 + azar.nextInt(1_000)));
+        }
+        int operaciones = Math.max(5, OPERACIONES * 1_000 / Math.max(n, 1_000));
+        java.util.stream.Collector<Elemento, ?, java.util.Map<String, Integer>> pesoPorTipo =
+            java.util.stream.Collectors.groupingBy(e -> e.getNombre().substring(0, 12),
+                java.util.stream.Collectors.summingInt(Elemento::getPeso));
+        Benchmark.medir("Bolsa.stream, peso por tipo", n, operaciones, null,
+            i -> bolsa.stream().collect(pesoPorTipo));
+        Benchmark.medir("Bolsa.parallelStream, peso por tipo", n, operaciones, null,
+            i -> bolsa.parallelStream().collect(pesoPorTipo));
+        Benchmark.medir("Bolsa.stream, cantidad con peso > 500", n, operaciones, null,
+            i -> bolsa.stream().filter(e -> e.getPeso() > 500).count());
+        Benchmark.medir("Bolsa.parallelStream, cantidad con peso > 500", n, operaciones, null,
+            i -> bolsa.parallelStream().filter(e -> e.getPeso() > 500).count());
+        Benchmark.medir("getMapaDeElementos().values().parallelStream, cantidad con peso > 500", n, operaciones, null,
+            i -> bolsa.getMapaDeElementos().values().parallelStream().filter(e -> e.getPeso() > 500).count());
+    }
+
+    /**
+     * Guarda n flechas como n elementos de nombres distintos y como
+     * una sola pila: memoria retenida por la bolsa y costo de sacar
+     * una flecha y volver a guardarla.
+     */
+    public void benchUnidades(int n) {
+        long antes = Benchmark.memoriaUsada();
+        Bolsa sueltas = new Bolsa("Carcaj", Integer.MAX_VALUE);
+        for (int i = 0; i < n; i++) {
+            sueltas.addElemento(new Elemento(String.format("Flecha%07d", i), 1));
+        }
+        long despues = Benchmark.memoriaUsada();
+        Bolsa pila = new Bolsa("Carcaj", Integer.MAX_VALUE);
+        pila.addUnidades(new Elemento("Flecha", 1, n));
+        long conPila = Benchmark.memoriaUsada();
+        Benchmark.consumir(sueltas);
+        Benchmark.consumir(pila);
+        System.out.println(String.format("Bolsa con %d flechas: %d B sueltas, %d B en una pila",
+            n, despues - antes, conPila - despues));
+
+        String[] nombres = new String[OPERACIONES];
+        for (int i = 0; i < OPERACIONES; i++) {
+            nombres[i] = String.format("Flecha%07d", (int) ((long) i * n / OPERACIONES));
+        }
+        Benchmark.medir("Bolsa.delElemento+addElemento (flechas sueltas)", n, OPERACIONES, null,
+            i -> sueltas.addElemento(sueltas.delElemento(nombres[i])));
+        Benchmark.medir("Bolsa.delUnidades+addUnidades (pila)", n, OPERACIONES, null,
+            i -> pila.addUnidades(pila.delUnidades("Flecha", 1)));
+    }
+}
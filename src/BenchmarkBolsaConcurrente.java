@@ -0,0 +1,109 @@
+/**
+ * Mediciones de contencion sobre una bolsa compartida: cada hilo
+ * agrega y quita sus propios elementos en la misma bolsa.
+ *
+ * Se compara BolsaConcurrente con una Bolsa protegida por un
+ * candado global (metodos synchronized).
+ *
+ * Tambien se mide transferir entre pocas bolsas (mucha contencion)
+ * y entre muchas, contra quitar y agregar bajo un candado global.
+ */
+public class BenchmarkBolsaConcurrente {
+    private static final int[] HILOS = {1, 2, 4, 8};
+    private static final int OPERACIONES_POR_HILO = 100_000;
+    private static final int ELEMENTOS_POR_HILO = 64;
+    private static final int[] BOLSAS = {2, 64};
+
+    public void ejecutarBenchmarks () {
+        for (int hilos : HILOS) {
+            benchAgregarQuitar("BolsaSincronizada", new BolsaSincronizada("Alijo", Integer.MAX_VALUE), hilos);
+            benchAgregarQuitar("BolsaConcurrente", new BolsaConcurrente("Alijo", Integer.MAX_VALUE), hilos);
+        }
+        for (int bolsas : BOLSAS) {
+            for (int hilos : HILOS) {
+                benchTransferir(bolsas, hilos, false);
+                benchTransferir(bolsas, hilos, true);
+            }
+        }
+    }
+
+    /**
+     * Cada hilo pasa sus propios elementos de una bolsa a la
+     * siguiente, de modo que todos los pases se hacen.
+     */
+    private void benchTransferir(int cantidadBolsas, int hilos, boolean candadoGlobal) {
+        Bolsa[] bolsas = new Bolsa[cantidadBolsas];
+        for (int b = 0; b < cantidadBolsas; b++) {
+            bolsas[b] = new BolsaConcurrente("Alijo" + b, Integer.MAX_VALUE);
+        }
+        String[][] nombres = new String[hilos][ELEMENTOS_POR_HILO];
+        int[][] ubicacion = new int[hilos][ELEMENTOS_POR_HILO];
+        for (int h = 0; h < hilos; h++) {
+            for (int e = 0; e < ELEMENTOS_POR_HILO; e++) {
+                nombres[h][e] = "Hilo" + h + "-" + e;
+                ubicacion[h][e] = (h + e) % cantidadBolsas;
+                bolsas[ubicacion[h][e]].addElemento(new Elemento(nombres[h][e], 1));
+            }
+        }
+        Object global = new Object();
+        String nombre = candadoGlobal ? "delElemento+addElemento con candado global" : "BolsaConcurrente.transferir";
+        Benchmark.medirConcurrente(nombre + " [bolsas=" + cantidadBolsas + "]", hilos, OPERACIONES_POR_HILO, null,
+            (hilo, i) -> {
+                int e = i % ELEMENTOS_POR_HILO;
+                Bolsa origen = bolsas[ubicacion[hilo][e]];
+                int siguiente = (ubicacion[hilo][e] + 1) % cantidadBolsas;
+                Bolsa destino = bolsas[siguiente];
+                ubicacion[hilo][e] = siguiente;
+                if (candadoGlobal) {
+                    synchronized (global) {
+                        return destino.addElemento(origen.delElemento(nombres[hilo][e]));
+                    }
+                }
+                return origen.transferir(nombres[hilo][e], destino);
+            });
+    }
+
+    private void benchAgregarQuitar(String nombre, Bolsa bolsa, int hilos) {
+        Elemento[][] elementos = new Elemento[hilos][ELEMENTOS_POR_HILO];
+        for (int h = 0; h < hilos; h++) {
+            for (int e = 0; e < ELEMENTOS_POR_HILO; e++) {
+                elementos[h][e] = new Elemento("Hilo" + h + "-" + e, 1);
+            }
+        }
+        Benchmark.medirConcurrente(nombre + ".addElemento+delElemento", hilos, OPERACIONES_POR_HILO, null,
+            (hilo, i) -> {
+                Elemento elemento = elementos[hilo][i % ELEMENTOS_POR_HILO];
+                bolsa.addElemento(elemento);
+                return bolsa.delElemento(elemento.getNombre());
+            });
+    }
+
+    /**
+     * Bolsa con un candado global, como referencia.
+     */
+    private static class BolsaSincronizada extends Bolsa {
+        BolsaSincronizada (String nombre, int peso) {
+            super(nombre, peso);
+        }
+
+        @Override
+        public synchronized ResultadoOperacion addElemento (Elemento obj) {
+            return super.addElemento(obj);
+        }
+
+        @Override
+        public synchronized Elemento delElemento (String nombre) {
+            return super.delElemento(nombre);
+        }
+
+        @Override
+        public synchronized int getPesoActual() {
+            return super.getPesoActual();
+        }
+
+        @Override
+        public synchronized void setPesoActual(int pesoActual) {
+            super.setPesoActual(pesoActual);
+        }
+    }
+}
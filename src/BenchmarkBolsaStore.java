@@ -0,0 +1,54 @@
+import java.util.function.IntFunction;
+
+/**
+ * Mediciones de memoria retenida por muchas bolsas con 10 objetos
+ * cada una: Bolsa con elementos nuevos, Bolsa con elementos
+ * compartidos y bolsas de un BolsaStore.
+ */
+public class BenchmarkBolsaStore {
+    private static final int[] BOLSAS = {10_000, 100_000, 1_000_000};
+    private static final String[] COMUNES = {
+        "Pluma", "Hueso", "Sangre", "Espada", "Flecha",
+        "Piedra", "Raiz", "Escama", "Ala de murcielago", "Ojo de sapo"
+    };
+
+    public void ejecutarBenchmarks () {
+        for (int n : BOLSAS) {
+            medirMemoria("Bolsa (Elemento nuevo)", n,
+                b -> new Bolsa("Mochila", 100), false);
+            medirMemoria("Bolsa (Elemento.compartido)", n,
+                b -> new Bolsa("Mochila", 100), true);
+            BolsaStore[] almacen = new BolsaStore[1];
+            medirMemoria("BolsaStore", n,
+                b -> {
+                    if (b == 0) {
+                        almacen[0] = new BolsaStore(n);
+                    }
+                    return almacen[0].crearBolsa("Mochila", 100);
+                }, true);
+        }
+    }
+
+    /**
+     * Llena n bolsas y muestra los bytes retenidos por bolsa.
+     */
+    private void medirMemoria(String nombre, int n, IntFunction<Bolsa> nuevaBolsa, boolean compartido) {
+        long antes = Benchmark.memoriaUsada();
+        long inicio = System.nanoTime();
+        Bolsa[] bolsas = new Bolsa[n];
+        for (int b = 0; b < n; b++) {
+            bolsas[b] = nuevaBolsa.apply(b);
+            for (int e = 0; e < COMUNES.length; e++) {
+                int peso = 1 + e % 3;
+                bolsas[b].addElemento(compartido
+                    ? Elemento.compartido(COMUNES[e], peso)
+                    : new Elemento(COMUNES[e], peso));
+            }
+        }
+        long nanos = System.nanoTime() - inicio;
+        long despues = Benchmark.memoriaUsada();
+        Benchmark.consumir(bolsas);
+        System.out.println(String.format("%s [bolsas=%d]: %.1f B/bolsa, %.1f ns/addElemento",
+                nombre, n, (double) (despues - antes) / n, (double) nanos / (n * COMUNES.length)));
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mediciones de BuscadorDeRecetas contra recorrer todo el recetario
+ * verificando cada receta, con bolsas de 50 elementos sobre un
+ * vocabulario de 1.000 ingredientes.
+ */
+public class BenchmarkBuscadorDeRecetas {
+    private static final int[] RECETAS = {1_000, 100_000};
+    private static final int VOCABULARIO = 1_000;
+    private static final int ELEMENTOS_POR_BOLSA = 50;
+    private static final int BOLSAS = 64;
+
+    public void ejecutarBenchmarks () {
+        for (int n : RECETAS) {
+            benchBuscar(n);
+        }
+    }
+
+    private void benchBuscar(int n) {
+        Random azar = new Random(42);
+        String[] vocabulario = new String[VOCABULARIO];
+        for (int i = 0; i < VOCABULARIO; i++) {
+            vocabulario[i] = "Ingrediente" + i;
+        }
+        List<Receta> recetario = new ArrayList<Receta>();
+        for (int r = 0; r < n; r++) {
+            Receta receta = new Receta("Receta" + r);
+            int cantidad = 2 + azar.nextInt(5);
+            for (int i = 0; i < cantidad; i++) {
+                receta.addIngrediente(vocabulario[azar.nextInt(VOCABULARIO)]);
+            }
+            receta.cerrarReceta();
+            recetario.add(receta);
+        }
+        Bolsa[] bolsas = new Bolsa[BOLSAS];
+        for (int b = 0; b < BOLSAS; b++) {
+            bolsas[b] = new Bolsa("Mochila", Integer.MAX_VALUE);
+            while (bolsas[b].getMapaDeElementos().size() < ELEMENTOS_POR_BOLSA) {
+                String nombre = vocabulario[azar.nextInt(VOCABULARIO)];
+                if (!bolsas[b].getMapaDeElementos().containsKey(nombre)) {
+                    bolsas[b].addElemento(new Elemento(nombre, 1));
+                }
+            }
+        }
+        BuscadorDeRecetas buscador = new BuscadorDeRecetas(recetario);
+        int operaciones = Math.max(10, 1_000_000 / n);
+
+        Benchmark.medir("Recorrido del recetario", n, operaciones, null,
+            i -> {
+                Bolsa bolsa = bolsas[i % BOLSAS];
+                List<Receta> posibles = new ArrayList<Receta>();
+                for (Receta receta : recetario) {
+                    if (bolsa.getMapaDeElementos().keySet().containsAll(receta.getIngredientes())) {
+                        posibles.add(receta);
+                    }
+                }
+                return posibles;
+            });
+        Benchmark.medir("BuscadorDeRecetas.getRecetasPosibles", n, operaciones, null,
+            i -> buscador.getRecetasPosibles(bolsas[i % BOLSAS], Integer.MAX_VALUE));
+        Benchmark.medir("BuscadorDeRecetas.getRecetasCercanas", n, operaciones, null,
+            i -> buscador.getRecetasCercanas(bolsas[i % BOLSAS], Integer.MAX_VALUE, 1));
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mediciones de Caldero con recetas de distintos tamanios.
+ */
+public class BenchmarkCaldero {
+    // Cantidad total de ingredientes preparados por ronda
+    private static final int INGREDIENTES_POR_RONDA = 100_000;
+
+    public void ejecutarBenchmarks (int[] tamanios) {
+        for (int n : tamanios) {
+            benchSetReceta(n);
+            benchGetIngredientesFaltantes(n);
+            benchPrepararPocima(n);
+        }
+    }
+
+    /**
+     * Asocia una receta de n ingredientes a un caldero vacio.
+     */
+    public void benchSetReceta(int n) {
+        Receta receta = Benchmark.receta("voladora", Benchmark.nombres(n));
+        int operaciones = Math.max(1, INGREDIENTES_POR_RONDA / n);
+        Benchmark.medir("Caldero.setReceta", n, operaciones, null,
+            i -> {
+                Caldero caldero = new Caldero("Caldero", n);
+                caldero.setReceta(receta);
+                return caldero;
+            });
+    }
+
+    /**
+     * Pide los faltantes de un caldero con la mitad de los ingredientes.
+     */
+    public void benchGetIngredientesFaltantes(int n) {
+        String[] nombres = Benchmark.nombres(n);
+        Caldero caldero = new Caldero("Caldero", n);
+        caldero.setReceta(Benchmark.receta("voladora", nombres));
+        for (int i = 0; i < n; i += 2) {
+            caldero.addIngrediente(new Elemento(nombres[i], 1));
+        }
+        int operaciones = Math.max(1, INGREDIENTES_POR_RONDA / n);
+        Benchmark.medir("Caldero.getIngredientesFaltantes", n, operaciones, null,
+            i -> caldero.getIngredientesFaltantes());
+    }
+
+    /**
+     * Prepara la pocima en calderos que ya tienen todos los
+     * ingredientes. Los calderos se cargan antes de cada ronda.
+     */
+    public void benchPrepararPocima(int n) {
+        String[] nombres = Benchmark.nombres(n);
+        Receta receta = Benchmark.receta("voladora", nombres);
+        Elemento[] ingredientes = new Elemento[n];
+        for (int i = 0; i < n; i++) {
+            ingredientes[i] = new Elemento(nombres[i], 1);
+        }
+        int operaciones = Math.max(1, INGREDIENTES_POR_RONDA / n);
+        List<Caldero> calderos = new ArrayList<Caldero>();
+        Benchmark.medir("Caldero.prepararPocima", n, operaciones,
+            () -> {
+                calderos.clear();
+                for (int c = 0; c < operaciones; c++) {
+                    Caldero caldero = new Caldero("Caldero", n);
+                    caldero.setReceta(receta);
+                    for (Elemento ingrediente : ingredientes) {
+                        caldero.addIngrediente(ingrediente);
+                    }
+                    calderos.add(caldero);
+                }
+            },
+            i -> {
+                Caldero caldero = calderos.get(i);
+                caldero.prepararPocima();
+                return caldero.getPocima();
+            });
+    }
+}
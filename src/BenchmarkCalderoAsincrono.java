@@ -0,0 +1,70 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mediciones de preparaciones asincronicas: muchos calderos, cada
+ * uno con su cola de pedidos, sobre un solo temporizador.
+ *
+ * Se informa el tiempo total, las preparaciones por segundo y el
+ * retraso medio respecto del minimo teorico (pedidos por caldero x
+ * duracion), junto con los pedidos rechazados por cola llena.
+ */
+public class BenchmarkCalderoAsincrono {
+    private static final int[][] ESCENARIOS = {
+        // calderos, pedidos por caldero, capacidad de la cola, duracion ms
+        {100_000, 1, 4, 100},
+        {10_000, 10, 16, 10},
+        {1_000, 20, 8, 5},
+    };
+
+    public void ejecutarBenchmarks () {
+        Receta receta = Benchmark.receta("voladora", new String[] {"Pluma", "Sangre"});
+        List<Elemento> ingredientes = new ArrayList<Elemento>();
+        ingredientes.add(Elemento.compartido("Pluma", 1));
+        ingredientes.add(Elemento.compartido("Sangre", 2));
+
+        ScheduledExecutorService temporizador = CalderoAsincrono.crearTemporizador();
+        try {
+            for (int[] escenario : ESCENARIOS) {
+                bench(temporizador, receta, ingredientes, escenario[0], escenario[1], escenario[2], escenario[3]);
+            }
+        } finally {
+            temporizador.shutdown();
+        }
+    }
+
+    private void bench(ScheduledExecutorService temporizador, Receta receta, List<Elemento> ingredientes,
+                       int calderos, int pedidos, int capacidadCola, int duracionMs) {
+        CalderoAsincrono[] asincronicos = new CalderoAsincrono[calderos];
+        for (int c = 0; c < calderos; c++) {
+            asincronicos[c] = new CalderoAsincrono(new Caldero("Caldero" + c, 5), capacidadCola,
+                temporizador, Duration.ofMillis(duracionMs));
+        }
+        LongAdder rechazados = new LongAdder();
+        List<CompletableFuture<Elemento>> pocimas = new ArrayList<CompletableFuture<Elemento>>(calderos * pedidos);
+
+        long inicio = System.nanoTime();
+        for (int p = 0; p < pedidos; p++) {
+            for (CalderoAsincrono caldero : asincronicos) {
+                pocimas.add(caldero.preparar(receta, ingredientes).exceptionally(e -> {
+                    rechazados.increment();
+                    return null;
+                }));
+            }
+        }
+        CompletableFuture.allOf(pocimas.toArray(new CompletableFuture<?>[0])).join();
+        long nanos = System.nanoTime() - inicio;
+
+        long preparadas = (long) calderos * pedidos - rechazados.sum();
+        double minimoMs = (double) Math.min(pedidos, capacidadCola + 1) * duracionMs;
+        System.out.println(String.format(
+            "CalderoAsincrono [calderos=%d, pedidos=%d, cola=%d, duracion=%dms]: %.0f ms (minimo %.0f ms), "
+                + "%.0f pocimas/s, %d rechazados",
+            calderos, pedidos, capacidadCola, duracionMs, nanos / 1e6, minimoMs,
+            preparadas * 1e9 / nanos, rechazados.sum()));
+    }
+}
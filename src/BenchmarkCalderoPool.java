@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mediciones de CalderoPool con calderos de capacidades mezcladas
+ * y recetas mayormente chicas: cada caldero asignado queda ocupado
+ * un tiempo fijo (se devuelve desde un temporizador, como en
+ * CalderoAsincrono) y se cuentan las pocimas por segundo.
+ *
+ * Los calderos se dan de mayor a menor, de modo que PRIMER_AJUSTE
+ * ocupa los grandes con recetas chicas; MEJOR_AJUSTE los reserva.
+ */
+public class BenchmarkCalderoPool {
+    // capacidad, cantidad de calderos
+    private static final int[][] CALDEROS = {{8, 4}, {4, 8}, {2, 16}};
+    // ingredientes, recetas de cada 10
+    private static final int[][] RECETAS = {{2, 6}, {4, 3}, {8, 1}};
+    private static final int PEDIDOS = 20_000;
+    private static final int DURACION_MICROS = 200;
+
+    public void ejecutarBenchmarks () {
+        ScheduledExecutorService temporizador = CalderoAsincrono.crearTemporizador();
+        try {
+            for (CalderoPool.Criterio criterio : CalderoPool.Criterio.values()) {
+                bench(temporizador, criterio);
+            }
+        } finally {
+            temporizador.shutdown();
+        }
+    }
+
+    private void bench(ScheduledExecutorService temporizador, CalderoPool.Criterio criterio) {
+        List<Caldero> calderos = new ArrayList<Caldero>();
+        for (int[] grupo : CALDEROS) {
+            for (int c = 0; c < grupo[1]; c++) {
+                calderos.add(new Caldero("Caldero" + grupo[0] + "-" + c, grupo[0]));
+            }
+        }
+        List<Receta> recetas = new ArrayList<Receta>();
+        List<List<Elemento>> ingredientes = new ArrayList<List<Elemento>>();
+        for (int[] tipo : RECETAS) {
+            String[] nombres = Benchmark.nombres(tipo[0]);
+            List<Elemento> elementos = new ArrayList<Elemento>();
+            for (String nombre : nombres) {
+                elementos.add(Elemento.compartido(nombre, 1));
+            }
+            for (int r = 0; r < tipo[1]; r++) {
+                recetas.add(Benchmark.receta("Receta" + tipo[0], nombres));
+                ingredientes.add(elementos);
+            }
+        }
+
+        CalderoPool pool = new CalderoPool("Taller", calderos, PEDIDOS, criterio);
+        Random azar = new Random(42);
+        List<CompletableFuture<Void>> preparadas = new ArrayList<CompletableFuture<Void>>(PEDIDOS);
+        long inicio = System.nanoTime();
+        for (int p = 0; p < PEDIDOS; p++) {
+            int tipo = azar.nextInt(recetas.size());
+            CompletableFuture<Void> hecha = new CompletableFuture<Void>();
+            pool.asignar(recetas.get(tipo)).thenAccept(caldero -> {
+                for (Elemento ingrediente : ingredientes.get(tipo)) {
+                    caldero.addIngrediente(ingrediente);
+                }
+                caldero.prepararPocima();
+                caldero.getPocima();
+                temporizador.schedule(() -> {
+                    pool.devolver(caldero);
+                    hecha.complete(null);
+                }, DURACION_MICROS, TimeUnit.MICROSECONDS);
+            });
+            preparadas.add(hecha);
+        }
+        CompletableFuture.allOf(preparadas.toArray(new CompletableFuture<?>[0])).join();
+        long nanos = System.nanoTime() - inicio;
+
+        System.out.println(String.format(
+            "CalderoPool %s [calderos=%d, pedidos=%d, duracion=%dus]: %.0f ms, %.0f pocimas/s, "
+                + "utilizacion %.2f, aprovechamiento %.2f",
+            criterio, calderos.size(), PEDIDOS, DURACION_MICROS, nanos / 1e6, PEDIDOS * 1e9 / nanos,
+            pool.getUtilizacion(), pool.getAprovechamiento()));
+    }
+}
@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Mediciones de las mutaciones por segundo de una bolsa anotada
+ * en un Diario, con distintos intervalos de confirmacion.
+ *
+ * Cada operacion agrega y quita un elemento (dos mutaciones). Como
+ * referencia se mide la bolsa sin diario y con una confirmacion
+ * (sincronizar) despues de cada operacion.
+ */
+public class BenchmarkDiario {
+    private static final long[] INTERVALOS_MS = {1, 10, 100};
+    private static final int OPERACIONES = 200_000;
+    private static final int OPERACIONES_SINCRONIZANDO = 500;
+    private static final int ELEMENTOS = 64;
+
+    public void ejecutarBenchmarks () {
+        try {
+            benchBolsa("Bolsa sin diario", null, OPERACIONES, false);
+            for (long intervalo : INTERVALOS_MS) {
+                benchConDiario("Diario intervalo=" + intervalo + "ms", intervalo, OPERACIONES, false);
+            }
+            benchConDiario("Diario sincronizando cada operacion", 0, OPERACIONES_SINCRONIZANDO, true);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void benchConDiario(String nombre, long intervalo, int operaciones, boolean sincronizar)
+            throws IOException {
+        Path archivo = Files.createTempFile("rpg", ".diario");
+        try (Diario diario = new Diario(archivo, intervalo)) {
+            benchBolsa(nombre, diario, operaciones, sincronizar);
+        } finally {
+            Files.delete(archivo);
+        }
+    }
+
+    private void benchBolsa(String nombre, Diario diario, int operaciones, boolean sincronizar) {
+        Bolsa bolsa = new Bolsa("Mochila", Integer.MAX_VALUE);
+        if (diario != null) {
+            diario.registrar(bolsa);
+        }
+        Elemento[] elementos = new Elemento[ELEMENTOS];
+        String[] nombres = Benchmark.nombres(ELEMENTOS);
+        for (int e = 0; e < ELEMENTOS; e++) {
+            elementos[e] = new Elemento(nombres[e], 1);
+        }
+        double nsPorOperacion = Benchmark.medir(nombre + " addElemento+delElemento", ELEMENTOS, operaciones, null,
+            i -> {
+                Elemento elemento = elementos[i % ELEMENTOS];
+                bolsa.addElemento(elemento);
+                Elemento quitado = bolsa.delElemento(elemento.getNombre());
+                if (sincronizar) {
+                    try {
+                        diario.sincronizar();
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return quitado;
+            });
+        System.out.println(String.format("%s: %.0f mutaciones/s", nombre, 2 * 1e9 / nsPorOperacion));
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Mediciones de asignacion de memoria al llenar muchas bolsas con
+ * los mismos elementos, creando cada elemento (new) o usando las
+ * instancias compartidas (Elemento.compartido).
+ */
+public class BenchmarkElemento {
+    private static final String[] COMUNES = {
+        "Pluma", "Hueso", "Sangre", "Espada", "Flecha",
+        "Piedra", "Raiz", "Escama", "Ala de murcielago", "Ojo de sapo"
+    };
+
+    public void ejecutarBenchmarks (int[] tamanios) {
+        for (int n : tamanios) {
+            if (n > 100_000) {
+                continue;
+            }
+            benchLlenarBolsas("Elemento nuevo", n, false);
+            benchLlenarBolsas("Elemento.compartido", n, true);
+        }
+    }
+
+    /**
+     * Llena una bolsa con los elementos comunes; n bolsas por ronda.
+     * Informa los bytes asignados por bolsa llena.
+     */
+    private void benchLlenarBolsas(String nombre, int n, boolean compartido) {
+        Benchmark.medir(nombre + " (bolsa de " + COMUNES.length + ")", n, n, null,
+            i -> {
+                Bolsa bolsa = new Bolsa("Mochila", 100);
+                for (int e = 0; e < COMUNES.length; e++) {
+                    int peso = 1 + e % 3;
+                    bolsa.addElemento(compartido
+                        ? Elemento.compartido(COMUNES[e], peso)
+                        : new Elemento(COMUNES[e], peso));
+                }
+                return bolsa;
+            });
+    }
+}
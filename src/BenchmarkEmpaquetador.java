@@ -0,0 +1,55 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * Mediciones de Empaquetador (Bolsa.autoPack) en modo exacto y
+ * aproximado, con candidatos de peso entre 1 y un cuarto de la
+ * capacidad y valores al azar. Para cada caso se imprime tambien
+ * que fraccion del valor exacto consigue el modo aproximado.
+ */
+public class BenchmarkEmpaquetador {
+    private static final int[] CANDIDATOS = {20, 100, 1_000};
+    private static final int[] CAPACIDADES = {200, 10_000};
+
+    public void ejecutarBenchmarks () {
+        for (int capacidad : CAPACIDADES) {
+            for (int n : CANDIDATOS) {
+                benchElegir(n, capacidad);
+            }
+        }
+    }
+
+    private void benchElegir(int n, int capacidad) {
+        Random azar = new Random(42);
+        String[] nombres = Benchmark.nombres(n);
+        List<Elemento> candidatos = new ArrayList<Elemento>(n);
+        Map<Elemento, Long> valorDe = new IdentityHashMap<Elemento, Long>();
+        for (int i = 0; i < n; i++) {
+            Elemento candidato = new Elemento(nombres[i], 1 + azar.nextInt(Math.max(1, capacidad / 4)));
+            candidatos.add(candidato);
+            valorDe.put(candidato, (long) (1 + azar.nextInt(1_000)));
+        }
+        ToLongFunction<Elemento> valor = valorDe::get;
+        int operaciones = Math.max(10, 2_000_000 / (n * (capacidad / 100 + 1)));
+
+        System.out.println(String.format("Capacidad %d, %d candidatos: el aproximado logra %.1f%% del valor exacto",
+            capacidad, n, 100.0 * total(Empaquetador.elegir(candidatos, capacidad, valor, Empaquetador.Modo.APROXIMADO), valor)
+                / total(Empaquetador.elegir(candidatos, capacidad, valor, Empaquetador.Modo.EXACTO), valor)));
+        Benchmark.medir("Empaquetador exacto, capacidad " + capacidad, n, operaciones, null,
+            i -> Empaquetador.elegir(candidatos, capacidad, valor, Empaquetador.Modo.EXACTO));
+        Benchmark.medir("Empaquetador aproximado, capacidad " + capacidad, n, operaciones, null,
+            i -> Empaquetador.elegir(candidatos, capacidad, valor, Empaquetador.Modo.APROXIMADO));
+    }
+
+    private static long total(List<Elemento> elegidos, ToLongFunction<Elemento> valor) {
+        long total = 0;
+        for (Elemento elegido : elegidos) {
+            total += valor.applyAsLong(elegido);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mediciones de escritura y lectura de instantaneas con muchos
+ * personajes, cada uno con una bolsa de 10 elementos y un caldero
+ * con una receta a medio preparar.
+ */
+public class BenchmarkInstantanea {
+    private static final int[] PERSONAJES = {10_000, 1_000_000};
+    private static final String[] COMUNES = {
+        "Pluma", "Hueso", "Sangre", "Espada", "Flecha",
+        "Piedra", "Raiz", "Escama", "Ala de murcielago", "Ojo de sapo"
+    };
+
+    public void ejecutarBenchmarks () {
+        try {
+            for (int n : PERSONAJES) {
+                benchInstantanea(n);
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void benchInstantanea(int n) throws IOException {
+        Receta receta = new Receta("voladora");
+        receta.addIngrediente("Lagrima");
+        receta.addIngrediente("Polvo de hada");
+        receta.cerrarReceta();
+        List<Personaje> personajes = new ArrayList<Personaje>(n);
+        for (int p = 0; p < n; p++) {
+            Personaje personaje = new Personaje("Personaje" + p, 100, 100);
+            personaje.setBolsa(new Bolsa("Mochila", 100));
+            for (int e = 0; e < COMUNES.length; e++) {
+                personaje.getBolsa().addElemento(Elemento.compartido(COMUNES[e], 1 + e % 3));
+            }
+            personaje.setCaldero(new Caldero("Caldero", 5));
+            personaje.getCaldero().setReceta(receta);
+            personaje.getCaldero().addIngrediente(Elemento.compartido("Lagrima", 1));
+            personajes.add(personaje);
+        }
+        Path archivo = Files.createTempFile("rpg", ".instantanea");
+        try {
+            long inicio = System.nanoTime();
+            new EscritorDeInstantanea().escribir(archivo, personajes);
+            long escritura = System.nanoTime() - inicio;
+            personajes = null;
+
+            inicio = System.nanoTime();
+            try (LectorDeInstantanea lector = new LectorDeInstantanea(archivo)) {
+                long apertura = System.nanoTime() - inicio;
+
+                inicio = System.nanoTime();
+                List<Personaje> restaurados = lector.getPersonajes();
+                long personajesSinBolsa = System.nanoTime() - inicio;
+
+                inicio = System.nanoTime();
+                long elementos = 0;
+                for (Personaje personaje : restaurados) {
+                    elementos += personaje.getBolsa().getMapaDeElementos().size();
+                }
+                long bolsas = System.nanoTime() - inicio;
+                Benchmark.consumir(elementos);
+
+                System.out.println(String.format(
+                    "Instantanea [personajes=%d]: %.1f B/personaje, escritura %.0f ms, apertura %.2f ms, "
+                        + "personajes %.0f ms, bolsas %.0f ms",
+                    n, (double) Files.size(archivo) / n, escritura / 1e6, apertura / 1e6,
+                    personajesSinBolsa / 1e6, bolsas / 1e6));
+            }
+        } finally {
+            Files.delete(archivo);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Mediciones del costo de Metricas sobre addElemento+delElemento:
+ * desactivadas, activadas en un hilo y activadas con varios hilos
+ * sobre una BolsaConcurrente (los contadores son compartidos).
+ */
+public class BenchmarkMetricas {
+    private static final int[] HILOS = {1, 2, 4, 8};
+    private static final int OPERACIONES = 1_000_000;
+    private static final int OPERACIONES_POR_HILO = 100_000;
+    private static final int ELEMENTOS = 64;
+
+    public void ejecutarBenchmarks () {
+        boolean activas = Metricas.isActivas();
+        try {
+            Metricas.desactivar();
+            benchAgregarQuitar("Metricas desactivadas");
+            Metricas.activar();
+            benchAgregarQuitar("Metricas activadas");
+            for (int hilos : HILOS) {
+                benchConcurrente(hilos);
+            }
+        } finally {
+            Metricas.reiniciar();
+            if (!activas) {
+                Metricas.desactivar();
+            }
+        }
+    }
+
+    private void benchAgregarQuitar(String nombre) {
+        Bolsa bolsa = new Bolsa("Mochila", Integer.MAX_VALUE);
+        Elemento[] elementos = elementos("");
+        Benchmark.medir(nombre + " addElemento+delElemento", ELEMENTOS, OPERACIONES, null,
+            i -> {
+                Elemento elemento = elementos[i % ELEMENTOS];
+                bolsa.addElemento(elemento);
+                return bolsa.delElemento(elemento.getNombre());
+            });
+    }
+
+    private void benchConcurrente(int hilos) {
+        Bolsa bolsa = new BolsaConcurrente("Alijo", Integer.MAX_VALUE);
+        Elemento[][] elementos = new Elemento[hilos][];
+        for (int h = 0; h < hilos; h++) {
+            elementos[h] = elementos("Hilo" + h + "-");
+        }
+        Benchmark.medirConcurrente("Metricas activadas BolsaConcurrente.addElemento+delElemento",
+            hilos, OPERACIONES_POR_HILO, null,
+            (hilo, i) -> {
+                Elemento elemento = elementos[hilo][i % ELEMENTOS];
+                bolsa.addElemento(elemento);
+                return bolsa.delElemento(elemento.getNombre());
+            });
+    }
+
+    private static Elemento[] elementos(String prefijo) {
+        Elemento[] elementos = new Elemento[ELEMENTOS];
+        for (int e = 0; e < ELEMENTOS; e++) {
+            elementos[e] = new Elemento(prefijo + e, 1);
+        }
+        return elementos;
+    }
+}
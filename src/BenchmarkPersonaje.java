@@ -0,0 +1,50 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mediciones de Personaje preparando recetas de distintos tamanios.
+ */
+public class BenchmarkPersonaje {
+    // Cantidad total de ingredientes consumidos por ronda
+    private static final int INGREDIENTES_POR_RONDA = 100_000;
+
+    public void ejecutarBenchmarks (int[] tamanios) {
+        for (int n : tamanios) {
+            benchPrepararReceta(n);
+        }
+    }
+
+    /**
+     * Prepara una receta de n ingredientes con una bolsa que los
+     * contiene a todos. Los personajes se arman antes de cada ronda.
+     */
+    public void benchPrepararReceta(int n) {
+        String[] nombres = Benchmark.nombres(n);
+        Receta receta = Benchmark.receta("voladora", nombres);
+        Elemento[] ingredientes = new Elemento[n];
+        for (int i = 0; i < n; i++) {
+            ingredientes[i] = new Elemento(nombres[i], 1);
+        }
+        int operaciones = Math.max(1, INGREDIENTES_POR_RONDA / n);
+        List<Personaje> personajes = new ArrayList<Personaje>();
+        Benchmark.medir("Personaje.prepararReceta", n, operaciones,
+            () -> {
+                personajes.clear();
+                for (int p = 0; p < operaciones; p++) {
+                    Personaje personaje = new Personaje("Gandalf", 100, Integer.MAX_VALUE);
+                    Bolsa bolsa = new Bolsa("Mochila", Integer.MAX_VALUE);
+                    for (Elemento ingrediente : ingredientes) {
+                        bolsa.addElemento(ingrediente);
+                    }
+                    personaje.setBolsa(bolsa);
+                    personaje.setCaldero(new Caldero("Caldero", n));
+                    personajes.add(personaje);
+                }
+            },
+            i -> {
+                Personaje personaje = personajes.get(i);
+                personaje.prepararReceta(receta);
+                return personaje.getCaldero().getPocima();
+            });
+    }
+}
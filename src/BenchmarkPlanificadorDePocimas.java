@@ -0,0 +1,64 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mediciones de PlanificadorDePocimas sobre un arbol binario de
+ * recetas: cada receta interna usa las pocimas de sus dos hijas y
+ * cada hoja dos ingredientes de la bolsa. Se mide el armado del
+ * plan y su preparacion con uno y con varios calderos.
+ */
+public class BenchmarkPlanificadorDePocimas {
+    private static final int[] PROFUNDIDADES = {4, 8};
+    private static final int BOLSAS = 256;
+
+    public void ejecutarBenchmarks () {
+        for (int profundidad : PROFUNDIDADES) {
+            benchPreparar(profundidad);
+        }
+    }
+
+    private void benchPreparar(int profundidad) {
+        int recetas = (1 << profundidad) - 1;
+        List<Receta> recetario = new ArrayList<Receta>(recetas);
+        List<String> hojas = new ArrayList<String>();
+        for (int r = 1; r <= recetas; r++) {
+            Receta receta = new Receta("Receta" + r);
+            if (2 * r <= recetas) {
+                receta.addIngrediente(Caldero.nombreDePocima("Receta" + (2 * r)));
+                receta.addIngrediente(Caldero.nombreDePocima("Receta" + (2 * r + 1)));
+            } else {
+                receta.addIngrediente("Hoja" + r + "a");
+                receta.addIngrediente("Hoja" + r + "b");
+                hojas.add("Hoja" + r + "a");
+                hojas.add("Hoja" + r + "b");
+            }
+            receta.cerrarReceta();
+            recetario.add(receta);
+        }
+        Receta objetivo = recetario.get(0);
+        PlanificadorDePocimas planificador = new PlanificadorDePocimas(recetario);
+
+        Bolsa[] bolsas = new Bolsa[BOLSAS];
+        Benchmark.Preparacion llenar = () -> {
+            for (int b = 0; b < BOLSAS; b++) {
+                bolsas[b] = new Bolsa("Mochila", Integer.MAX_VALUE);
+                for (String hoja : hojas) {
+                    bolsas[b].addElemento(new Elemento(hoja, 1));
+                }
+            }
+        };
+        llenar.preparar();
+        PlanificadorDePocimas.Plan plan = planificador.planificar(objetivo, bolsas[0]);
+
+        Benchmark.medir("PlanificadorDePocimas.planificar", recetas, BOLSAS, null,
+            i -> planificador.planificar(objetivo, bolsas[i]));
+        for (int cantidad : new int[] {1, 4}) {
+            List<Caldero> calderos = new ArrayList<Caldero>();
+            for (int c = 0; c < cantidad; c++) {
+                calderos.add(new Caldero("Caldero " + c, 2));
+            }
+            Benchmark.medir("PlanificadorDePocimas.preparar, " + cantidad + " calderos", recetas, BOLSAS, llenar,
+                i -> planificador.preparar(plan, bolsas[i], calderos));
+        }
+    }
+}
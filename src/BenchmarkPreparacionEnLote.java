@@ -0,0 +1,49 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mediciones de rendimiento de PreparacionEnLote: lotes de pedidos
+ * de personajes distintos, cada uno con los ingredientes de una
+ * receta de 5 ingredientes, con distinta cantidad de hilos.
+ */
+public class BenchmarkPreparacionEnLote {
+    private static final int PEDIDOS = 10_000;
+    private static final int LOTES = 5;
+    private static final int INGREDIENTES = 5;
+
+    public void ejecutarBenchmarks () {
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        for (int hilos = 1; hilos <= procesadores; hilos *= 2) {
+            benchPreparar(hilos);
+        }
+        if (Integer.bitCount(procesadores) != 1) {
+            benchPreparar(procesadores);
+        }
+    }
+
+    private void benchPreparar(int hilos) {
+        String[] nombres = Benchmark.nombres(INGREDIENTES);
+        Receta receta = Benchmark.receta("voladora", nombres);
+        List<List<PreparacionEnLote.Pedido>> lotes = new ArrayList<List<PreparacionEnLote.Pedido>>();
+        try (PreparacionEnLote servicio = new PreparacionEnLote(hilos * 2, INGREDIENTES, hilos)) {
+            double nsPorLote = Benchmark.medir("PreparacionEnLote.preparar [hilos=" + hilos + "]", PEDIDOS, LOTES,
+                () -> {
+                    lotes.clear();
+                    for (int l = 0; l < LOTES; l++) {
+                        List<PreparacionEnLote.Pedido> pedidos = new ArrayList<PreparacionEnLote.Pedido>();
+                        for (int p = 0; p < PEDIDOS; p++) {
+                            Personaje personaje = new Personaje("Personaje" + p, 100, 100);
+                            personaje.setBolsa(new Bolsa("Mochila", 100));
+                            for (String nombre : nombres) {
+                                personaje.getBolsa().addElemento(Elemento.compartido(nombre, 1));
+                            }
+                            pedidos.add(new PreparacionEnLote.Pedido(personaje, receta));
+                        }
+                        lotes.add(pedidos);
+                    }
+                },
+                i -> servicio.preparar(lotes.get(i)));
+            System.out.println(String.format("  %.0f pedidos/s", PEDIDOS * 1e9 / nsPorLote));
+        }
+    }
+}
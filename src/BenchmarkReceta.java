@@ -0,0 +1,35 @@
+/**
+ * Mediciones de Receta con distintas cantidades de ingredientes.
+ */
+public class BenchmarkReceta {
+
+    public void ejecutarBenchmarks (int[] tamanios) {
+        for (int n : tamanios) {
+            benchToString(n);
+            benchToStringAbierta(n);
+        }
+    }
+
+    /**
+     * Genera el texto de una receta cerrada de n ingredientes.
+     */
+    public void benchToString(int n) {
+        Receta receta = Benchmark.receta("voladora", Benchmark.nombres(n));
+        int operaciones = Math.max(1, 10_000 / n);
+        Benchmark.medir("Receta.toString", n, operaciones, null,
+            i -> receta.toString());
+    }
+
+    /**
+     * Genera el texto de una receta sin cerrar de n ingredientes.
+     */
+    public void benchToStringAbierta(int n) {
+        Receta receta = new Receta("voladora");
+        for (String ingrediente : Benchmark.nombres(n)) {
+            receta.addIngrediente(ingrediente);
+        }
+        int operaciones = Math.max(1, 10_000 / n);
+        Benchmark.medir("Receta.toString (abierta)", n, operaciones, null,
+            i -> receta.toString());
+    }
+}
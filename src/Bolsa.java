@@ -1,6 +1,25 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /** 
  * Modela la bolsa que utiliza el Personaje para
@@ -8,13 +27,68 @@ import java.util.TreeMap;
  * el peso maximo que soporta.
  * 
  * Todos los objetos se incluyen en un mapa.
+ * 
+ * Ademas del mapa por nombre se mantiene un indice ordenado por
+ * peso (y por nombre a igual peso), que permite consultar los
+ * elementos mas pesados, los de un rango de peso o los que
+ * conviene soltar sin recorrer ni ordenar toda la bolsa.
  */
 
 public class Bolsa {
     private final int PESO_MAXIMO;
     private int pesoActual;
     private String nombre;
-    private Map<String, Elemento> porNombre;
+    private NavigableMap<String, Elemento> porNombre;
+    // soloLectura -> vista de porNombre que devuelve getMapaDeElementos
+    private Map<String, Elemento> soloLectura;
+    // porPeso -> los mismos elementos ordenados por peso y nombre
+    private NavigableSet<Elemento> porPeso;
+    // diario -> diario donde se anotan los cambios (null si no hay)
+    private Diario diario;
+    private int numeroEnDiario;
+    // id -> orden en que se toman los candados de dos bolsas (transferir)
+    private final long id = SIGUIENTE_ID.getAndIncrement();
+    // candado -> lo usa transferir; se crea la primera vez
+    private volatile ReentrantLock candado;
+    // cambiosEmpezados, cambiosTerminados -> cambios de contenido
+    //   (la version es cambiosTerminados; distintos: hay uno en curso)
+    private volatile long cambiosEmpezados;
+    private volatile long cambiosTerminados;
+    // copia -> ultima lista devuelta por getElementosEnLaBolsa
+    private volatile Copia copia;
+
+    private static final AtomicLong SIGUIENTE_ID = new AtomicLong();
+    private static final AtomicLongFieldUpdater<Bolsa> EMPEZADOS =
+        AtomicLongFieldUpdater.newUpdater(Bolsa.class, "cambiosEmpezados");
+    private static final AtomicLongFieldUpdater<Bolsa> TERMINADOS =
+        AtomicLongFieldUpdater.newUpdater(Bolsa.class, "cambiosTerminados");
+    // reintentos de getElementosEnLaBolsa si cambia la bolsa mientras copia
+    private static final int REINTENTOS_COPIA = 3;
+
+    /**
+     * Copia de los elementos (en un arreglo y como lista de solo
+     * lectura sobre el mismo arreglo) y la version de la bolsa a la
+     * que corresponde.
+     */
+    private static final class Copia {
+        final long version;
+        final Elemento[] arreglo;
+        final List<Elemento> elementos;
+
+        Copia (long version, Elemento[] arreglo) {
+            this.version = version;
+            this.arreglo = arreglo;
+            this.elementos = Collections.unmodifiableList(Arrays.asList(arreglo));
+        }
+    }
+
+    /**
+     * Orden del indice por peso: por peso y, a igual peso, por
+     * nombre. Como los nombres no se repiten en una bolsa, cada
+     * elemento ocupa su propio lugar.
+     */
+    public static final Comparator<Elemento> POR_PESO =
+        Comparator.comparingInt(Elemento::getPeso).thenComparing(Elemento::getNombre);
 
     /**
      * Constructor con parámetros
@@ -33,13 +107,37 @@ public class Bolsa {
         this.PESO_MAXIMO = peso;
         this.pesoActual = 0;
         this.porNombre = new TreeMap<String, Elemento>();
+        this.soloLectura = Collections.unmodifiableMap(this.porNombre);
+        this.porPeso = new TreeSet<Elemento>(POR_PESO);
+    }
+
+    /**
+     * Constructor para subclases que necesitan otra implementacion
+     * del mapa ordenado de elementos y del indice por peso.
+     * 
+     * @param nombre El nombre de la bolsa.
+     * @param peso El peso maximo que puede contener la bolsa
+     * @param porNombre El mapa (vacio) donde se guardan los elementos.
+     * @param porPeso El conjunto (vacio, ordenado por POR_PESO) que
+     *        sirve de indice por peso.
+     */
+    protected Bolsa (String nombre, int peso, NavigableMap<String, Elemento> porNombre,
+                     NavigableSet<Elemento> porPeso) {
+        this.nombre = nombre;
+        this.PESO_MAXIMO = peso;
+        this.pesoActual = 0;
+        this.porNombre = porNombre;
+        // BolsaStore no usa el mapa (null): redefine getMapaDeElementos
+        this.soloLectura = porNombre != null ? Collections.unmodifiableMap(porNombre) : null;
+        this.porPeso = porPeso;
     }
 
     /**
      * Agrega un elemento a la bolsa y actualiza el peso total.
      * 
-     * Si el elemento no puede agregarse, se debe imprimir el
-     * mensaje;
+     * Si el elemento no puede agregarse, se informa el rechazo al
+     * sumidero de eventos (Eventos); con SumideroDeEventos.CONSOLA
+     * se imprime el mensaje;
      * 
      *  "<nombre>: No se puede agregar <elemento>"
      * 
@@ -51,17 +149,166 @@ public class Bolsa {
      *         - existe un elemento con el mismo nombre
      * 
      * @param obj El elemento a agregar en la bolsa.
+     * @return HECHO, NOMBRE_REPETIDO o SIN_LUGAR.
+     */
+    public ResultadoOperacion addElemento (Elemento obj) {
+        long inicio = Metricas.inicio();
+        try {
+            if (this.agregar(obj)) {
+                this.anotarAgregado(obj);
+                return ResultadoOperacion.HECHO;
+            }
+            return Eventos.rechazo(SumideroDeEventos.Operacion.BOLSA_AGREGAR,
+                this.contieneElemento(obj.getNombre())
+                    ? ResultadoOperacion.NOMBRE_REPETIDO
+                    : ResultadoOperacion.SIN_LUGAR,
+                this, obj.getNombre(), 0);
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.BOLSA_AGREGAR, inicio);
+        }
+    }
+
+    /**
+     * Agrega un elemento si se cumplen las condiciones de
+     * addElemento, sin imprimir nada.
+     * 
+     * @param obj El elemento a agregar en la bolsa.
+     * @return true si se agrego, false en caso contrario.
      */
-    public void addElemento (Elemento obj) {
+    protected boolean agregar (Elemento obj) {
         if (
             this.porNombre.get(obj.getNombre()) == null &&
             obj.getPeso() <= this.getPesoLibre()
         ) {
+            this.empezarCambio();
             this.porNombre.put(obj.getNombre(), obj);
+            this.porPeso.add(obj);
+            this.terminarCambio();
             this.addPeso(obj.getPeso());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Agrega varios elementos a la bolsa en una sola pasada.
+     * 
+     * Con todoONada en verdadero se agregan todos o ninguno: se
+     * verifica primero que no haya nombres repetidos (en la bolsa
+     * o entre los elementos recibidos) y que el peso total entre
+     * en la bolsa. Si algo falla, no se agrega nada y se devuelven
+     * todos los elementos.
+     * 
+     * Con todoONada en falso se agregan, en orden, los que se
+     * pueden y se devuelven los rechazados.
+     * 
+     * No se imprime ningun mensaje.
+     * 
+     * @param elementos Los elementos a agregar.
+     * @param todoONada true para agregar todos o ninguno.
+     * @return La lista de elementos que no se agregaron (vacia si
+     *         se agregaron todos).
+     */
+    public List<Elemento> addElementos (Collection<Elemento> elementos, boolean todoONada) {
+        List<Elemento> rechazados = new ArrayList<Elemento>();
+        if (todoONada) {
+            if (!this.agregarTodos(elementos)) {
+                rechazados.addAll(elementos);
+            } else {
+                for (Elemento elemento : elementos) {
+                    this.anotarAgregado(elemento);
+                }
+            }
         } else {
-            System.out.println(this.nombre + ": No se puede agregar " + obj.getNombre());
+            for (Elemento elemento : elementos) {
+                if (this.agregar(elemento)) {
+                    this.anotarAgregado(elemento);
+                } else {
+                    rechazados.add(elemento);
+                }
+            }
+        }
+        return rechazados;
+    }
+
+    /**
+     * Guarda, de los candidatos, el subconjunto que mas peso ocupa
+     * sin superar el peso libre (ver Empaquetador).
+     * 
+     * @param candidatos Los elementos que podrian guardarse.
+     * @return Los candidatos que no se guardaron.
+     */
+    public List<Elemento> autoPack (Collection<Elemento> candidatos) {
+        return this.autoPack(candidatos, Empaquetador.PESO, Empaquetador.Modo.AUTOMATICO);
+    }
+
+    /**
+     * Guarda, de los candidatos, el subconjunto de mayor valor que
+     * entra en el peso libre. Se ignoran los candidatos cuyo nombre
+     * ya esta en la bolsa y, de los nombres repetidos, se considera
+     * solo el de mayor valor.
+     * 
+     * Los elegidos se agregan todos juntos (addElementos); si en el
+     * medio otro hilo cambio la bolsa y ya no entran, no se agrega
+     * ninguno. No se imprime ningun mensaje.
+     * 
+     * @param candidatos Los elementos que podrian guardarse.
+     * @param valor El valor de cada elemento.
+     * @param modo Eleccion exacta, aproximada o automatica.
+     * @return Los candidatos que no se guardaron.
+     */
+    public List<Elemento> autoPack (Collection<Elemento> candidatos, ToLongFunction<Elemento> valor,
+                                    Empaquetador.Modo modo) {
+        List<Elemento> nuevos = new ArrayList<Elemento>(candidatos.size());
+        for (Elemento candidato : candidatos) {
+            if (!this.contieneElemento(candidato.getNombre())) {
+                nuevos.add(candidato);
+            }
+        }
+        List<Elemento> elegidos = Empaquetador.elegir(nuevos, this.getPesoLibre(), valor, modo);
+        if (!this.addElementos(elegidos, true).isEmpty()) {
+            return new ArrayList<Elemento>(candidatos);
+        }
+        Set<Elemento> guardados = Collections.newSetFromMap(new IdentityHashMap<Elemento, Boolean>());
+        guardados.addAll(elegidos);
+        List<Elemento> restantes = new ArrayList<Elemento>(candidatos.size() - elegidos.size());
+        for (Elemento candidato : candidatos) {
+            if (!guardados.remove(candidato)) {
+                restantes.add(candidato);
+            }
         }
+        return restantes;
+    }
+
+    /**
+     * Agrega todos los elementos o ninguno.
+     * 
+     * @param elementos Los elementos a agregar.
+     * @return true si se agregaron todos, false si no se agrego ninguno.
+     */
+    protected boolean agregarTodos (Collection<Elemento> elementos) {
+        Set<String> nombres = new HashSet<String>();
+        long pesoTotal = 0;
+        for (Elemento elemento : elementos) {
+            if (
+                !nombres.add(elemento.getNombre()) ||
+                this.porNombre.containsKey(elemento.getNombre())
+            ) {
+                return false;
+            }
+            pesoTotal += elemento.getPeso();
+        }
+        if (pesoTotal > this.getPesoLibre()) {
+            return false;
+        }
+        this.empezarCambio();
+        for (Elemento elemento : elementos) {
+            this.porNombre.put(elemento.getNombre(), elemento);
+            this.porPeso.add(elemento);
+        }
+        this.terminarCambio();
+        this.addPeso((int) pesoTotal);
+        return true;
     }
 
     /**
@@ -72,40 +319,700 @@ public class Bolsa {
      * @return el elemento eliminado, o null si no existe ese elemento a remover
      */
     public Elemento delElemento (String nombre) {
-        Elemento elementoEliminado =  this.porNombre.remove(nombre);
-        this.addPeso(-elementoEliminado.getPeso());
+        long inicio = Metricas.inicio();
+        try {
+            Elemento elementoEliminado = this.quitar(nombre);
+            if (elementoEliminado != null && this.diario != null) {
+                this.diario.anotarQuitado(this.numeroEnDiario, nombre);
+            }
+            return elementoEliminado;
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.BOLSA_QUITAR, inicio);
+        }
+    }
+
+    /**
+     * Quita un objeto del mapa por su nombre y actualiza el peso
+     * total, sin anotarlo en el diario. Las subclases que guardan
+     * los elementos de otra forma redefinen este metodo.
+     * 
+     * @param nombre El nombre del elemento a quitar de la bolsa.
+     * @return el elemento eliminado, o null si no existe
+     */
+    protected Elemento quitar (String nombre) {
+        if (!this.porNombre.containsKey(nombre)) {
+            return null;
+        }
+        this.empezarCambio();
+        Elemento elementoEliminado = this.porNombre.remove(nombre);
+        if (elementoEliminado != null) {
+            this.porPeso.remove(elementoEliminado);
+        }
+        this.terminarCambio();
+        if (elementoEliminado != null) {
+            this.addPeso(-elementoEliminado.getPeso());
+        }
         return elementoEliminado;
     }
 
     /**
-     * Devuelve una lista con los elementos almacenados en la bolsa.
+     * Agrega unidades a la pila del elemento con ese nombre, o la
+     * crea si no esta en la bolsa. La pila queda en una sola entrada
+     * de la bolsa, con la cantidad total y el peso de cada unidad.
+     * 
+     * Si las unidades no pueden agregarse, se informa el rechazo al
+     * sumidero de eventos (Eventos) como en addElemento:
+     *         - su peso (cantidad x peso unitario) excede el peso libre
+     *         - ya hay un elemento con ese nombre y otro peso unitario
+     * 
+     * @param unidades El elemento, con la cantidad de unidades a agregar.
+     * @return HECHO, NOMBRE_REPETIDO o SIN_LUGAR.
+     */
+    public ResultadoOperacion addUnidades (Elemento unidades) {
+        long inicio = Metricas.inicio();
+        try {
+            if (this.apilar(unidades)) {
+                if (this.diario != null) {
+                    this.diario.anotarApilado(this.numeroEnDiario, unidades);
+                }
+                return ResultadoOperacion.HECHO;
+            }
+            Elemento anterior = this.buscar(unidades.getNombre());
+            return Eventos.rechazo(SumideroDeEventos.Operacion.BOLSA_AGREGAR,
+                anterior != null && anterior.getPesoUnitario() != unidades.getPesoUnitario()
+                    ? ResultadoOperacion.NOMBRE_REPETIDO
+                    : ResultadoOperacion.SIN_LUGAR,
+                this, unidades.getNombre(), 0);
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.BOLSA_AGREGAR, inicio);
+        }
+    }
+
+    /**
+     * Agrega, en orden, las unidades que se pueden (ver addUnidades)
+     * y devuelve las rechazadas. Sirve para devolver a la bolsa lo
+     * que se saco de ella. No se imprime ningun mensaje.
+     * 
+     * @param unidades Los elementos, cada uno con su cantidad.
+     * @return Los que no se agregaron (vacia si se agregaron todos).
+     */
+    public List<Elemento> addUnidades (Collection<Elemento> unidades) {
+        List<Elemento> rechazados = new ArrayList<Elemento>();
+        for (Elemento elemento : unidades) {
+            if (this.apilar(elemento)) {
+                if (this.diario != null) {
+                    this.diario.anotarApilado(this.numeroEnDiario, elemento);
+                }
+            } else {
+                rechazados.add(elemento);
+            }
+        }
+        return rechazados;
+    }
+
+    /**
+     * Quita unidades de la pila del elemento con ese nombre. Si se
+     * quitan todas, el elemento sale de la bolsa.
+     * 
+     * @param nombre El nombre del elemento.
+     * @param cantidad Cuantas unidades quitar (al menos 1).
+     * @return Las unidades quitadas, o null si el elemento no esta o
+     *         tiene menos unidades.
+     */
+    public Elemento delUnidades (String nombre, int cantidad) {
+        long inicio = Metricas.inicio();
+        try {
+            if (cantidad < 1) {
+                throw new IllegalArgumentException(nombre + ": cantidad " + cantidad);
+            }
+            Elemento quitadas = this.desapilar(nombre, cantidad);
+            if (quitadas != null && this.diario != null) {
+                this.diario.anotarDesapilado(this.numeroEnDiario, nombre, cantidad);
+            }
+            return quitadas;
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.BOLSA_QUITAR, inicio);
+        }
+    }
+
+    /**
+     * Devuelve cuantas unidades hay del elemento con ese nombre.
+     * 
+     * @param nombre El nombre del elemento.
+     * @return La cantidad de unidades, 0 si no esta en la bolsa.
+     */
+    public int getCantidad (String nombre) {
+        Elemento elemento = this.buscar(nombre);
+        return elemento != null ? elemento.getCantidad() : 0;
+    }
+
+    /**
+     * Agrega unidades a una pila si se cumplen las condiciones de
+     * addUnidades, sin informar nada. Mientras tanto se toma el
+     * candado de ese nombre (bloquear); cambiar la cantidad de una
+     * pila cuesta lo mismo que un alta, cualquiera sea la cantidad.
+     * Las subclases que guardan los elementos de otra forma
+     * redefinen este metodo.
+     * 
+     * @param unidades Las unidades a agregar.
+     * @return true si se agregaron, false en caso contrario.
+     */
+    protected boolean apilar (Elemento unidades) {
+        List<String> nombres = Collections.singletonList(unidades.getNombre());
+        this.bloquear(nombres);
+        try {
+            Elemento anterior = this.buscar(unidades.getNombre());
+            if (anterior == null) {
+                return this.agregar(unidades);
+            }
+            if (
+                anterior.getPesoUnitario() != unidades.getPesoUnitario() ||
+                (long) anterior.getCantidad() + unidades.getCantidad() > Integer.MAX_VALUE ||
+                !this.reservarPeso(unidades.getPeso())
+            ) {
+                return false;
+            }
+            this.reemplazar(anterior, anterior.conCantidad(anterior.getCantidad() + unidades.getCantidad()));
+            return true;
+        } finally {
+            this.desbloquear(nombres);
+        }
+    }
+
+    /**
+     * Quita unidades de una pila, sin anotarlo en el diario (ver
+     * apilar).
      * 
-     * @return ArrayList<Elemento> lista con los elementos de la bolsa.
+     * @param nombre El nombre del elemento.
+     * @param cantidad Cuantas unidades quitar.
+     * @return Las unidades quitadas, o null si no hay suficientes.
+     */
+    protected Elemento desapilar (String nombre, int cantidad) {
+        List<String> nombres = Collections.singletonList(nombre);
+        this.bloquear(nombres);
+        try {
+            Elemento anterior = this.buscar(nombre);
+            if (anterior == null || anterior.getCantidad() < cantidad) {
+                return null;
+            }
+            if (anterior.getCantidad() == cantidad) {
+                return this.quitar(nombre);
+            }
+            this.reemplazar(anterior, anterior.conCantidad(anterior.getCantidad() - cantidad));
+            Elemento quitadas = anterior.conCantidad(cantidad);
+            this.addPeso(-quitadas.getPeso());
+            return quitadas;
+        } finally {
+            this.desbloquear(nombres);
+        }
+    }
+
+    /**
+     * Cambia un elemento por otro del mismo nombre en el mapa y en
+     * el indice por peso. No cambia el peso de la bolsa.
      */
-    public ArrayList<Elemento> getElementosEnLaBolsa() {
-        ArrayList<Elemento> listaDeElementos = new ArrayList<Elemento>();
-        for (Elemento elemento: this.getMapaDeElementos().values()) {
-            listaDeElementos.add(elemento);
+    private void reemplazar (Elemento anterior, Elemento nuevo) {
+        this.empezarCambio();
+        try {
+            this.getMapaPorNombre().put(nuevo.getNombre(), nuevo);
+            this.getIndicePorPeso().remove(anterior);
+            this.getIndicePorPeso().add(nuevo);
+        } finally {
+            this.terminarCambio();
         }
-        return listaDeElementos;
+    }
+
+    /**
+     * Suma el peso indicado si entra en la bolsa. BolsaConcurrente
+     * lo hace en un solo paso atomico.
+     * 
+     * @param peso El peso a reservar.
+     * @return true si se reservo, false si excede el peso libre.
+     */
+    protected boolean reservarPeso (int peso) {
+        if (peso > this.getPesoLibre()) {
+            return false;
+        }
+        this.addPeso(peso);
+        return true;
+    }
+
+    /**
+     * Pasa un elemento de esta bolsa a otra (ver transferir con
+     * varios nombres).
+     * 
+     * @param nombre El nombre del elemento a pasar.
+     * @param destino La bolsa que lo recibe.
+     * @return HECHO, ELEMENTO_INEXISTENTE, NOMBRE_REPETIDO o SIN_LUGAR.
+     */
+    public ResultadoOperacion transferir (String nombre, Bolsa destino) {
+        return this.transferir(Collections.singletonList(nombre), destino);
+    }
+
+    /**
+     * Pasa los elementos con esos nombres de esta bolsa a otra, todos
+     * o ninguno: si alguno no esta en esta bolsa, ya hay uno con ese
+     * nombre en el destino o no entran, no se mueve nada y se informa
+     * el rechazo al sumidero de eventos (Eventos); con
+     * SumideroDeEventos.CONSOLA se imprime
+     * 
+     *  "<nombre>: No se puede transferir <elemento>"
+     * 
+     * donde <nombre> es la bolsa que rechazo el pase. Ningun
+     * elemento se pierde: primero se agregan al destino y despues se
+     * quitan de aqui.
+     * 
+     * Mientras tanto se toman los candados de las dos bolsas para
+     * esos nombres (bloquear), siempre primero los de la bolsa creada
+     * antes, de modo que dos pases cruzados entre las mismas bolsas
+     * no se traban. Los pases son atomicos entre si y, en
+     * BolsaConcurrente, tambien respecto de las altas y bajas de esos
+     * nombres; Bolsa sigue sin ser segura para usar desde varios
+     * hilos con otras operaciones.
+     * 
+     * @param nombres Los nombres de los elementos a pasar (sin repetir).
+     * @param destino La bolsa que los recibe.
+     * @return HECHO, ELEMENTO_INEXISTENTE, NOMBRE_REPETIDO o SIN_LUGAR.
+     */
+    public ResultadoOperacion transferir (Collection<String> nombres, Bolsa destino) {
+        long inicio = Metricas.inicio();
+        try {
+            Bolsa primera = this.id < destino.id ? this : destino;
+            Bolsa segunda = primera == this ? destino : this;
+            primera.bloquear(nombres);
+            try {
+                if (segunda != primera) {
+                    segunda.bloquear(nombres);
+                }
+                try {
+                    return this.pasar(nombres, destino);
+                } finally {
+                    if (segunda != primera) {
+                        segunda.desbloquear(nombres);
+                    }
+                }
+            } finally {
+                primera.desbloquear(nombres);
+            }
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.BOLSA_TRANSFERIR, inicio);
+        }
+    }
+
+    /**
+     * Hace el pase con los candados ya tomados: mientras tanto los
+     * nombres no aparecen ni desaparecen de ninguna de las dos
+     * bolsas, de modo que lo que se verifica sigue valiendo.
+     */
+    private ResultadoOperacion pasar (Collection<String> nombres, Bolsa destino) {
+        List<Elemento> elementos = new ArrayList<Elemento>(nombres.size());
+        for (String nombre : nombres) {
+            Elemento elemento = this.buscar(nombre);
+            if (elemento == null) {
+                return Eventos.rechazo(SumideroDeEventos.Operacion.BOLSA_TRANSFERIR,
+                    ResultadoOperacion.ELEMENTO_INEXISTENTE, this, nombre, 0);
+            }
+            elementos.add(elemento);
+        }
+        if (destino == this) {
+            return ResultadoOperacion.HECHO;
+        }
+        if (!destino.agregarTodos(elementos)) {
+            for (Elemento elemento : elementos) {
+                if (destino.contieneElemento(elemento.getNombre())) {
+                    return Eventos.rechazo(SumideroDeEventos.Operacion.BOLSA_TRANSFERIR,
+                        ResultadoOperacion.NOMBRE_REPETIDO, destino, elemento.getNombre(), 0);
+                }
+            }
+            return Eventos.rechazo(SumideroDeEventos.Operacion.BOLSA_TRANSFERIR,
+                ResultadoOperacion.SIN_LUGAR, destino, elementos.get(0).getNombre(), 0);
+        }
+        for (Elemento elemento : elementos) {
+            destino.anotarAgregado(elemento);
+        }
+        for (Elemento elemento : elementos) {
+            this.quitar(elemento.getNombre());
+            if (this.diario != null) {
+                this.diario.anotarQuitado(this.numeroEnDiario, elemento.getNombre());
+            }
+        }
+        return ResultadoOperacion.HECHO;
+    }
+
+    /**
+     * Toma el candado que transferir usa para los nombres dados.
+     * Bolsa tiene un unico candado; las subclases pueden tener uno
+     * por nombre, tomados siempre en el mismo orden.
+     * 
+     * @param nombres Los nombres que van a cambiar.
+     */
+    protected void bloquear (Collection<String> nombres) {
+        ReentrantLock actual = this.candado;
+        if (actual == null) {
+            synchronized (this) {
+                if (this.candado == null) {
+                    this.candado = new ReentrantLock();
+                }
+                actual = this.candado;
+            }
+        }
+        actual.lock();
+    }
+
+    /**
+     * Suelta lo tomado con bloquear.
+     * 
+     * @param nombres Los mismos nombres pasados a bloquear.
+     */
+    protected void desbloquear (Collection<String> nombres) {
+        this.candado.unlock();
+    }
+
+    /**
+     * Toma los candados de todos los nombres, de modo que ningun
+     * cambio de elementos quede a medias.
+     */
+    protected void bloquearTodo () {
+        this.bloquear(Collections.<String>emptyList());
+    }
+
+    /**
+     * Suelta lo tomado con bloquearTodo.
+     */
+    protected void desbloquearTodo () {
+        this.desbloquear(Collections.<String>emptyList());
+    }
+
+    /**
+     * Vincula la bolsa con el diario que anota sus cambios. Lo
+     * llama Diario.registrar().
+     * 
+     * @param diario El diario.
+     * @param numero El numero de la bolsa dentro del diario.
+     */
+    void setDiario (Diario diario, int numero) {
+        this.diario = diario;
+        this.numeroEnDiario = numero;
+    }
+
+    private void anotarAgregado (Elemento obj) {
+        if (this.diario != null) {
+            this.diario.anotarAgregado(this.numeroEnDiario, obj);
+        }
+    }
+
+    /**
+     * Indica si hay un elemento con el nombre dado en la bolsa.
+     * 
+     * @param nombre El nombre a buscar.
+     * @return true si la bolsa contiene un elemento con ese nombre.
+     */
+    public boolean contieneElemento (String nombre) {
+        return this.getMapaDeElementos().containsKey(nombre);
+    }
+
+    /**
+     * Devuelve el elemento con ese nombre sin armar ninguna copia
+     * del contenido. Las subclases que guardan los elementos de otra
+     * forma redefinen este metodo.
+     * 
+     * @param nombre El nombre a buscar.
+     * @return El elemento, o null si no esta en la bolsa.
+     */
+    protected Elemento buscar (String nombre) {
+        return this.getMapaDeElementos().get(nombre);
+    }
+
+    /**
+     * Devuelve una lista de solo lectura con los elementos
+     * almacenados en la bolsa, en orden por nombre.
+     * 
+     * La lista es una copia: no cambia si despues cambia la bolsa.
+     * Se guarda junto con la version de la bolsa (getVersion) y se
+     * vuelve a devolver la misma mientras la bolsa no cambie, de modo
+     * que leer muchas veces una bolsa quieta no asigna memoria.
+     * 
+     * Desde otro hilo (BolsaConcurrente) la copia se arma sin
+     * bloquear a quien modifica la bolsa: si durante la copia empezo
+     * algun cambio se vuelve a copiar. Si la bolsa no se queda
+     * quieta despues de unos intentos, se copia con todos los
+     * candados tomados (bloquearTodo), lo que detiene los cambios
+     * solo mientras dura la copia.
+     * 
+     * @return Los elementos de la bolsa.
+     */
+    public List<Elemento> getElementosEnLaBolsa() {
+        return this.getCopia().elementos;
+    }
+
+    /**
+     * Devuelve un Stream secuencial con los elementos de la bolsa,
+     * en orden por nombre.
+     * 
+     * Recorre la misma copia que getElementosEnLaBolsa: si la bolsa
+     * no cambio desde la ultima lectura no se copia nada, y el
+     * Stream no ve los cambios posteriores.
+     * 
+     * @return Los elementos de la bolsa.
+     */
+    public Stream<Elemento> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
+    /**
+     * Igual que stream(), pero paralelo: la copia se parte en
+     * mitades exactas, de modo que cada hilo recibe la misma
+     * cantidad de elementos.
+     * 
+     * @return Los elementos de la bolsa.
+     */
+    public Stream<Elemento> parallelStream() {
+        return StreamSupport.stream(this.spliterator(), true);
+    }
+
+    /**
+     * Devuelve un Spliterator sobre la copia de los elementos (ver
+     * stream). Conoce el tamanio exacto de cada parte (SIZED,
+     * SUBSIZED) y la copia no cambia (IMMUTABLE).
+     * 
+     * El mapa por nombre no sirve para esto: el Spliterator de
+     * TreeMap solo se parte en la raiz del arbol y no sabe cuantos
+     * elementos le tocan a cada parte.
+     * 
+     * @return El Spliterator de los elementos.
+     */
+    public Spliterator<Elemento> spliterator() {
+        return Spliterators.spliterator(this.getCopia().arreglo,
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    private Copia getCopia() {
+        Copia actual = this.copia;
+        if (actual != null && actual.version == this.cambiosTerminados) {
+            return actual;
+        }
+        for (int intento = 0; intento < REINTENTOS_COPIA; intento++) {
+            long version = this.cambiosTerminados;
+            long empezados = this.cambiosEmpezados;
+            Elemento[] arreglo = this.getMapaDeElementos().values().toArray(new Elemento[0]);
+            if (version == empezados && this.cambiosEmpezados == empezados) {
+                actual = new Copia(version, arreglo);
+                this.copia = actual;
+                return actual;
+            }
+        }
+        this.bloquearTodo();
+        try {
+            actual = new Copia(this.cambiosTerminados,
+                this.getMapaDeElementos().values().toArray(new Elemento[0]));
+            this.copia = actual;
+            return actual;
+        } finally {
+            this.desbloquearTodo();
+        }
+    }
+
+    /**
+     * Devuelve la version del contenido de la bolsa: cuantos cambios
+     * de elementos (altas y bajas) se hicieron. El peso y el diario
+     * no cuentan.
+     * 
+     * @return La version actual.
+     */
+    public long getVersion() {
+        return this.cambiosTerminados;
+    }
+
+    /**
+     * Marca el comienzo de un cambio de elementos. Las subclases que
+     * guardan los elementos de otra forma lo llaman antes de cambiar
+     * el mapa, y terminarCambio despues.
+     */
+    protected final void empezarCambio() {
+        EMPEZADOS.incrementAndGet(this);
+    }
+
+    /**
+     * Marca el fin de un cambio de elementos (ver empezarCambio).
+     */
+    protected final void terminarCambio() {
+        TERMINADOS.incrementAndGet(this);
     }
 
     /**
      * Devuelve la lista de elementos almacenados en la bolsa
      * cuyo nombre comienza con el prefijo indicado.
      * 
+     * Como el mapa esta ordenado, solo se recorre el rango de
+     * claves que comparten el prefijo.
+     * 
      * @param pre El prefijo a buscar
      * @return ArrayList<Elemento> lista con los elementos de la bolsa que 
      * cumplen con el criterio.
      */
     public ArrayList<Elemento> getElementosConPrefijo(String pre) {
-        ArrayList<Elemento> elementosConPrefijo = new ArrayList<Elemento>();
-        for(String elemento: this.getMapaDeElementos().keySet()) {
-            if(elemento.startsWith(pre)) {
-                elementosConPrefijo.add(this.getMapaDeElementos().get(elemento));
+        return new ArrayList<Elemento>(this.getVistaConPrefijo(pre));
+    }
+
+    /**
+     * Devuelve una vista de solo lectura de los elementos cuyo
+     * nombre comienza con el prefijo indicado, en orden por nombre.
+     * 
+     * La vista no copia los elementos: refleja los cambios
+     * posteriores de la bolsa y se recorre a medida que se la usa.
+     * 
+     * @param pre El prefijo a buscar
+     * @return Los elementos de la bolsa que cumplen con el criterio.
+     */
+    public Collection<Elemento> getVistaConPrefijo(String pre) {
+        String fin = finDelPrefijo(pre);
+        NavigableMap<String, Elemento> rango;
+        if (fin == null) {
+            rango = this.porNombre.tailMap(pre, true);
+        } else {
+            rango = this.porNombre.subMap(pre, true, fin, false);
+        }
+        return Collections.unmodifiableCollection(rango.values());
+    }
+
+    /**
+     * Devuelve los k elementos mas pesados, del mas pesado al mas
+     * liviano (a igual peso, en orden inverso por nombre).
+     * 
+     * @param k La cantidad de elementos.
+     * @return Hasta k elementos.
+     */
+    public List<Elemento> getMasPesados(int k) {
+        List<Elemento> masPesados = new ArrayList<Elemento>(Math.max(0, Math.min(k, 16)));
+        for (Elemento elemento : this.getIndicePorPeso().descendingSet()) {
+            if (masPesados.size() >= k) {
+                break;
             }
+            masPesados.add(elemento);
         }
-        return elementosConPrefijo;
+        return masPesados;
+    }
+
+    /**
+     * Devuelve la lista de elementos cuyo peso esta entre desde y
+     * hasta (incluidos), del mas liviano al mas pesado.
+     * 
+     * @param desde El peso minimo.
+     * @param hasta El peso maximo.
+     * @return ArrayList<Elemento> lista con los elementos del rango.
+     */
+    public ArrayList<Elemento> getElementosPorPeso(int desde, int hasta) {
+        return new ArrayList<Elemento>(this.getVistaPorPeso(desde, hasta));
+    }
+
+    /**
+     * Devuelve una vista de solo lectura de los elementos cuyo peso
+     * esta entre desde y hasta (incluidos), del mas liviano al mas
+     * pesado. Como getVistaConPrefijo, no copia los elementos y
+     * refleja los cambios posteriores de la bolsa.
+     * 
+     * @param desde El peso minimo.
+     * @param hasta El peso maximo.
+     * @return Los elementos de la bolsa en ese rango de peso.
+     */
+    public Collection<Elemento> getVistaPorPeso(int desde, int hasta) {
+        NavigableSet<Elemento> indice = this.getIndicePorPeso();
+        if (desde > hasta) {
+            return Collections.emptyList();
+        }
+        NavigableSet<Elemento> rango;
+        if (hasta == Integer.MAX_VALUE) {
+            rango = indice.tailSet(limitePeso(desde), true);
+        } else {
+            rango = indice.subSet(limitePeso(desde), true, limitePeso(hasta + 1), false);
+        }
+        return Collections.unmodifiableCollection(rango);
+    }
+
+    /**
+     * Devuelve el menor conjunto de elementos que hay que quitar
+     * para que queden libres al menos peso unidades.
+     * 
+     * Se toman los mas pesados hasta que alcance, lo que da la menor
+     * cantidad posible de elementos; el ultimo se reemplaza por el
+     * mas liviano que todavia alcance, para no soltar de mas. No se
+     * quita nada de la bolsa.
+     * 
+     * @param peso El peso que se quiere tener libre.
+     * @return Los elementos a quitar (vacia si ya hay lugar), o null
+     *         si ni vaciando la bolsa se libera ese peso.
+     */
+    public List<Elemento> getParaLiberar(int peso) {
+        if (peso > this.getPesoMaximo()) {
+            return null;
+        }
+        List<Elemento> aQuitar = new ArrayList<Elemento>();
+        long faltante = (long) peso - this.getPesoLibre();
+        NavigableSet<Elemento> restantes = this.getIndicePorPeso();
+        while (faltante > 0) {
+            Elemento justo = faltante > Integer.MAX_VALUE
+                ? null : restantes.ceiling(limitePeso((int) faltante));
+            if (justo != null) {
+                aQuitar.add(justo);
+                return aQuitar;
+            }
+            if (restantes.isEmpty()) {
+                return null;
+            }
+            Elemento mayor = restantes.last();
+            aQuitar.add(mayor);
+            faltante -= mayor.getPeso();
+            restantes = restantes.headSet(mayor, false);
+        }
+        return aQuitar;
+    }
+
+    /**
+     * Devuelve el indice por peso. Las subclases que guardan los
+     * elementos de otra forma redefinen este metodo.
+     * 
+     * @return Los elementos ordenados por POR_PESO.
+     */
+    protected NavigableSet<Elemento> getIndicePorPeso() {
+        return this.porPeso;
+    }
+
+    /**
+     * Devuelve el mapa de elementos por nombre, modificable. Quien
+     * lo cambia lo hace entre empezarCambio y terminarCambio. Las
+     * subclases que guardan los elementos de otra forma redefinen
+     * este metodo.
+     * 
+     * @return El mapa donde se guardan los elementos.
+     */
+    protected NavigableMap<String, Elemento> getMapaPorNombre() {
+        return this.porNombre;
+    }
+
+    /**
+     * Elemento ficticio que queda antes de todos los de ese peso en
+     * el orden POR_PESO (el nombre vacio es el menor).
+     */
+    private static Elemento limitePeso(int peso) {
+        return new Elemento("", peso);
+    }
+
+    /**
+     * Calcula la menor cadena mayor que todas las que comienzan
+     * con el prefijo: se incrementa su ultimo caracter.
+     * 
+     * @param pre El prefijo.
+     * @return El limite (excluido) del rango, o null si no hay limite.
+     */
+    private static String finDelPrefijo(String pre) {
+        int ultimo = pre.length() - 1;
+        while (ultimo >= 0 && pre.charAt(ultimo) == Character.MAX_VALUE) {
+            ultimo--;
+        }
+        if (ultimo < 0) {
+            return null;
+        }
+        return pre.substring(0, ultimo) + (char) (pre.charAt(ultimo) + 1);
     }
 
     /**
@@ -150,7 +1057,15 @@ public class Bolsa {
         return nombre;
     }
     
+    /**
+     * Devuelve los elementos por nombre, en una vista de solo
+     * lectura: los cambios tienen que pasar por la bolsa para que
+     * se actualicen el peso, el indice por peso y la version de la
+     * copia que devuelve getElementosEnLaBolsa.
+     * 
+     * @return El mapa de elementos, sin permitir modificarlo.
+     */
     public Map<String,Elemento> getMapaDeElementos(){
-        return porNombre;
+        return soloLectura;
     }
 }
@@ -0,0 +1,248 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bolsa que puede compartirse entre varios hilos, con el mismo
+ * contrato que Bolsa.
+ *
+ * Los elementos se guardan en un mapa ordenado concurrente, por
+ * lo que se siguen recorriendo por nombre. El peso se lleva en un
+ * contador atomico: la verificacion de capacidad y la reserva del
+ * peso se hacen en un unico paso (compareAndSet), sin un candado
+ * global, y nunca se supera el peso maximo.
+ *
+ * El indice por peso es un conjunto ordenado concurrente. Para que
+ * el mapa y el indice cambien juntos, cada nombre tiene asignado
+ * uno de varios candados (por el hash del nombre): las altas y
+ * bajas de nombres distintos casi nunca se esperan entre si, y las
+ * lecturas no toman ningun candado. Una lectura puede ver un
+ * elemento en el mapa que todavia no llego al indice, o al reves.
+ * Los cambios se marcan (empezarCambio, terminarCambio) para que
+ * getElementosEnLaBolsa arme copias coherentes sin candados.
+ */
+public class BolsaConcurrente extends Bolsa {
+    private static final int FRANJAS = 16;
+
+    private final AtomicInteger pesoActual;
+    // franjas -> candado de los nombres con ese hash (modulo FRANJAS)
+    private final ReentrantLock[] franjas;
+
+    /**
+     * Constructor con parámetros
+     *
+     * @param nombre El nombre de la bolsa.
+     * @param peso El peso maximo que puede contener la bolsa
+     */
+    public BolsaConcurrente (String nombre, int peso) {
+        super(nombre, peso, new ConcurrentSkipListMap<String, Elemento>(),
+            new ConcurrentSkipListSet<Elemento>(POR_PESO));
+        this.pesoActual = new AtomicInteger(0);
+        this.franjas = new ReentrantLock[FRANJAS];
+        for (int f = 0; f < FRANJAS; f++) {
+            this.franjas[f] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Agrega un elemento si entra y su nombre no existe.
+     *
+     * Primero se reserva el peso; si luego el nombre ya existe
+     * en la bolsa, la reserva se devuelve.
+     *
+     * @param obj El elemento a agregar en la bolsa.
+     * @return true si se agrego, false en caso contrario.
+     */
+    @Override
+    protected boolean agregar (Elemento obj) {
+        if (
+            !this.getMapaDeElementos().containsKey(obj.getNombre()) &&
+            this.reservarPeso(obj.getPeso())
+        ) {
+            ReentrantLock franja = this.franjas[franja(obj.getNombre())];
+            franja.lock();
+            this.empezarCambio();
+            try {
+                if (this.getMapaPorNombre().putIfAbsent(obj.getNombre(), obj) == null) {
+                    this.getIndicePorPeso().add(obj);
+                    return true;
+                }
+            } finally {
+                this.terminarCambio();
+                franja.unlock();
+            }
+            this.addPeso(-obj.getPeso());
+        }
+        return false;
+    }
+
+    /**
+     * Agrega todos los elementos o ninguno.
+     *
+     * Se reserva el peso total en un solo paso y luego, con los
+     * candados de todos los nombres tomados (en orden, para no
+     * trabarse con otro hilo), se insertan los elementos; ante un
+     * nombre repetido se quitan los ya insertados y se devuelve la
+     * reserva.
+     *
+     * @param elementos Los elementos a agregar.
+     * @return true si se agregaron todos, false si no se agrego ninguno.
+     */
+    @Override
+    protected boolean agregarTodos (Collection<Elemento> elementos) {
+        long pesoTotal = 0;
+        for (Elemento elemento : elementos) {
+            pesoTotal += elemento.getPeso();
+        }
+        if (pesoTotal > this.getPesoMaximo() || !this.reservarPeso((int) pesoTotal)) {
+            return false;
+        }
+        List<String> nombres = new ArrayList<String>(elementos.size());
+        for (Elemento elemento : elementos) {
+            nombres.add(elemento.getNombre());
+        }
+        this.bloquear(nombres);
+        this.empezarCambio();
+        try {
+            List<Elemento> insertados = new ArrayList<Elemento>();
+            for (Elemento elemento : elementos) {
+                if (this.getMapaPorNombre().putIfAbsent(elemento.getNombre(), elemento) != null) {
+                    for (Elemento insertado : insertados) {
+                        this.getMapaPorNombre().remove(insertado.getNombre(), insertado);
+                        this.getIndicePorPeso().remove(insertado);
+                    }
+                    this.addPeso((int) -pesoTotal);
+                    return false;
+                }
+                this.getIndicePorPeso().add(elemento);
+                insertados.add(elemento);
+            }
+            return true;
+        } finally {
+            this.terminarCambio();
+            this.desbloquear(nombres);
+        }
+    }
+
+    /**
+     * Quita un objeto de la bolsa por su nombre y actualiza
+     * el peso total.
+     *
+     * @param nombre El nombre del elemento a quitar de la bolsa.
+     * @return el elemento eliminado, o null si no existe ese elemento a remover
+     */
+    @Override
+    protected Elemento quitar (String nombre) {
+        Elemento elementoEliminado;
+        ReentrantLock franja = this.franjas[franja(nombre)];
+        franja.lock();
+        try {
+            if (!this.getMapaDeElementos().containsKey(nombre)) {
+                return null;
+            }
+            this.empezarCambio();
+            elementoEliminado = this.getMapaPorNombre().remove(nombre);
+            if (elementoEliminado != null) {
+                this.getIndicePorPeso().remove(elementoEliminado);
+            }
+            this.terminarCambio();
+        } finally {
+            franja.unlock();
+        }
+        if (elementoEliminado != null) {
+            this.addPeso(-elementoEliminado.getPeso());
+        }
+        return elementoEliminado;
+    }
+
+    /**
+     * Toma los candados de las franjas de esos nombres, de menor a
+     * mayor, para no trabarse con otro hilo que tome varios.
+     *
+     * @param nombres Los nombres que van a cambiar.
+     */
+    @Override
+    protected void bloquear (Collection<String> nombres) {
+        boolean[] usadas = franjas(nombres);
+        for (int f = 0; f < FRANJAS; f++) {
+            if (usadas[f]) {
+                this.franjas[f].lock();
+            }
+        }
+    }
+
+    @Override
+    protected void desbloquear (Collection<String> nombres) {
+        boolean[] usadas = franjas(nombres);
+        for (int f = FRANJAS - 1; f >= 0; f--) {
+            if (usadas[f]) {
+                this.franjas[f].unlock();
+            }
+        }
+    }
+
+    @Override
+    protected void bloquearTodo () {
+        for (int f = 0; f < FRANJAS; f++) {
+            this.franjas[f].lock();
+        }
+    }
+
+    @Override
+    protected void desbloquearTodo () {
+        for (int f = FRANJAS - 1; f >= 0; f--) {
+            this.franjas[f].unlock();
+        }
+    }
+
+    private static boolean[] franjas (Collection<String> nombres) {
+        boolean[] usadas = new boolean[FRANJAS];
+        for (String nombre : nombres) {
+            usadas[franja(nombre)] = true;
+        }
+        return usadas;
+    }
+
+    private static int franja (String nombre) {
+        int hash = nombre.hashCode();
+        return (hash ^ (hash >>> 16)) & (FRANJAS - 1);
+    }
+
+    /**
+     * Reserva el peso indicado si entra en la bolsa.
+     *
+     * @param peso El peso a reservar.
+     * @return true si se reservo, false si excede el peso libre.
+     */
+    @Override
+    protected boolean reservarPeso (int peso) {
+        while (true) {
+            int actual = this.pesoActual.get();
+            if (peso > this.getPesoMaximo() - actual) {
+                return false;
+            }
+            if (this.pesoActual.compareAndSet(actual, actual + peso)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void addPeso (int peso) {
+        this.pesoActual.addAndGet(peso);
+    }
+
+    @Override
+    public int getPesoActual() {
+        return this.pesoActual.get();
+    }
+
+    @Override
+    public void setPesoActual(int pesoActual) {
+        this.pesoActual.set(pesoActual);
+    }
+}
@@ -0,0 +1,515 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Almacen de muchas bolsas en columnas de arreglos primitivos.
+ *
+ * En lugar de un TreeMap y un Elemento por objeto, cada bolsa ocupa
+ * un tramo contiguo de tres columnas compartidas: el identificador
+ * del ingrediente (CatalogoDeIngredientes), el peso de cada unidad
+ * y la cantidad de unidades (1 salvo en las pilas). Dentro del
+ * tramo los objetos se mantienen ordenados por nombre. Por bolsa se
+ * guardan el inicio y la capacidad del tramo, la cantidad de objetos
+ * y el peso actual.
+ *
+ * Cuando un tramo se llena se reubica al final de las columnas con
+ * el doble de lugar; los huecos que quedan se recuperan compactando
+ * cuando superan la mitad del espacio usado.
+ *
+ * El indice por peso de una bolsa (getMasPesados, getParaLiberar,
+ * las consultas por rango de peso) se arma la primera vez que se
+ * consulta y desde ahi se mantiene en cada alta, baja y cambio de
+ * pila, de modo que cada consulta cuesta log(n) mas lo que
+ * devuelve. Las bolsas que nunca se consultan por peso no lo
+ * tienen.
+ *
+ * crearBolsa() devuelve una Bolsa que trabaja directamente sobre el
+ * almacen, de modo que puede usarse en Personaje como cualquier otra.
+ * Los elementos se reconstruyen al leerlos con Elemento.compartido()
+ * (las pilas, con una instancia nueva).
+ *
+ * Todas las operaciones toman el candado del almacen.
+ */
+public class BolsaStore {
+    // columnas de objetos
+    private int[] ids;
+    private int[] pesos;
+    private int[] unidades;
+    private int usados;
+    private int huecos;
+
+    // columnas de bolsas
+    private int[] inicio;
+    private int[] capacidad;
+    private int[] cantidad;
+    private int[] pesoActual;
+    private int bolsas;
+    // porPeso -> indice por peso de cada bolsa (null hasta que se consulta)
+    private final List<NavigableSet<Elemento>> porPeso = new ArrayList<NavigableSet<Elemento>>();
+
+    /**
+     * Crea un almacen vacio.
+     *
+     * @param bolsasIniciales Cantidad de bolsas para la que se reserva lugar.
+     */
+    public BolsaStore (int bolsasIniciales) {
+        int lugar = Math.max(bolsasIniciales, 16);
+        this.inicio = new int[lugar];
+        this.capacidad = new int[lugar];
+        this.cantidad = new int[lugar];
+        this.pesoActual = new int[lugar];
+        this.ids = new int[lugar * 4];
+        this.pesos = new int[lugar * 4];
+        this.unidades = new int[lugar * 4];
+    }
+
+    /**
+     * Crea una bolsa vacia dentro del almacen.
+     *
+     * @param nombre El nombre de la bolsa.
+     * @param peso El peso maximo que puede contener la bolsa.
+     * @return La bolsa, respaldada por el almacen.
+     */
+    public synchronized Bolsa crearBolsa (String nombre, int peso) {
+        if (this.bolsas == this.inicio.length) {
+            int lugar = this.inicio.length * 2;
+            this.inicio = Arrays.copyOf(this.inicio, lugar);
+            this.capacidad = Arrays.copyOf(this.capacidad, lugar);
+            this.cantidad = Arrays.copyOf(this.cantidad, lugar);
+            this.pesoActual = Arrays.copyOf(this.pesoActual, lugar);
+        }
+        this.porPeso.add(null);
+        return new BolsaAlmacenada(this, this.bolsas++, nombre, peso);
+    }
+
+    /**
+     * Devuelve la cantidad de bolsas creadas.
+     *
+     * @return La cantidad de bolsas del almacen.
+     */
+    public synchronized int getCantidadBolsas () {
+        return this.bolsas;
+    }
+
+    /**
+     * Devuelve la cantidad total de objetos guardados.
+     *
+     * @return La suma de los objetos de todas las bolsas.
+     */
+    public synchronized long getCantidadObjetos () {
+        long total = 0;
+        for (int b = 0; b < this.bolsas; b++) {
+            total += this.cantidad[b];
+        }
+        return total;
+    }
+
+    /**
+     * Reubica los tramos de todas las bolsas uno detras de otro,
+     * eliminando los huecos.
+     */
+    public synchronized void compactar () {
+        this.reubicar(this.ids.length);
+    }
+
+    private synchronized boolean agregar (int b, Elemento elemento, int pesoMaximo) {
+        int posicion = this.buscar(b, elemento.getNombre());
+        if (posicion >= 0 || elemento.getPeso() > pesoMaximo - this.pesoActual[b]) {
+            return false;
+        }
+        this.insertar(b, -posicion - 1, CatalogoDeIngredientes.idDe(elemento.getNombre()),
+            elemento.getPesoUnitario(), elemento.getCantidad());
+        NavigableSet<Elemento> indice = this.porPeso.get(b);
+        if (indice != null) {
+            indice.add(elemento);
+        }
+        return true;
+    }
+
+    private synchronized boolean apilar (int b, Elemento elemento, int pesoMaximo) {
+        int posicion = this.buscar(b, elemento.getNombre());
+        if (posicion < 0) {
+            return this.agregar(b, elemento, pesoMaximo);
+        }
+        int i = this.inicio[b] + posicion;
+        if (
+            this.pesos[i] != elemento.getPesoUnitario() ||
+            (long) this.unidades[i] + elemento.getCantidad() > Integer.MAX_VALUE ||
+            elemento.getPeso() > pesoMaximo - this.pesoActual[b]
+        ) {
+            return false;
+        }
+        this.reindexar(b, i, this.unidades[i] + elemento.getCantidad());
+        this.unidades[i] += elemento.getCantidad();
+        this.pesoActual[b] += elemento.getPeso();
+        return true;
+    }
+
+    private synchronized Elemento desapilar (int b, String nombre, int cantidad) {
+        int posicion = this.buscar(b, nombre);
+        if (posicion < 0 || this.unidades[this.inicio[b] + posicion] < cantidad) {
+            return null;
+        }
+        int i = this.inicio[b] + posicion;
+        if (this.unidades[i] == cantidad) {
+            return this.quitar(b, nombre);
+        }
+        this.reindexar(b, i, this.unidades[i] - cantidad);
+        this.unidades[i] -= cantidad;
+        Elemento quitadas = this.elemento(nombre, this.pesos[i], cantidad);
+        this.pesoActual[b] -= quitadas.getPeso();
+        return quitadas;
+    }
+
+    private synchronized int unidades (int b, String nombre) {
+        int posicion = this.buscar(b, nombre);
+        return posicion >= 0 ? this.unidades[this.inicio[b] + posicion] : 0;
+    }
+
+    /**
+     * Cambia en el indice por peso de la bolsa (si lo tiene) la pila
+     * de la posicion i por la misma con otra cantidad. Se llama
+     * antes de cambiar la columna de unidades.
+     */
+    private void reindexar (int b, int i, int cantidad) {
+        NavigableSet<Elemento> indice = this.porPeso.get(b);
+        if (indice != null) {
+            String nombre = CatalogoDeIngredientes.nombreDe(this.ids[i]);
+            indice.remove(this.elemento(nombre, this.pesos[i], this.unidades[i]));
+            indice.add(this.elemento(nombre, this.pesos[i], cantidad));
+        }
+    }
+
+    /**
+     * Devuelve el indice por peso de la bolsa; la primera vez lo arma
+     * con su contenido.
+     */
+    private synchronized NavigableSet<Elemento> indicePorPeso (int b) {
+        NavigableSet<Elemento> indice = this.porPeso.get(b);
+        if (indice == null) {
+            indice = new TreeSet<Elemento>(Bolsa.POR_PESO);
+            indice.addAll(this.elementos(b, ""));
+            this.porPeso.set(b, indice);
+        }
+        return indice;
+    }
+
+    private Elemento elemento (String nombre, int peso, int cantidad) {
+        return cantidad == 1 ? Elemento.compartido(nombre, peso) : new Elemento(nombre, peso, cantidad);
+    }
+
+    private synchronized boolean agregarTodos (int b, Collection<Elemento> elementos, int pesoMaximo) {
+        Set<String> nombres = new HashSet<String>();
+        long pesoTotal = 0;
+        for (Elemento elemento : elementos) {
+            if (!nombres.add(elemento.getNombre()) || this.buscar(b, elemento.getNombre()) >= 0) {
+                return false;
+            }
+            pesoTotal += elemento.getPeso();
+        }
+        if (pesoTotal > pesoMaximo - this.pesoActual[b]) {
+            return false;
+        }
+        for (Elemento elemento : elementos) {
+            this.agregar(b, elemento, pesoMaximo);
+        }
+        return true;
+    }
+
+    private synchronized Elemento quitar (int b, String nombre) {
+        int posicion = this.buscar(b, nombre);
+        if (posicion < 0) {
+            return null;
+        }
+        int desde = this.inicio[b] + posicion;
+        Elemento quitado = this.elemento(nombre, this.pesos[desde], this.unidades[desde]);
+        int resto = this.cantidad[b] - posicion - 1;
+        System.arraycopy(this.ids, desde + 1, this.ids, desde, resto);
+        System.arraycopy(this.pesos, desde + 1, this.pesos, desde, resto);
+        System.arraycopy(this.unidades, desde + 1, this.unidades, desde, resto);
+        this.cantidad[b]--;
+        this.pesoActual[b] -= quitado.getPeso();
+        NavigableSet<Elemento> indice = this.porPeso.get(b);
+        if (indice != null) {
+            indice.remove(quitado);
+        }
+        return quitado;
+    }
+
+    private synchronized boolean contiene (int b, String nombre) {
+        return this.buscar(b, nombre) >= 0;
+    }
+
+    private synchronized Elemento obtener (int b, String nombre) {
+        int posicion = this.buscar(b, nombre);
+        if (posicion < 0) {
+            return null;
+        }
+        int i = this.inicio[b] + posicion;
+        return this.elemento(nombre, this.pesos[i], this.unidades[i]);
+    }
+
+    /**
+     * Devuelve los elementos de la bolsa cuyo nombre comienza con el
+     * prefijo, en orden por nombre (prefijo vacio: todos).
+     */
+    private synchronized List<Elemento> elementos (int b, String pre) {
+        int desde = 0;
+        int hasta = this.cantidad[b];
+        if (!pre.isEmpty()) {
+            desde = this.buscar(b, pre);
+            if (desde < 0) {
+                desde = -desde - 1;
+            }
+            hasta = desde;
+            while (hasta < this.cantidad[b] && this.nombre(b, hasta).startsWith(pre)) {
+                hasta++;
+            }
+        }
+        List<Elemento> elementos = new ArrayList<Elemento>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            int j = this.inicio[b] + i;
+            elementos.add(this.elemento(this.nombre(b, i), this.pesos[j], this.unidades[j]));
+        }
+        return elementos;
+    }
+
+    private synchronized int getPeso (int b) {
+        return this.pesoActual[b];
+    }
+
+    private synchronized void setPeso (int b, int peso) {
+        this.pesoActual[b] = peso;
+    }
+
+    private String nombre (int b, int i) {
+        return CatalogoDeIngredientes.nombreDe(this.ids[this.inicio[b] + i]);
+    }
+
+    /**
+     * Busqueda binaria por nombre dentro del tramo de la bolsa.
+     *
+     * @return La posicion, o (-(punto de insercion) - 1) si no esta.
+     */
+    private int buscar (int b, String nombre) {
+        int bajo = 0;
+        int alto = this.cantidad[b] - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int comparacion = this.nombre(b, medio).compareTo(nombre);
+            if (comparacion < 0) {
+                bajo = medio + 1;
+            } else if (comparacion > 0) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    private void insertar (int b, int posicion, int id, int peso, int unidades) {
+        if (this.cantidad[b] == this.capacidad[b]) {
+            this.agrandarTramo(b);
+        }
+        int desde = this.inicio[b] + posicion;
+        int resto = this.cantidad[b] - posicion;
+        System.arraycopy(this.ids, desde, this.ids, desde + 1, resto);
+        System.arraycopy(this.pesos, desde, this.pesos, desde + 1, resto);
+        System.arraycopy(this.unidades, desde, this.unidades, desde + 1, resto);
+        this.ids[desde] = id;
+        this.pesos[desde] = peso;
+        this.unidades[desde] = unidades;
+        this.cantidad[b]++;
+        this.pesoActual[b] += peso * unidades;
+    }
+
+    private void agrandarTramo (int b) {
+        int nuevaCapacidad = Math.max(4, this.capacidad[b] * 2);
+        if (this.inicio[b] + this.capacidad[b] == this.usados &&
+            this.usados - this.capacidad[b] + nuevaCapacidad <= this.ids.length) {
+            // el tramo es el ultimo: crece en el lugar
+            this.usados += nuevaCapacidad - this.capacidad[b];
+            this.capacidad[b] = nuevaCapacidad;
+            return;
+        }
+        if (this.usados + nuevaCapacidad > this.ids.length) {
+            int lugar = this.ids.length;
+            if (this.huecos < this.usados / 2) {
+                lugar = Math.max(lugar * 2, this.usados + nuevaCapacidad);
+            }
+            this.reubicar(Math.max(lugar, this.usados - this.huecos + nuevaCapacidad));
+        }
+        int anterior = this.inicio[b];
+        System.arraycopy(this.ids, anterior, this.ids, this.usados, this.cantidad[b]);
+        System.arraycopy(this.pesos, anterior, this.pesos, this.usados, this.cantidad[b]);
+        System.arraycopy(this.unidades, anterior, this.unidades, this.usados, this.cantidad[b]);
+        this.huecos += this.capacidad[b];
+        this.inicio[b] = this.usados;
+        this.capacidad[b] = nuevaCapacidad;
+        this.usados += nuevaCapacidad;
+    }
+
+    /**
+     * Copia los tramos a columnas nuevas del largo indicado, sin huecos.
+     */
+    private void reubicar (int largo) {
+        int[] nuevosIds = new int[largo];
+        int[] nuevosPesos = new int[largo];
+        int[] nuevasUnidades = new int[largo];
+        int siguiente = 0;
+        for (int b = 0; b < this.bolsas; b++) {
+            System.arraycopy(this.ids, this.inicio[b], nuevosIds, siguiente, this.cantidad[b]);
+            System.arraycopy(this.pesos, this.inicio[b], nuevosPesos, siguiente, this.cantidad[b]);
+            System.arraycopy(this.unidades, this.inicio[b], nuevasUnidades, siguiente, this.cantidad[b]);
+            this.inicio[b] = siguiente;
+            siguiente += this.capacidad[b];
+        }
+        this.ids = nuevosIds;
+        this.pesos = nuevosPesos;
+        this.unidades = nuevasUnidades;
+        this.usados = siguiente;
+        this.huecos = 0;
+    }
+
+    /**
+     * Bolsa respaldada por el almacen. Solo guarda su indice, su
+     * nombre y su peso maximo; el contenido y el peso actual viven
+     * en las columnas del almacen.
+     *
+     * Las consultas que en Bolsa devuelven vistas del mapa
+     * (getMapaDeElementos, getVistaConPrefijo) devuelven aqui copias
+     * de solo lectura. Las consultas por peso recorren el indice
+     * por peso que mantiene el almacen.
+     */
+    private static class BolsaAlmacenada extends Bolsa {
+        private final BolsaStore almacen;
+        private final int indice;
+
+        BolsaAlmacenada (BolsaStore almacen, int indice, String nombre, int peso) {
+            super(nombre, peso, null, null);
+            this.almacen = almacen;
+            this.indice = indice;
+        }
+
+        @Override
+        protected boolean agregar (Elemento obj) {
+            this.empezarCambio();
+            try {
+                return this.almacen.agregar(this.indice, obj, this.getPesoMaximo());
+            } finally {
+                this.terminarCambio();
+            }
+        }
+
+        @Override
+        protected boolean agregarTodos (Collection<Elemento> elementos) {
+            this.empezarCambio();
+            try {
+                return this.almacen.agregarTodos(this.indice, elementos, this.getPesoMaximo());
+            } finally {
+                this.terminarCambio();
+            }
+        }
+
+        @Override
+        protected Elemento quitar (String nombre) {
+            this.empezarCambio();
+            try {
+                return this.almacen.quitar(this.indice, nombre);
+            } finally {
+                this.terminarCambio();
+            }
+        }
+
+        @Override
+        protected boolean apilar (Elemento unidades) {
+            this.empezarCambio();
+            try {
+                return this.almacen.apilar(this.indice, unidades, this.getPesoMaximo());
+            } finally {
+                this.terminarCambio();
+            }
+        }
+
+        @Override
+        protected Elemento desapilar (String nombre, int cantidad) {
+            this.empezarCambio();
+            try {
+                return this.almacen.desapilar(this.indice, nombre, cantidad);
+            } finally {
+                this.terminarCambio();
+            }
+        }
+
+        @Override
+        public int getCantidad (String nombre) {
+            return this.almacen.unidades(this.indice, nombre);
+        }
+
+        @Override
+        public boolean contieneElemento (String nombre) {
+            return this.almacen.contiene(this.indice, nombre);
+        }
+
+        @Override
+        protected Elemento buscar (String nombre) {
+            return this.almacen.obtener(this.indice, nombre);
+        }
+
+        @Override
+        public Collection<Elemento> getVistaConPrefijo(String pre) {
+            return Collections.unmodifiableList(this.almacen.elementos(this.indice, pre));
+        }
+
+        @Override
+        protected NavigableSet<Elemento> getIndicePorPeso() {
+            return Collections.unmodifiableNavigableSet(this.almacen.indicePorPeso(this.indice));
+        }
+
+        @Override
+        public String getKeySet () {
+            List<String> nombres = new ArrayList<String>();
+            for (Elemento elemento : this.almacen.elementos(this.indice, "")) {
+                nombres.add(elemento.getNombre());
+            }
+            return nombres.toString();
+        }
+
+        @Override
+        public Map<String, Elemento> getMapaDeElementos() {
+            NavigableMap<String, Elemento> mapa = new TreeMap<String, Elemento>();
+            for (Elemento elemento : this.almacen.elementos(this.indice, "")) {
+                mapa.put(elemento.getNombre(), elemento);
+            }
+            return Collections.unmodifiableMap(mapa);
+        }
+
+        @Override
+        public void addPeso (int peso) {
+            synchronized (this.almacen) {
+                this.almacen.setPeso(this.indice, this.almacen.getPeso(this.indice) + peso);
+            }
+        }
+
+        @Override
+        public int getPesoActual() {
+            return this.almacen.getPeso(this.indice);
+        }
+
+        @Override
+        public void setPesoActual(int pesoActual) {
+            this.almacen.setPeso(this.indice, pesoActual);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Responde, sin modificar bolsas ni calderos, que recetas de un
+ * recetario pueden prepararse con el contenido de una bolsa.
+ *
+ * Al construirlo se arma un indice invertido: para cada
+ * ingrediente (identificador de CatalogoDeIngredientes) la lista de
+ * recetas que lo usan, guardada en arreglos de int (desplazamiento
+ * por ingrediente y recetas consecutivas). Una consulta recorre
+ * solo los elementos de la bolsa y cuenta, por receta, cuantos de
+ * sus ingredientes estan presentes: el costo depende del tamanio
+ * de la bolsa y de las recetas que la tocan, no del recetario.
+ *
+ * El indice es inmutable: puede consultarse desde varios hilos.
+ */
+public class BuscadorDeRecetas {
+    private final RecetaCompilada[] compiladas;
+    private final Receta[] recetas;
+    // inicioPorId[id] .. inicioPorId[id + 1] -> rango de recetasPorId
+    private final int[] inicioPorId;
+    private final int[] recetasPorId;
+    // conteos -> contadores reutilizados por cada hilo entre consultas
+    private final ThreadLocal<Conteo> conteos;
+
+    /**
+     * Receta encontrada y la cantidad de ingredientes que le
+     * faltan (0 si puede prepararse).
+     */
+    public static class Coincidencia {
+        private final Receta receta;
+        private final int faltantes;
+
+        Coincidencia (Receta receta, int faltantes) {
+            this.receta = receta;
+            this.faltantes = faltantes;
+        }
+
+        public Receta getReceta() {
+            return receta;
+        }
+
+        public int getFaltantes() {
+            return faltantes;
+        }
+
+        @Override
+        public String toString() {
+            return receta.getNombre() + " (faltan " + faltantes + ")";
+        }
+    }
+
+    /**
+     * Construye el indice sobre el recetario. Las recetas sin
+     * cerrar no pueden usarse y se ignoran.
+     *
+     * @param recetario Las recetas a indexar.
+     */
+    public BuscadorDeRecetas (Collection<Receta> recetario) {
+        List<Receta> cerradas = new ArrayList<Receta>();
+        for (Receta receta : recetario) {
+            if (receta.isCerrada()) {
+                cerradas.add(receta);
+            }
+        }
+        this.recetas = cerradas.toArray(new Receta[0]);
+        this.compiladas = new RecetaCompilada[this.recetas.length];
+        for (int r = 0; r < this.recetas.length; r++) {
+            this.compiladas[r] = this.recetas[r].getCompilada();
+        }
+
+        int cantidadIds = CatalogoDeIngredientes.getCantidad();
+        this.inicioPorId = new int[cantidadIds + 1];
+        for (RecetaCompilada compilada : this.compiladas) {
+            for (int p = 0; p < compilada.getCantidadIngredientes(); p++) {
+                this.inicioPorId[compilada.getId(p) + 1]++;
+            }
+        }
+        for (int id = 0; id < cantidadIds; id++) {
+            this.inicioPorId[id + 1] += this.inicioPorId[id];
+        }
+        this.recetasPorId = new int[this.inicioPorId[cantidadIds]];
+        int[] siguiente = new int[cantidadIds];
+        System.arraycopy(this.inicioPorId, 0, siguiente, 0, cantidadIds);
+        for (int r = 0; r < this.compiladas.length; r++) {
+            RecetaCompilada compilada = this.compiladas[r];
+            for (int p = 0; p < compilada.getCantidadIngredientes(); p++) {
+                this.recetasPorId[siguiente[compilada.getId(p)]++] = r;
+            }
+        }
+        this.conteos = ThreadLocal.withInitial(() -> new Conteo(this.recetas.length));
+    }
+
+    /**
+     * Devuelve las recetas que pueden prepararse por completo con
+     * la bolsa en el caldero dado (respetando su capacidad).
+     *
+     * @param bolsa La bolsa con los ingredientes disponibles.
+     * @param caldero El caldero donde se prepararia la receta.
+     * @return Las recetas posibles, en el orden del recetario.
+     */
+    public List<Receta> getRecetasPosibles (Bolsa bolsa, Caldero caldero) {
+        return getRecetasPosibles(bolsa, caldero.getCapacidad());
+    }
+
+    /**
+     * Devuelve las recetas que pueden prepararse por completo con
+     * la bolsa y no superan la capacidad indicada.
+     *
+     * @param bolsa La bolsa con los ingredientes disponibles.
+     * @param capacidad La cantidad maxima de ingredientes admitida.
+     * @return Las recetas posibles, en el orden del recetario.
+     */
+    public List<Receta> getRecetasPosibles (Bolsa bolsa, int capacidad) {
+        Conteo conteo = contarPresentes(bolsa);
+        int[] completas = new int[16];
+        int cantidadCompletas = 0;
+        for (int t = 0; t < conteo.cantidadTocadas; t++) {
+            int r = conteo.tocadas[t];
+            int cantidad = this.compiladas[r].getCantidadIngredientes();
+            if (conteo.presentes[r] == cantidad && cantidad <= capacidad) {
+                if (cantidadCompletas == completas.length) {
+                    completas = Arrays.copyOf(completas, completas.length * 2);
+                }
+                completas[cantidadCompletas++] = r;
+            }
+        }
+        Arrays.sort(completas, 0, cantidadCompletas);
+        List<Receta> posibles = new ArrayList<Receta>(cantidadCompletas);
+        for (int c = 0; c < cantidadCompletas; c++) {
+            posibles.add(this.recetas[completas[c]]);
+        }
+        return posibles;
+    }
+
+    /**
+     * Devuelve las recetas que usan al menos un elemento de la bolsa
+     * y a las que les faltan como maximo maxFaltantes ingredientes,
+     * ordenadas por cantidad de faltantes (primero las posibles,
+     * con 0 faltantes) y luego por nombre.
+     *
+     * @param bolsa La bolsa con los ingredientes disponibles.
+     * @param capacidad La cantidad maxima de ingredientes admitida.
+     * @param maxFaltantes La cantidad maxima de ingredientes faltantes.
+     * @return Las recetas cercanas con sus faltantes.
+     */
+    public List<Coincidencia> getRecetasCercanas (Bolsa bolsa, int capacidad, int maxFaltantes) {
+        Conteo conteo = contarPresentes(bolsa);
+        List<Coincidencia> cercanas = new ArrayList<Coincidencia>();
+        for (int t = 0; t < conteo.cantidadTocadas; t++) {
+            int r = conteo.tocadas[t];
+            int cantidad = this.compiladas[r].getCantidadIngredientes();
+            int faltantes = cantidad - conteo.presentes[r];
+            if (faltantes <= maxFaltantes && cantidad <= capacidad) {
+                cercanas.add(new Coincidencia(this.recetas[r], faltantes));
+            }
+        }
+        Collections.sort(cercanas, (a, b) -> a.faltantes != b.faltantes
+            ? Integer.compare(a.faltantes, b.faltantes)
+            : a.receta.getNombre().compareTo(b.receta.getNombre()));
+        return cercanas;
+    }
+
+    /**
+     * Devuelve la cantidad de recetas indexadas.
+     *
+     * @return La cantidad de recetas cerradas del recetario.
+     */
+    public int getCantidadRecetas () {
+        return this.recetas.length;
+    }
+
+    /**
+     * Cuenta, por receta, cuantos de sus ingredientes estan en la
+     * bolsa, recorriendo solo las listas del indice invertido de
+     * los elementos de la bolsa.
+     *
+     * Los contadores se reutilizan en el mismo hilo: solo se ponen
+     * en cero los que toco la consulta anterior.
+     */
+    private Conteo contarPresentes (Bolsa bolsa) {
+        Conteo conteo = this.conteos.get();
+        conteo.reiniciar();
+        for (String nombre : bolsa.getMapaDeElementos().keySet()) {
+            int id = CatalogoDeIngredientes.buscarId(nombre);
+            if (id == CatalogoDeIngredientes.SIN_ID || id + 1 >= this.inicioPorId.length) {
+                continue;
+            }
+            for (int i = this.inicioPorId[id]; i < this.inicioPorId[id + 1]; i++) {
+                conteo.sumar(this.recetasPorId[i]);
+            }
+        }
+        return conteo;
+    }
+
+    /**
+     * Contadores de una consulta: ingredientes presentes por receta
+     * y lista de las recetas con al menos uno.
+     */
+    private static class Conteo {
+        private final int[] presentes;
+        private int[] tocadas;
+        private int cantidadTocadas;
+
+        Conteo (int cantidadRecetas) {
+            this.presentes = new int[cantidadRecetas];
+            this.tocadas = new int[16];
+            this.cantidadTocadas = 0;
+        }
+
+        void reiniciar () {
+            for (int t = 0; t < this.cantidadTocadas; t++) {
+                this.presentes[this.tocadas[t]] = 0;
+            }
+            this.cantidadTocadas = 0;
+        }
+
+        void sumar (int receta) {
+            if (this.presentes[receta]++ == 0) {
+                if (this.cantidadTocadas == this.tocadas.length) {
+                    this.tocadas = Arrays.copyOf(this.tocadas, this.tocadas.length * 2);
+                }
+                this.tocadas[this.cantidadTocadas++] = receta;
+            }
+        }
+    }
+}
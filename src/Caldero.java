@@ -1,8 +1,11 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TreeMap;
-import java.util.Iterator;
+import java.util.stream.Stream;
 
 /**
  * La clase caldero modela un recipiente para preparar pocimas.
@@ -14,29 +17,44 @@ import java.util.Iterator;
  * proceder a preparar la pocima.  Solo se admiten recetas que no
  * superen la cantidad maxima de ingredientes del caldero (capacidad).
  * 
+ * Los ingredientes se guardan en un arreglo con una posicion por
+ * ingrediente de la receta; la posicion se obtiene de la receta
+ * compilada a partir del identificador de catalogo del nombre.
+ * 
  */
 public class Caldero {
     private final Integer MAX_INGREDIENTES;
     private String nombre;
     private Receta receta;
     private Elemento pocima;
-    private Map<String, Elemento> elementos;
+    // compilada -> forma compilada de la receta asociada
+    private RecetaCompilada compilada;
+    // elementos -> ingrediente incorporado en cada posicion de la receta
+    private Elemento[] elementos;
+    // faltantes -> ingredientes de la receta aun no incorporados
+    private int faltantes;
+    // pesoIngredientes -> suma de los pesos de los ingredientes incorporados
+    private int pesoIngredientes;
+    // diario -> diario donde se anotan los cambios (null si no hay)
+    private Diario diario;
+    private int numeroEnDiario;
 
     /**
      * El constructor debe inicializar el objeto con un nombre
      * a eleccion, la capacidad maxima de ingredientes y sin
      * receta y pocima asociadas (null).
      * 
-     * No olvidar construir el mapa de elementos (TreeMap).
-     * 
      * @param nombre El nombre del caldero.
      * @param capacidad Capacidad maxima de ingredientes.
      */
     public Caldero (String nombre, Integer capacidad) {
         this.nombre = nombre;
-        this.elementos = new TreeMap<String, Elemento>();
+        this.elementos = null;
+        this.compilada = null;
         this.pocima = null;
         this.receta = null;
+        this.faltantes = 0;
+        this.pesoIngredientes = 0;
         this.MAX_INGREDIENTES = capacidad; // Ojo, esta linea no es valida
     }
 
@@ -48,33 +66,46 @@ public class Caldero {
      *      maxima del caldero,
      *   2) no hay una receta asociada,
      *   3) no hay pocima preparada.
-     * Si la receta no puede agregarse, se debe imprimir el
-     * mensaje;
+     * Si la receta no puede agregarse, se informa el rechazo al
+     * sumidero de eventos (Eventos); con SumideroDeEventos.CONSOLA
+     * se imprime el mensaje;
      * 
      *  "<nombre>: No se puede agregar la receta"
      * 
      * donde <nombre> es el nombre del caldero.
      * 
-     * Al agregar la receta, se deben generar las claves en el mapa
-     * de elementos asociadas a ningun objeto (null).
+     * Al agregar la receta, se genera una posicion vacia (null) por
+     * cada ingrediente.  Si la receta no esta cerrada se compila
+     * una copia para este caldero.
      * 
      * @param receta La receta a incorporar.
+     * @return HECHO, RECETA_EXCEDE_CAPACIDAD o CALDERO_OCUPADO.
      */
-    public void setReceta (Receta receta) {
-        if (
-            receta.getCantidadIngredientes() <= this.getCapacidad() &&
-            this.receta == null &&
-            this.pocima == null
-        ) {
-            this.receta = receta;
-
-            Iterator<String> ingredienteEnLaRecetaIterator = this.receta.getIngredientes().iterator();
-            while(ingredienteEnLaRecetaIterator.hasNext()) {
-                String ingredienteEnLaReceta = ingredienteEnLaRecetaIterator.next();
-                this.elementos.put(ingredienteEnLaReceta, null);
+    public ResultadoOperacion setReceta (Receta receta) {
+        long inicio = Metricas.inicio();
+        try {
+            if (receta.getCantidadIngredientes() > this.getCapacidad()) {
+                return Eventos.rechazo(SumideroDeEventos.Operacion.CALDERO_RECETA,
+                    ResultadoOperacion.RECETA_EXCEDE_CAPACIDAD, this, receta.getNombre(), 0);
+            } else if (this.receta != null || this.pocima != null) {
+                return Eventos.rechazo(SumideroDeEventos.Operacion.CALDERO_RECETA,
+                    ResultadoOperacion.CALDERO_OCUPADO, this, receta.getNombre(), 0);
+            } else {
+                this.receta = receta;
+                this.compilada = receta.getCompilada();
+                if (this.compilada == null) {
+                    this.compilada = new RecetaCompilada(receta.getNombre(), receta.getIngredientes());
+                }
+                this.elementos = new Elemento[this.compilada.getCantidadIngredientes()];
+                this.faltantes = this.elementos.length;
+                this.pesoIngredientes = 0;
+                if (this.diario != null) {
+                    this.diario.anotarReceta(this.numeroEnDiario, receta);
+                }
+                return ResultadoOperacion.HECHO;
             }
-        } else {
-            System.out.println(this.getNombre() + ": No se puede agregar la receta");
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.CALDERO_RECETA, inicio);
         }
     }
 
@@ -82,21 +113,58 @@ public class Caldero {
      * Incorpora al caldero un ingrediente siempre y cuando pertenezca
      * a la receta.
      *
-     * Se incorpora el ingrediente al mapa de elementos, siendo
-     * su nombre (getNombre()) la clave (key) y el valor (value) el
-     * objeto elemento.
+     * Se incorpora el ingrediente en la posicion que le corresponde
+     * segun su nombre (getNombre()).
+     * 
+     * Se actualizan la cantidad de faltantes y el peso acumulado,
+     * de modo que verificar y preparar no recorran el mapa.
+     * 
+     * De una pila (Elemento.getCantidad() mayor que 1) se incorpora
+     * una sola unidad y se devuelven las demas, para que quien llama
+     * las guarde.
      * 
      * @param ingrediente El ingrediente a incorporar al caldero.
+     * @return Lo que no se incorporo: el resto de la pila, o el
+     *         ingrediente entero si no hay receta o no pertenece a
+     *         ella; null si se incorporo todo.
      */
-    public void addIngrediente (Elemento ingrediente) {
-        this.elementos.put(ingrediente.getNombre(), ingrediente);
+    public Elemento addIngrediente (Elemento ingrediente) {
+        long inicio = Metricas.inicio();
+        try {
+            if (this.compilada == null) {
+                return ingrediente;
+            }
+            int posicion = this.compilada.posicionDe(ingrediente.getNombre());
+            if (posicion < 0) {
+                return ingrediente;
+            }
+            Elemento resto = null;
+            if (ingrediente.getCantidad() > 1) {
+                resto = ingrediente.conCantidad(ingrediente.getCantidad() - 1);
+                ingrediente = ingrediente.conCantidad(1);
+            }
+            Elemento anterior = this.elementos[posicion];
+            this.elementos[posicion] = ingrediente;
+            if (anterior == null) {
+                this.faltantes--;
+            } else {
+                this.pesoIngredientes -= anterior.getPeso();
+            }
+            this.pesoIngredientes += ingrediente.getPeso();
+            if (this.diario != null) {
+                this.diario.anotarIngrediente(this.numeroEnDiario, ingrediente);
+            }
+            return resto;
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.CALDERO_INGREDIENTE, inicio);
+        }
     }
 
     /**
      * Genera una lista con los nombres de los ingredientes (key) faltantes.
      * 
-     * Recordar que cada entrada del mapa (key) debe tener asociado
-     * un elemento (value). En caso contrario, no hay elemento asociado (null).
+     * Recordar que cada posicion de la receta debe tener asociado
+     * un elemento. En caso contrario, no hay elemento asociado (null).
      * 
      * Ayuda: La lista (ArrayList) debe crearse localmente. Lista vacia
      *  significa que se cuenta con todos los ingredientes.
@@ -104,19 +172,27 @@ public class Caldero {
      * @return La lista con los nombres de los ingredientes faltantes.
      */
     public List<String> getIngredientesFaltantes () {
-        ArrayList<String> ingredientesFaltantes = new ArrayList<String>();
-        Iterator<String> ingredienteEnLaRecetaIterator = this.receta.getIngredientes().iterator();
-
-        while(ingredienteEnLaRecetaIterator.hasNext()) {
-            String ingredienteEnLaReceta = ingredienteEnLaRecetaIterator.next();
-
-            if (this.getIngredientes().get(ingredienteEnLaReceta) == null) {
-                ingredientesFaltantes.add(ingredienteEnLaReceta);
+        ArrayList<String> ingredientesFaltantes = new ArrayList<String>(this.faltantes);
+        if (this.faltantes == 0) {
+            return ingredientesFaltantes;
+        }
+        for (int posicion = 0; posicion < this.elementos.length; posicion++) {
+            if (this.elementos[posicion] == null) {
+                ingredientesFaltantes.add(this.compilada.getIngrediente(posicion));
             }
         }
         return ingredientesFaltantes;
     }
 
+    /**
+     * Devuelve la cantidad de ingredientes faltantes sin armar la lista.
+     * 
+     * @return La cantidad de ingredientes de la receta aun no incorporados.
+     */
+    public int getCantidadFaltantes () {
+        return this.faltantes;
+    }
+
     /**
      * Verifica que se hayan incorporado todos los ingredientes.
      * 
@@ -124,11 +200,7 @@ public class Caldero {
      *         false si falta al menos uno.
      */
     public Boolean verificarIngredientes () {
-        if(this.getIngredientesFaltantes().isEmpty() && this.receta != null) {
-            return true;
-        } else {
-            return false;
-        }
+        return this.receta != null && this.faltantes == 0;
     }
 
     /**
@@ -140,49 +212,130 @@ public class Caldero {
      *     concatenacion de "Pocima de" con el nombre de la receta
      *     y su peso es la suma de los pesos de cada ingrediente.
      *  2) desvincular la receta del caldero
-     *  3) limpiar el mapa de ingredientes
+     *  3) limpiar los ingredientes
      * 
-     * Si no se puede prepara la pocima, se debe imprimir el
-     * mensaje;
+     * Si no se puede prepara la pocima, se informa el rechazo al
+     * sumidero de eventos (Eventos); con SumideroDeEventos.CONSOLA
+     * se imprime el mensaje;
      * 
      *  "<nombre>: No se puede preparar la pocima"
      * 
      * donde <nombre> es el nombre del caldero 
+     * 
+     * @return HECHO o FALTAN_INGREDIENTES (tambien sin receta).
      */
-    public void prepararPocima () {
-        if(this.verificarIngredientes()) {
+    public ResultadoOperacion prepararPocima () {
+        long inicio = Metricas.inicio();
+        try {
+            if(this.verificarIngredientes()) {
             
-            //gettign the total weight of the elements
-            Integer pesoTotalDeLosElementos = 0;
-            Iterator<Elemento> elementosDelCalderoIterator = this.elementos.values().iterator();
-            while (elementosDelCalderoIterator.hasNext()) {
-                Elemento elementoDelCaldero = elementosDelCalderoIterator.next();
-                pesoTotalDeLosElementos += elementoDelCaldero.getPeso();
+                this.pocima = new Elemento(nombreDePocima(this.receta.getNombre()), this.pesoIngredientes);
+                this.receta = null;
+                this.compilada = null;
+                this.elementos = null;
+                this.pesoIngredientes = 0;
+                if (this.diario != null) {
+                    this.diario.anotarPocimaPreparada(this.numeroEnDiario);
+                }
+                return ResultadoOperacion.HECHO;
             }
+            return Eventos.rechazo(SumideroDeEventos.Operacion.CALDERO_PREPARAR,
+                ResultadoOperacion.FALTAN_INGREDIENTES, this,
+                this.receta != null ? this.receta.getNombre() : null, this.faltantes);
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.CALDERO_PREPARAR, inicio);
+        }
+    }
+
+    /**
+     * Devuelve el nombre de la pocima que se prepara con la receta.
+     * 
+     * @param receta El nombre de la receta.
+     * @return "Pocima de <receta>".
+     */
+    static String nombreDePocima (String receta) {
+        return "Pocima de " + receta;
+    }
 
-            this.pocima = new Elemento("Pocima de " + this.receta.getNombre(), pesoTotalDeLosElementos);
+    /**
+     * Desvincula la receta sin preparar la pocima y devuelve los
+     * ingredientes que ya se habian incorporado, para que puedan
+     * volver a la bolsa de la que salieron.
+     * 
+     * Si no hay receta asociada no hace nada.
+     * 
+     * @return Los ingredientes incorporados (lista vacia si no habia).
+     */
+    public List<Elemento> cancelarReceta () {
+        List<Elemento> incorporados = new ArrayList<Elemento>();
+        if (this.receta != null) {
+            for (Elemento elemento : this.elementos) {
+                if (elemento != null) {
+                    incorporados.add(elemento);
+                }
+            }
             this.receta = null;
-            this.elementos.clear();
-        } else {
-            System.out.println(this.getNombre() + ": No se puede preparar la pocima");
+            this.compilada = null;
+            this.elementos = null;
+            this.faltantes = 0;
+            this.pesoIngredientes = 0;
+            if (this.diario != null) {
+                this.diario.anotarRecetaCancelada(this.numeroEnDiario);
+            }
         }
-
+        return incorporados;
     }
 
     /**
      * Retorna la pocima preparada y restablece a null el campo.
      * 
+     * Como Elemento es inmutable, se entrega la misma instancia
+     * sin copiarla.
+     * 
      * @return La pocima preparada.
      */
     public Elemento getPocima() {
-        Elemento pocimaToReturn = null;
-        if(this.pocima != null) {
-            pocimaToReturn = new Elemento(this.pocima.getNombre(), this.pocima.getPeso());
-        }
+        Elemento pocimaToReturn = this.pocima;
         this.pocima = null;
+        if (pocimaToReturn != null && this.diario != null) {
+            this.diario.anotarPocimaRetirada(this.numeroEnDiario);
+        }
         return pocimaToReturn;
     }
 
+    /**
+     * Devuelve la pocima preparada sin retirarla del caldero.
+     * 
+     * @return La pocima preparada, o null si no hay.
+     */
+    Elemento verPocima() {
+        return this.pocima;
+    }
+
+    /**
+     * Deja en el caldero una pocima ya preparada. Se usa al
+     * restaurar el estado guardado; el caldero debe estar vacio.
+     * 
+     * @param pocima La pocima a restaurar.
+     */
+    void restaurarPocima(Elemento pocima) {
+        if (this.receta == null) {
+            this.pocima = pocima;
+        }
+    }
+
+    /**
+     * Vincula el caldero con el diario que anota sus cambios. Lo
+     * llama Diario.registrar().
+     * 
+     * @param diario El diario.
+     * @param numero El numero del caldero dentro del diario.
+     */
+    void setDiario(Diario diario, int numero) {
+        this.diario = diario;
+        this.numeroEnDiario = numero;
+    }
+
     /**
      * Genera una cadena con la informacion sobre el caldero.
      * 
@@ -212,12 +365,39 @@ public class Caldero {
     }
 
     /**
-     * Devuelve el mapa de ingredientes.
+     * Devuelve el mapa de ingredientes: cada ingrediente de la
+     * receta (key) con el elemento incorporado o null (value).
+     * 
+     * El mapa es una copia de solo lectura, ordenada por nombre.
      * 
      * @return El mapa de ingredientes.
      */
     public Map<String, Elemento> getIngredientes () {
-        return elementos;
+        TreeMap<String, Elemento> ingredientes = new TreeMap<String, Elemento>();
+        if (this.compilada != null) {
+            for (int posicion = 0; posicion < this.elementos.length; posicion++) {
+                ingredientes.put(this.compilada.getIngrediente(posicion), this.elementos[posicion]);
+            }
+        }
+        return Collections.unmodifiableMap(ingredientes);
+    }
+
+    /**
+     * Devuelve un Stream con los ingredientes ya incorporados, sin
+     * armar el mapa de getIngredientes. El orden es el de las
+     * posiciones de la receta compilada.
+     * 
+     * El Stream recorre una copia del arreglo de ingredientes (una
+     * posicion por ingrediente de la receta), que se parte en
+     * mitades exactas si el Stream es paralelo.
+     * 
+     * @return Los ingredientes incorporados.
+     */
+    public Stream<Elemento> streamIngredientes () {
+        if (this.compilada == null) {
+            return Stream.empty();
+        }
+        return Arrays.stream(this.elementos.clone()).filter(Objects::nonNull);
     }
 
     /**
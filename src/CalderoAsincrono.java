@@ -0,0 +1,279 @@
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Prepara pocimas en un Caldero de forma asincronica: cada
+ * preparacion tarda un tiempo y devuelve un CompletableFuture con
+ * la pocima.
+ *
+ * El caldero prepara una receta por vez; los pedidos que llegan
+ * mientras esta ocupado esperan en una cola acotada. Si la cola
+ * esta llena el pedido se rechaza en el momento (el futuro falla
+ * con RejectedExecutionException) para que quien pide pueda
+ * reintentar o repartir la carga.
+ *
+ * No se usa un hilo por preparacion: al empezar una se programa su
+ * fin en un temporizador compartido por todos los calderos (ver
+ * crearTemporizador), de modo que muchos miles de preparaciones
+ * pendientes solo ocupan una tarea programada cada una. Los
+ * futuros se completan en el hilo del temporizador: el trabajo
+ * pesado encadenado conviene hacerlo con los metodos *Async.
+ *
+ * Un pedido se verifica al empezar: si el caldero rechaza la
+ * receta o faltan ingredientes el futuro falla enseguida con
+ * PocimaNoPreparada, que devuelve los ingredientes recibidos.
+ */
+public class CalderoAsincrono {
+    private final Caldero caldero;
+    private final int capacidadCola;
+    private final ScheduledExecutorService temporizador;
+    private final ToLongFunction<Receta> duracionNanos;
+
+    // cola y ocupado se protegen con el candado del objeto
+    private final ArrayDeque<Pedido> cola;
+    private boolean ocupado;
+
+    /**
+     * La preparacion no pudo hacerse.
+     */
+    public static class PocimaNoPreparada extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final ResultadoOperacion resultado;
+        private final List<Elemento> ingredientes;
+
+        PocimaNoPreparada (String caldero, ResultadoOperacion resultado, List<Elemento> ingredientes) {
+            super(caldero + ": " + resultado);
+            this.resultado = resultado;
+            this.ingredientes = ingredientes;
+        }
+
+        /**
+         * @return El motivo por el que no se preparo la pocima.
+         */
+        public ResultadoOperacion getResultado () {
+            return this.resultado;
+        }
+
+        /**
+         * @return Los ingredientes del pedido, para devolverlos a la bolsa.
+         */
+        public List<Elemento> getIngredientes () {
+            return this.ingredientes;
+        }
+    }
+
+    private static class Pedido {
+        final Receta receta;
+        final List<Elemento> ingredientes;
+        final CompletableFuture<Elemento> pocima;
+
+        Pedido (Receta receta, List<Elemento> ingredientes) {
+            this.receta = receta;
+            this.ingredientes = ingredientes;
+            this.pocima = new CompletableFuture<Elemento>();
+        }
+    }
+
+    /**
+     * Crea un caldero asincronico en el que todas las preparaciones
+     * tardan lo mismo.
+     *
+     * @param caldero El caldero; no debe usarse directamente mientras tanto.
+     * @param capacidadCola Cuantos pedidos pueden esperar.
+     * @param temporizador El temporizador compartido (crearTemporizador()).
+     * @param duracion Cuanto tarda cada preparacion.
+     */
+    public CalderoAsincrono (Caldero caldero, int capacidadCola,
+                             ScheduledExecutorService temporizador, Duration duracion) {
+        this(caldero, capacidadCola, temporizador, receta -> duracion.toNanos());
+    }
+
+    /**
+     * Crea un caldero asincronico.
+     *
+     * @param caldero El caldero; no debe usarse directamente mientras tanto.
+     * @param capacidadCola Cuantos pedidos pueden esperar.
+     * @param temporizador El temporizador compartido (crearTemporizador()).
+     * @param duracionNanos Cuanto tarda cada receta, en nanosegundos.
+     */
+    public CalderoAsincrono (Caldero caldero, int capacidadCola,
+                             ScheduledExecutorService temporizador, ToLongFunction<Receta> duracionNanos) {
+        this.caldero = caldero;
+        this.capacidadCola = capacidadCola;
+        this.temporizador = temporizador;
+        this.duracionNanos = duracionNanos;
+        this.cola = new ArrayDeque<Pedido>();
+        this.ocupado = false;
+    }
+
+    /**
+     * Crea un temporizador de un solo hilo (daemon) para compartir
+     * entre muchos calderos. Las tareas canceladas se quitan de la
+     * cola en el momento.
+     *
+     * @return El temporizador; se detiene con shutdown().
+     */
+    public static ScheduledExecutorService crearTemporizador () {
+        ScheduledThreadPoolExecutor temporizador = new ScheduledThreadPoolExecutor(1, tarea -> {
+            Thread hilo = new Thread(tarea, "Temporizador de calderos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        temporizador.setRemoveOnCancelPolicy(true);
+        return temporizador;
+    }
+
+    /**
+     * Pide una pocima. Si el caldero esta libre empieza en el
+     * momento; si no, espera en la cola.
+     *
+     * @param receta La receta a preparar.
+     * @param ingredientes Los ingredientes, ya sacados de la bolsa:
+     *        una unidad de cada uno.
+     * @return La pocima cuando este lista. Falla con
+     *         RejectedExecutionException si la cola esta llena, con
+     *         IllegalArgumentException si algun ingrediente es una
+     *         pila, no es de la receta o esta repetido (el caldero no
+     *         lo usaria y se perderia), o con PocimaNoPreparada si la
+     *         receta no puede prepararse.
+     */
+    public CompletableFuture<Elemento> preparar (Receta receta, Collection<Elemento> ingredientes) {
+        Pedido pedido = new Pedido(receta, new ArrayList<Elemento>(ingredientes));
+        Set<String> pendientes = new HashSet<String>(receta.getIngredientes());
+        for (Elemento ingrediente : pedido.ingredientes) {
+            String motivo = null;
+            if (ingrediente.getCantidad() > 1) {
+                motivo = " es una pila";
+            } else if (!pendientes.remove(ingrediente.getNombre())) {
+                motivo = receta.getIngredientes().contains(ingrediente.getNombre())
+                    ? " esta repetido" : " no es de la receta " + receta.getNombre();
+            }
+            if (motivo != null) {
+                pedido.pocima.completeExceptionally(new IllegalArgumentException(
+                    this.caldero.getNombre() + ": " + ingrediente + motivo));
+                return pedido.pocima;
+            }
+        }
+        synchronized (this) {
+            if (this.ocupado) {
+                if (this.cola.size() >= this.capacidadCola) {
+                    pedido.pocima.completeExceptionally(new RejectedExecutionException(
+                        this.caldero.getNombre() + ": cola llena"));
+                    return pedido.pocima;
+                }
+                this.cola.add(pedido);
+                return pedido.pocima;
+            }
+            this.ocupado = true;
+        }
+        this.empezar(pedido);
+        return pedido.pocima;
+    }
+
+    /**
+     * Devuelve la cantidad de pedidos que esperan (sin contar el que
+     * se esta preparando).
+     *
+     * @return Los pedidos en cola.
+     */
+    public synchronized int getEnCola () {
+        return this.cola.size();
+    }
+
+    /**
+     * Indica si hay una preparacion en curso.
+     *
+     * @return true si el caldero esta ocupado.
+     */
+    public synchronized boolean isOcupado () {
+        return this.ocupado;
+    }
+
+    /**
+     * Carga la receta y los ingredientes y programa el fin de la
+     * preparacion. Los pedidos que fallan al cargar se completan y
+     * se sigue con el proximo de la cola.
+     */
+    private void empezar (Pedido pedido) {
+        while (pedido != null) {
+            RuntimeException error;
+            Pedido fallido;
+            synchronized (this) {
+                if (pedido.pocima.isDone()) {
+                    // cancelado mientras esperaba
+                    pedido = this.siguiente();
+                    continue;
+                }
+                ResultadoOperacion resultado = this.caldero.setReceta(pedido.receta);
+                if (resultado.isHecho()) {
+                    for (Elemento ingrediente : pedido.ingredientes) {
+                        this.caldero.addIngrediente(ingrediente);
+                    }
+                    if (this.caldero.verificarIngredientes()) {
+                        Pedido enCurso = pedido;
+                        try {
+                            this.temporizador.schedule(() -> this.terminar(enCurso),
+                                Math.max(0, this.duracionNanos.applyAsLong(pedido.receta)), TimeUnit.NANOSECONDS);
+                            return;
+                        } catch (RejectedExecutionException e) {
+                            // el temporizador esta detenido
+                            this.caldero.cancelarReceta();
+                            error = e;
+                        }
+                    } else {
+                        this.caldero.cancelarReceta();
+                        error = new PocimaNoPreparada(this.caldero.getNombre(),
+                            ResultadoOperacion.FALTAN_INGREDIENTES, pedido.ingredientes);
+                    }
+                } else {
+                    error = new PocimaNoPreparada(this.caldero.getNombre(), resultado, pedido.ingredientes);
+                }
+                fallido = pedido;
+                pedido = this.siguiente();
+            }
+            fallido.pocima.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Fin de una preparacion: se obtiene la pocima, se completa el
+     * futuro y se empieza el proximo pedido. El caldero se libera
+     * antes de completar el futuro, de modo que quien espera la
+     * pocima ya puede hacer otro pedido sin que quede en la cola.
+     */
+    private void terminar (Pedido pedido) {
+        Elemento pocima;
+        Pedido proximo;
+        synchronized (this) {
+            this.caldero.prepararPocima();
+            pocima = this.caldero.getPocima();
+            proximo = this.siguiente();
+        }
+        pedido.pocima.complete(pocima);
+        this.empezar(proximo);
+    }
+
+    /**
+     * Saca el proximo pedido de la cola, o libera el caldero si no
+     * hay. Se llama con el candado tomado.
+     */
+    private Pedido siguiente () {
+        Pedido proximo = this.cola.poll();
+        if (proximo == null) {
+            this.ocupado = false;
+        }
+        return proximo;
+    }
+}
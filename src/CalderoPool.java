@@ -0,0 +1,303 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Grupo de calderos de distintas capacidades que se reparten entre
+ * las recetas que llegan.
+ *
+ * Con el criterio MEJOR_AJUSTE cada receta va al caldero libre mas
+ * chico en el que entra, de modo que los calderos grandes quedan
+ * para las recetas grandes. Los libres se guardan por capacidad en
+ * un TreeMap: elegir y devolver cuestan log(capacidades distintas).
+ * PRIMER_AJUSTE toma el primer caldero libre que alcanza, en el
+ * orden en que se dieron, y queda como referencia.
+ *
+ * Si ningun caldero libre alcanza, la receta espera en una cola
+ * acotada. Cada caldero que se devuelve se ofrece a la cola en
+ * orden de llegada: la receta mas antigua que entra en algun libre
+ * lo toma, y las que todavia no entran no frenan a las que siguen.
+ * Las recetas que no entran en ningun caldero del grupo se
+ * rechazan en el momento.
+ *
+ * Quien recibe el caldero le agrega los ingredientes, prepara y
+ * retira la pocima, y lo devuelve con devolver(). El grupo puede
+ * usarse desde varios hilos; los futuros se completan fuera del
+ * candado, en el hilo que asigna o que devuelve.
+ */
+public class CalderoPool {
+    /**
+     * Como se elige el caldero entre los libres que alcanzan.
+     */
+    public enum Criterio {
+        MEJOR_AJUSTE,
+        PRIMER_AJUSTE
+    }
+
+    private final String nombre;
+    private final Criterio criterio;
+    private final int capacidadCola;
+    private final List<Caldero> calderos;
+    private final int capacidadMaxima;
+    private final long creado;
+
+    // lo que sigue se protege con el candado del objeto
+    // libres -> capacidad -> calderos libres de esa capacidad
+    private final TreeMap<Integer, ArrayDeque<Caldero>> libres;
+    // ocupadoDesde -> caldero asignado -> System.nanoTime() al asignarlo
+    private final Map<Caldero, Long> ocupadoDesde;
+    private final ArrayDeque<Pedido> cola;
+    private long asignaciones;
+    private long ingredientesAsignados;
+    private long capacidadAsignada;
+    private long nanosOcupados;
+
+    private static class Pedido {
+        final Receta receta;
+        final CompletableFuture<Caldero> caldero;
+
+        Pedido (Receta receta) {
+            this.receta = receta;
+            this.caldero = new CompletableFuture<Caldero>();
+        }
+    }
+
+    /**
+     * Crea el grupo con el criterio MEJOR_AJUSTE.
+     *
+     * @param nombre El nombre del grupo (para los mensajes).
+     * @param calderos Los calderos, vacios; no deben usarse por fuera.
+     * @param capacidadCola Cuantas recetas pueden esperar.
+     */
+    public CalderoPool (String nombre, Collection<Caldero> calderos, int capacidadCola) {
+        this(nombre, calderos, capacidadCola, Criterio.MEJOR_AJUSTE);
+    }
+
+    /**
+     * Crea el grupo.
+     *
+     * @param nombre El nombre del grupo (para los mensajes).
+     * @param calderos Los calderos, vacios; no deben usarse por fuera.
+     * @param capacidadCola Cuantas recetas pueden esperar.
+     * @param criterio Como se elige el caldero.
+     */
+    public CalderoPool (String nombre, Collection<Caldero> calderos, int capacidadCola, Criterio criterio) {
+        this.nombre = nombre;
+        this.criterio = criterio;
+        this.capacidadCola = capacidadCola;
+        this.calderos = Collections.unmodifiableList(new ArrayList<Caldero>(calderos));
+        this.libres = new TreeMap<Integer, ArrayDeque<Caldero>>();
+        this.ocupadoDesde = new IdentityHashMap<Caldero, Long>();
+        this.cola = new ArrayDeque<Pedido>();
+        int maxima = 0;
+        for (Caldero caldero : this.calderos) {
+            this.libres.computeIfAbsent(caldero.getCapacidad(), c -> new ArrayDeque<Caldero>()).add(caldero);
+            maxima = Math.max(maxima, caldero.getCapacidad());
+        }
+        this.capacidadMaxima = maxima;
+        this.creado = System.nanoTime();
+    }
+
+    /**
+     * Pide un caldero para la receta. Si hay uno libre que alcanza
+     * se asigna en el momento; si no, la receta espera en la cola.
+     *
+     * @param receta La receta a preparar.
+     * @return El caldero, con la receta ya asociada. Falla con
+     *         RejectedExecutionException si la receta no entra en
+     *         ningun caldero del grupo o si la cola esta llena.
+     */
+    public CompletableFuture<Caldero> asignar (Receta receta) {
+        Pedido pedido = new Pedido(receta);
+        Caldero caldero;
+        synchronized (this) {
+            if (receta.getCantidadIngredientes() > this.capacidadMaxima) {
+                pedido.caldero.completeExceptionally(new RejectedExecutionException(
+                    this.nombre + ": " + receta.getNombre() + " no entra en ningun caldero"));
+                return pedido.caldero;
+            }
+            caldero = this.tomar(receta);
+            if (caldero == null) {
+                if (this.cola.size() >= this.capacidadCola) {
+                    pedido.caldero.completeExceptionally(new RejectedExecutionException(
+                        this.nombre + ": cola llena"));
+                    return pedido.caldero;
+                }
+                this.cola.add(pedido);
+                return pedido.caldero;
+            }
+        }
+        pedido.caldero.complete(caldero);
+        return pedido.caldero;
+    }
+
+    /**
+     * Devuelve un caldero asignado y se lo ofrece a las recetas que
+     * esperan.
+     *
+     * Si la receta no llego a prepararse se cancela, y si la pocima
+     * no se retiro se retira: en los dos casos lo que quedaba en el
+     * caldero se devuelve para que no se pierda.
+     *
+     * @param caldero El caldero recibido de asignar().
+     * @return Los ingredientes o la pocima que quedaban (lista vacia si no habia).
+     */
+    public List<Elemento> devolver (Caldero caldero) {
+        List<Elemento> restos;
+        List<Pedido> asignados = new ArrayList<Pedido>();
+        List<Caldero> suyos = new ArrayList<Caldero>();
+        synchronized (this) {
+            Long desde = this.ocupadoDesde.remove(caldero);
+            if (desde == null) {
+                throw new IllegalArgumentException(this.nombre + ": " + caldero.getNombre() + " no esta asignado");
+            }
+            restos = caldero.cancelarReceta();
+            Elemento pocima = caldero.getPocima();
+            if (pocima != null) {
+                restos.add(pocima);
+            }
+            this.nanosOcupados += System.nanoTime() - desde;
+            this.libres.computeIfAbsent(caldero.getCapacidad(), c -> new ArrayDeque<Caldero>()).add(caldero);
+
+            Iterator<Pedido> pedidos = this.cola.iterator();
+            while (pedidos.hasNext() && !this.libres.isEmpty()) {
+                Pedido pedido = pedidos.next();
+                if (pedido.caldero.isDone()) {
+                    // cancelado mientras esperaba
+                    pedidos.remove();
+                    continue;
+                }
+                Caldero libre = this.tomar(pedido.receta);
+                if (libre != null) {
+                    pedidos.remove();
+                    asignados.add(pedido);
+                    suyos.add(libre);
+                }
+            }
+        }
+        for (int p = 0; p < asignados.size(); p++) {
+            if (!asignados.get(p).caldero.complete(suyos.get(p))) {
+                // se cancelo justo antes: el caldero vuelve al grupo
+                restos.addAll(this.devolver(suyos.get(p)));
+            }
+        }
+        return restos;
+    }
+
+    /**
+     * Elige un caldero libre para la receta segun el criterio, le
+     * asocia la receta y lo marca ocupado. Se llama con el candado
+     * tomado.
+     *
+     * @return El caldero, o null si ningun libre alcanza.
+     */
+    private Caldero tomar (Receta receta) {
+        int ingredientes = receta.getCantidadIngredientes();
+        Caldero caldero = null;
+        if (this.criterio == Criterio.MEJOR_AJUSTE) {
+            Map.Entry<Integer, ArrayDeque<Caldero>> entrada = this.libres.ceilingEntry(ingredientes);
+            if (entrada != null) {
+                caldero = entrada.getValue().peekFirst();
+            }
+        } else {
+            for (Caldero candidato : this.calderos) {
+                if (candidato.getCapacidad() >= ingredientes && !this.ocupadoDesde.containsKey(candidato)) {
+                    caldero = candidato;
+                    break;
+                }
+            }
+        }
+        if (caldero == null) {
+            return null;
+        }
+        ArrayDeque<Caldero> mismos = this.libres.get(caldero.getCapacidad());
+        mismos.remove(caldero);
+        if (mismos.isEmpty()) {
+            this.libres.remove(caldero.getCapacidad());
+        }
+        caldero.setReceta(receta);
+        this.ocupadoDesde.put(caldero, System.nanoTime());
+        this.asignaciones++;
+        this.ingredientesAsignados += ingredientes;
+        this.capacidadAsignada += caldero.getCapacidad();
+        return caldero;
+    }
+
+    /**
+     * Devuelve la cantidad de recetas que esperan un caldero.
+     *
+     * @return Las recetas en cola.
+     */
+    public synchronized int getEnCola () {
+        return this.cola.size();
+    }
+
+    /**
+     * Devuelve la cantidad de calderos asignados en este momento.
+     *
+     * @return Los calderos ocupados.
+     */
+    public synchronized int getOcupados () {
+        return this.ocupadoDesde.size();
+    }
+
+    /**
+     * Devuelve cuantas veces se asigno un caldero.
+     *
+     * @return Las asignaciones desde que se creo el grupo.
+     */
+    public synchronized long getAsignaciones () {
+        return this.asignaciones;
+    }
+
+    /**
+     * Devuelve la fraccion del tiempo que los calderos estuvieron
+     * ocupados desde que se creo el grupo, contando hasta ahora a
+     * los que siguen asignados.
+     *
+     * @return Un valor entre 0 y 1.
+     */
+    public synchronized double getUtilizacion () {
+        long ahora = System.nanoTime();
+        long ocupados = this.nanosOcupados;
+        for (long desde : this.ocupadoDesde.values()) {
+            ocupados += ahora - desde;
+        }
+        long total = (ahora - this.creado) * this.calderos.size();
+        return total > 0 ? Math.min(1.0, (double) ocupados / total) : 0.0;
+    }
+
+    /**
+     * Devuelve que parte de la capacidad de los calderos asignados
+     * usaron las recetas: 1 si cada receta fue a un caldero justo de
+     * su tamanio.
+     *
+     * @return Un valor entre 0 y 1 (0 si no hubo asignaciones).
+     */
+    public synchronized double getAprovechamiento () {
+        return this.capacidadAsignada > 0 ? (double) this.ingredientesAsignados / this.capacidadAsignada : 0.0;
+    }
+
+    /**
+     * Devuelve los calderos del grupo, en el orden en que se dieron.
+     *
+     * @return Los calderos.
+     */
+    public List<Caldero> getCalderos () {
+        return this.calderos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.nombre + ": " + this.ocupadoDesde.size() + "/" + this.calderos.size()
+            + " ocupados, " + this.cola.size() + " en cola";
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalogo global de nombres de ingredientes.
+ *
+ * Asigna a cada nombre un identificador entero denso (0, 1, 2, ...)
+ * la primera vez que se lo registra, y permite volver del
+ * identificador al nombre. Las estructuras internas pueden usar
+ * esos enteros como clave en lugar de comparar cadenas.
+ *
+ * Los identificadores no se liberan: el catalogo crece con la
+ * cantidad de nombres distintos usados en el juego.
+ *
+ * Puede usarse desde varios hilos.
+ */
+public final class CatalogoDeIngredientes {
+    public static final int SIN_ID = -1;
+
+    private static final ConcurrentHashMap<String, Integer> porNombre =
+        new ConcurrentHashMap<String, Integer>();
+    // nombres -> nombre de cada identificador; se reemplaza al crecer
+    private static volatile String[] nombres = new String[64];
+    private static int cantidad = 0;
+
+    private CatalogoDeIngredientes () {
+    }
+
+    /**
+     * Devuelve el identificador del nombre, registrandolo si es nuevo.
+     *
+     * @param nombre El nombre del ingrediente.
+     * @return El identificador del ingrediente.
+     */
+    public static int idDe (String nombre) {
+        Integer id = porNombre.get(nombre);
+        if (id == null) {
+            id = porNombre.computeIfAbsent(nombre, CatalogoDeIngredientes::registrar);
+        }
+        return id;
+    }
+
+    /**
+     * Devuelve el identificador del nombre sin registrarlo.
+     *
+     * @param nombre El nombre del ingrediente.
+     * @return El identificador, o SIN_ID si el nombre no se registro.
+     */
+    public static int buscarId (String nombre) {
+        Integer id = porNombre.get(nombre);
+        return id == null ? SIN_ID : id;
+    }
+
+    /**
+     * Devuelve el nombre asociado a un identificador.
+     *
+     * @param id El identificador del ingrediente.
+     * @return El nombre del ingrediente.
+     */
+    public static String nombreDe (int id) {
+        return nombres[id];
+    }
+
+    /**
+     * Devuelve la cantidad de nombres registrados.
+     *
+     * @return La cantidad de identificadores asignados.
+     */
+    public static synchronized int getCantidad () {
+        return cantidad;
+    }
+
+    private static synchronized Integer registrar (String nombre) {
+        String[] actuales = nombres;
+        if (cantidad == actuales.length) {
+            actuales = Arrays.copyOf(actuales, actuales.length * 2);
+        }
+        actuales[cantidad] = nombre;
+        nombres = actuales;
+        return cantidad++;
+    }
+}
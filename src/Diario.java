@@ -0,0 +1,621 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de cambios de bolsas, calderos y personajes: un archivo
+ * al que solo se agregan registros binarios, para poder
+ * reconstruir el estado despues de un corte.
+ *
+ * Se anotan los cambios que efectivamente ocurren:
+ *   Bolsa      addElemento, addElementos, delElemento, addUnidades,
+ *              delUnidades, transferir
+ *   Caldero    setReceta, addIngrediente, prepararPocima,
+ *              cancelarReceta, getPocima (si habia pocima)
+ *   Personaje  el elemento en las manos (guardarElemento,
+ *              tomarElemento, setElemento)
+ * Las operaciones compuestas (prepararReceta, guardarElemento)
+ * quedan anotadas como los cambios simples que realizan.
+ *
+ * Anotar solo copia el registro a un buffer en memoria. Un hilo
+ * del diario escribe el buffer y llama a force() cada
+ * intervaloMs milisegundos (confirmacion en grupo): un corte
+ * puede perder como maximo los cambios de ese intervalo.
+ * sincronizar() confirma en el momento lo anotado hasta ahi.
+ *
+ * Formato (enteros big-endian):
+ *
+ *   Encabezado: int MAGICO, int VERSION
+ *   Registros: int largo, contenido, int CRC32 del contenido
+ *   Contenido: byte tipo, int numero del objeto, datos del tipo
+ *   Cadenas: int largo + bytes UTF-8
+ *
+ * Los elementos se guardan como nombre y peso; las pilas de varias
+ * unidades usan registros propios (BOLSA_APILADO, o la marca 2 en
+ * PERSONAJE_EN_MANOS) con nombre, peso unitario y cantidad, de modo
+ * que los diarios sin pilas no cambian.
+ *
+ * Al reproducir se descarta el final incompleto o corrupto de un
+ * registro cortado a mitad de escritura.
+ *
+ * Los objetos se identifican por el orden en que se registran:
+ * para reproducir el diario hay que registrar los mismos objetos
+ * en el mismo orden, en el estado que tenian al crear el diario
+ * (por ejemplo, recien leidos de una instantanea).
+ *
+ * Con BolsaConcurrente, dos hilos que cambian el mismo elemento
+ * sin otra sincronizacion pueden quedar anotados en otro orden.
+ */
+public class Diario implements AutoCloseable {
+    public static final int MAGICO = 0x52504744;
+    public static final int VERSION = 1;
+    public static final int LARGO_ENCABEZADO = 8;
+
+    static final byte BOLSA_AGREGADO = 1;
+    static final byte BOLSA_QUITADO = 2;
+    static final byte CALDERO_RECETA = 3;
+    static final byte CALDERO_INGREDIENTE = 4;
+    static final byte CALDERO_POCIMA_PREPARADA = 5;
+    static final byte CALDERO_RECETA_CANCELADA = 6;
+    static final byte CALDERO_POCIMA_RETIRADA = 7;
+    static final byte PERSONAJE_EN_MANOS = 8;
+    static final byte BOLSA_APILADO = 9;
+    static final byte BOLSA_DESAPILADO = 10;
+
+    private final FileChannel canal;
+    private final List<Object> registrados;
+    private final ScheduledExecutorService confirmador;
+
+    // candado de los buffers: lo toman las anotaciones
+    private final Object candado;
+    private Buffer pendiente;
+    private Buffer libre;
+    private final Buffer contenido;
+    private final CRC32 crc;
+    private long anotados;
+
+    // candado de escritura: lo toma quien confirma
+    private final Object escritura;
+    private long confirmados;
+    private IOException error;
+
+    // ignorando -> no se anota mientras se reproduce ni despues de cerrar
+    private volatile boolean ignorando;
+
+    /**
+     * Abre (o crea) el diario. Si el archivo ya tiene registros se
+     * deben registrar los objetos y llamar a reproducir() antes
+     * de cambiarlos.
+     *
+     * @param archivo El archivo del diario.
+     * @param intervaloMs Cada cuantos milisegundos se confirma lo
+     *        anotado; 0 para confirmar solo con sincronizar() y close().
+     * @throws IOException si no se puede abrir o no es un diario valido.
+     */
+    public Diario (Path archivo, long intervaloMs) throws IOException {
+        this.canal = FileChannel.open(archivo,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (this.canal.size() == 0) {
+            ByteBuffer encabezado = ByteBuffer.allocate(LARGO_ENCABEZADO);
+            encabezado.putInt(MAGICO).putInt(VERSION).flip();
+            this.canal.write(encabezado);
+            this.canal.force(true);
+        } else {
+            ByteBuffer encabezado = ByteBuffer.allocate(LARGO_ENCABEZADO);
+            this.canal.read(encabezado, 0);
+            if (encabezado.getInt(0) != MAGICO || encabezado.getInt(4) != VERSION) {
+                this.canal.close();
+                throw new IOException(archivo + ": no es un diario valido");
+            }
+        }
+        this.canal.position(this.canal.size());
+
+        this.registrados = new ArrayList<Object>();
+        this.candado = new Object();
+        this.escritura = new Object();
+        this.pendiente = new Buffer();
+        this.libre = new Buffer();
+        this.contenido = new Buffer();
+        this.crc = new CRC32();
+
+        if (intervaloMs > 0) {
+            this.confirmador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "Diario " + archivo.getFileName());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            this.confirmador.scheduleWithFixedDelay(this::confirmarEnSegundoPlano,
+                intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.confirmador = null;
+        }
+    }
+
+    /**
+     * Registra una bolsa: desde ahora sus cambios se anotan.
+     *
+     * @param bolsa La bolsa.
+     * @return El numero de la bolsa en el diario.
+     */
+    public synchronized int registrar (Bolsa bolsa) {
+        int numero = this.agregarRegistrado(bolsa);
+        bolsa.setDiario(this, numero);
+        return numero;
+    }
+
+    /**
+     * Registra un caldero: desde ahora sus cambios se anotan.
+     *
+     * @param caldero El caldero.
+     * @return El numero del caldero en el diario.
+     */
+    public synchronized int registrar (Caldero caldero) {
+        int numero = this.agregarRegistrado(caldero);
+        caldero.setDiario(this, numero);
+        return numero;
+    }
+
+    /**
+     * Registra un personaje: desde ahora se anota el elemento que
+     * tiene en sus manos. Su bolsa y su caldero se registran aparte.
+     *
+     * @param personaje El personaje.
+     * @return El numero del personaje en el diario.
+     */
+    public synchronized int registrar (Personaje personaje) {
+        int numero = this.agregarRegistrado(personaje);
+        personaje.setDiario(this, numero);
+        return numero;
+    }
+
+    private int agregarRegistrado (Object objeto) {
+        this.registrados.add(objeto);
+        return this.registrados.size() - 1;
+    }
+
+    /**
+     * Aplica a los objetos registrados los cambios guardados en el
+     * archivo, sin volver a anotarlos. Si el ultimo registro esta
+     * incompleto o corrupto se descarta y el archivo se recorta.
+     *
+     * @return La cantidad de registros aplicados.
+     * @throws IOException si no se puede leer el archivo o un
+     *         registro no corresponde a los objetos registrados.
+     */
+    public synchronized int reproducir () throws IOException {
+        synchronized (this.escritura) {
+            long largo = this.canal.size();
+            MappedByteBuffer datos = this.canal.map(FileChannel.MapMode.READ_ONLY, 0, largo);
+            datos.position(LARGO_ENCABEZADO);
+            CRC32 verificador = new CRC32();
+            int aplicados = 0;
+            int valido = LARGO_ENCABEZADO;
+
+            this.ignorando = true;
+            try {
+                while (datos.remaining() >= 4) {
+                    int largoRegistro = datos.getInt();
+                    if (largoRegistro < 5 || largoRegistro + 4 > datos.remaining()) {
+                        break;
+                    }
+                    ByteBuffer registro = datos.slice(datos.position(), largoRegistro);
+                    datos.position(datos.position() + largoRegistro);
+                    verificador.reset();
+                    verificador.update(registro.duplicate());
+                    if ((int) verificador.getValue() != datos.getInt()) {
+                        break;
+                    }
+                    try {
+                        this.aplicar(registro);
+                    } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+                        throw new IOException("Registro " + aplicados + " mal formado", e);
+                    }
+                    aplicados++;
+                    valido = datos.position();
+                }
+            } finally {
+                this.ignorando = false;
+            }
+
+            if (valido < largo) {
+                this.canal.truncate(valido);
+                this.canal.force(true);
+            }
+            this.canal.position(valido);
+            return aplicados;
+        }
+    }
+
+    private void aplicar (ByteBuffer registro) throws IOException {
+        byte tipo = registro.get();
+        int numero = registro.getInt();
+        switch (tipo) {
+            case BOLSA_AGREGADO:
+                this.bolsa(numero).addElemento(leerElemento(registro));
+                break;
+            case BOLSA_QUITADO:
+                this.bolsa(numero).delElemento(leerCadena(registro));
+                break;
+            case BOLSA_APILADO:
+                this.bolsa(numero).addUnidades(leerUnidades(registro));
+                break;
+            case BOLSA_DESAPILADO:
+                String nombre = leerCadena(registro);
+                this.bolsa(numero).delUnidades(nombre, registro.getInt());
+                break;
+            case CALDERO_RECETA:
+                Receta receta = new Receta(leerCadena(registro));
+                boolean cerrada = registro.get() != 0;
+                int cantidad = registro.getInt();
+                for (int i = 0; i < cantidad; i++) {
+                    receta.addIngrediente(leerCadena(registro));
+                }
+                if (cerrada) {
+                    receta.cerrarReceta();
+                }
+                this.caldero(numero).setReceta(receta);
+                break;
+            case CALDERO_INGREDIENTE:
+                this.caldero(numero).addIngrediente(leerElemento(registro));
+                break;
+            case CALDERO_POCIMA_PREPARADA:
+                this.caldero(numero).prepararPocima();
+                break;
+            case CALDERO_RECETA_CANCELADA:
+                this.caldero(numero).cancelarReceta();
+                break;
+            case CALDERO_POCIMA_RETIRADA:
+                this.caldero(numero).getPocima();
+                break;
+            case PERSONAJE_EN_MANOS:
+                byte marca = registro.get();
+                this.personaje(numero).setElemento(
+                    marca == 2 ? leerUnidades(registro) : marca != 0 ? leerElemento(registro) : null);
+                break;
+            default:
+                throw new IOException("Tipo de registro desconocido: " + tipo);
+        }
+    }
+
+    private Bolsa bolsa (int numero) throws IOException {
+        return this.registrado(numero, Bolsa.class);
+    }
+
+    private Caldero caldero (int numero) throws IOException {
+        return this.registrado(numero, Caldero.class);
+    }
+
+    private Personaje personaje (int numero) throws IOException {
+        return this.registrado(numero, Personaje.class);
+    }
+
+    private <T> T registrado (int numero, Class<T> clase) throws IOException {
+        if (numero < 0 || numero >= this.registrados.size() || !clase.isInstance(this.registrados.get(numero))) {
+            throw new IOException("El objeto " + numero + " del diario no es un " + clase.getName() + " registrado");
+        }
+        return clase.cast(this.registrados.get(numero));
+    }
+
+    private static Elemento leerElemento (ByteBuffer registro) {
+        String nombre = leerCadena(registro);
+        return new Elemento(nombre, registro.getInt());
+    }
+
+    private static Elemento leerUnidades (ByteBuffer registro) {
+        String nombre = leerCadena(registro);
+        int peso = registro.getInt();
+        return new Elemento(nombre, peso, registro.getInt());
+    }
+
+    private static String leerCadena (ByteBuffer registro) {
+        byte[] bytes = new byte[registro.getInt()];
+        registro.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    void anotarAgregado (int bolsa, Elemento elemento) {
+        if (this.ignorando) {
+            return;
+        }
+        if (elemento.getCantidad() > 1) {
+            this.anotarApilado(bolsa, elemento);
+            return;
+        }
+        synchronized (this.candado) {
+            this.iniciar(BOLSA_AGREGADO, bolsa);
+            this.escribirElemento(elemento);
+            this.terminar();
+        }
+    }
+
+    void anotarApilado (int bolsa, Elemento unidades) {
+        if (this.ignorando) {
+            return;
+        }
+        synchronized (this.candado) {
+            this.iniciar(BOLSA_APILADO, bolsa);
+            this.escribirUnidades(unidades);
+            this.terminar();
+        }
+    }
+
+    void anotarDesapilado (int bolsa, String nombre, int cantidad) {
+        if (this.ignorando) {
+            return;
+        }
+        synchronized (this.candado) {
+            this.iniciar(BOLSA_DESAPILADO, bolsa);
+            this.escribirCadena(nombre);
+            this.contenido.escribirInt(cantidad);
+            this.terminar();
+        }
+    }
+
+    void anotarQuitado (int bolsa, String nombre) {
+        if (this.ignorando) {
+            return;
+        }
+        synchronized (this.candado) {
+            this.iniciar(BOLSA_QUITADO, bolsa);
+            this.escribirCadena(nombre);
+            this.terminar();
+        }
+    }
+
+    void anotarReceta (int caldero, Receta receta) {
+        if (this.ignorando) {
+            return;
+        }
+        synchronized (this.candado) {
+            this.iniciar(CALDERO_RECETA, caldero);
+            this.escribirCadena(receta.getNombre());
+            this.contenido.escribirByte(receta.isCerrada() ? 1 : 0);
+            this.contenido.escribirInt(receta.getIngredientes().size());
+            for (String ingrediente : receta.getIngredientes()) {
+                this.escribirCadena(ingrediente);
+            }
+            this.terminar();
+        }
+    }
+
+    void anotarIngrediente (int caldero, Elemento ingrediente) {
+        if (this.ignorando) {
+            return;
+        }
+        synchronized (this.candado) {
+            this.iniciar(CALDERO_INGREDIENTE, caldero);
+            this.escribirElemento(ingrediente);
+            this.terminar();
+        }
+    }
+
+    void anotarPocimaPreparada (int caldero) {
+        this.anotarSinDatos(CALDERO_POCIMA_PREPARADA, caldero);
+    }
+
+    void anotarRecetaCancelada (int caldero) {
+        this.anotarSinDatos(CALDERO_RECETA_CANCELADA, caldero);
+    }
+
+    void anotarPocimaRetirada (int caldero) {
+        this.anotarSinDatos(CALDERO_POCIMA_RETIRADA, caldero);
+    }
+
+    void anotarEnManos (int personaje, Elemento elemento) {
+        if (this.ignorando) {
+            return;
+        }
+        synchronized (this.candado) {
+            this.iniciar(PERSONAJE_EN_MANOS, personaje);
+            if (elemento == null) {
+                this.contenido.escribirByte(0);
+            } else if (elemento.getCantidad() > 1) {
+                this.contenido.escribirByte(2);
+                this.escribirUnidades(elemento);
+            } else {
+                this.contenido.escribirByte(1);
+                this.escribirElemento(elemento);
+            }
+            this.terminar();
+        }
+    }
+
+    private void anotarSinDatos (byte tipo, int numero) {
+        if (this.ignorando) {
+            return;
+        }
+        synchronized (this.candado) {
+            this.iniciar(tipo, numero);
+            this.terminar();
+        }
+    }
+
+    // Los metodos siguientes se llaman con el candado tomado.
+
+    private void iniciar (byte tipo, int numero) {
+        this.contenido.reset();
+        this.contenido.escribirByte(tipo);
+        this.contenido.escribirInt(numero);
+    }
+
+    private void escribirElemento (Elemento elemento) {
+        this.escribirCadena(elemento.getNombre());
+        this.contenido.escribirInt(elemento.getPeso());
+    }
+
+    private void escribirUnidades (Elemento unidades) {
+        this.escribirCadena(unidades.getNombre());
+        this.contenido.escribirInt(unidades.getPesoUnitario());
+        this.contenido.escribirInt(unidades.getCantidad());
+    }
+
+    private void escribirCadena (String cadena) {
+        byte[] bytes = cadena.getBytes(StandardCharsets.UTF_8);
+        this.contenido.escribirInt(bytes.length);
+        this.contenido.escribir(bytes, 0, bytes.length);
+    }
+
+    private void terminar () {
+        int largo = this.contenido.size();
+        this.crc.reset();
+        this.crc.update(this.contenido.arreglo(), 0, largo);
+        this.pendiente.escribirInt(largo);
+        this.pendiente.escribir(this.contenido.arreglo(), 0, largo);
+        this.pendiente.escribirInt((int) this.crc.getValue());
+        this.anotados++;
+    }
+
+    /**
+     * Escribe en el archivo lo anotado hasta el momento y espera a
+     * que quede en el disco.
+     *
+     * @throws IOException si fallo la escritura (ahora o en una
+     *         confirmacion anterior en segundo plano).
+     */
+    public void sincronizar () throws IOException {
+        synchronized (this.escritura) {
+            if (this.error != null) {
+                throw this.error;
+            }
+            Buffer lote;
+            long hasta;
+            synchronized (this.candado) {
+                lote = this.pendiente;
+                hasta = this.anotados;
+                this.pendiente = this.libre;
+                this.libre = null;
+            }
+            try {
+                if (lote.size() > 0) {
+                    ByteBuffer bytes = ByteBuffer.wrap(lote.arreglo(), 0, lote.size());
+                    while (bytes.hasRemaining()) {
+                        this.canal.write(bytes);
+                    }
+                    this.canal.force(false);
+                }
+                this.confirmados = hasta;
+            } catch (IOException e) {
+                this.error = e;
+                throw e;
+            } finally {
+                lote.reset();
+                synchronized (this.candado) {
+                    this.libre = lote;
+                }
+            }
+        }
+    }
+
+    private void confirmarEnSegundoPlano () {
+        try {
+            this.sincronizar();
+        } catch (IOException e) {
+            // queda guardado en error y se informa en sincronizar() o close()
+        }
+    }
+
+    /**
+     * Devuelve la cantidad de registros anotados desde que se abrio
+     * el diario.
+     *
+     * @return Los registros anotados.
+     */
+    public long getAnotados () {
+        synchronized (this.candado) {
+            return this.anotados;
+        }
+    }
+
+    /**
+     * Devuelve la cantidad de registros anotados que ya estan en el
+     * disco.
+     *
+     * @return Los registros confirmados.
+     */
+    public long getConfirmados () {
+        synchronized (this.escritura) {
+            return this.confirmados;
+        }
+    }
+
+    /**
+     * Confirma lo pendiente, detiene el hilo del diario y cierra el
+     * archivo. Los cambios posteriores de los objetos registrados
+     * ya no se anotan.
+     */
+    @Override
+    public void close () throws IOException {
+        this.ignorando = true;
+        if (this.confirmador != null) {
+            this.confirmador.shutdown();
+            try {
+                this.confirmador.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            this.sincronizar();
+        } finally {
+            this.canal.close();
+        }
+    }
+
+    /**
+     * Arreglo de bytes que crece a medida que se escribe. No esta
+     * sincronizado: lo protege el candado del diario.
+     */
+    private static class Buffer {
+        private byte[] datos = new byte[1 << 12];
+        private int largo;
+
+        byte[] arreglo () {
+            return this.datos;
+        }
+
+        int size () {
+            return this.largo;
+        }
+
+        void reset () {
+            this.largo = 0;
+        }
+
+        void escribirByte (int valor) {
+            this.lugar(1);
+            this.datos[this.largo++] = (byte) valor;
+        }
+
+        void escribirInt (int valor) {
+            this.lugar(4);
+            this.datos[this.largo++] = (byte) (valor >>> 24);
+            this.datos[this.largo++] = (byte) (valor >>> 16);
+            this.datos[this.largo++] = (byte) (valor >>> 8);
+            this.datos[this.largo++] = (byte) valor;
+        }
+
+        void escribir (byte[] bytes, int desde, int cantidad) {
+            this.lugar(cantidad);
+            System.arraycopy(bytes, desde, this.datos, this.largo, cantidad);
+            this.largo += cantidad;
+        }
+
+        private void lugar (int cantidad) {
+            if (this.largo + cantidad > this.datos.length) {
+                this.datos = Arrays.copyOf(this.datos, Math.max(this.datos.length * 2, this.largo + cantidad));
+            }
+        }
+    }
+}
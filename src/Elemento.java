@@ -1,11 +1,27 @@
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Modela elementos que representan objetos a utilizar.
+ * 
+ * Los elementos son inmutables, por lo que elementos iguales
+ * (mismo nombre y peso) pueden compartirse: compartido() devuelve
+ * siempre la misma instancia para cada par (nombre, peso).
+ * 
+ * Un elemento puede representar una pila de unidades iguales (500
+ * flechas): guarda el peso de cada unidad y la cantidad, y getPeso
+ * devuelve el peso de toda la pila, de modo que la capacidad de las
+ * bolsas se calcula igual que para un elemento suelto.
  */
 
 public class Elemento {
-    private final Integer peso;
+    // compartidos -> instancia canonica por nombre y peso
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Elemento>> compartidos =
+        new ConcurrentHashMap<String, ConcurrentHashMap<Integer, Elemento>>();
+
+    // peso -> peso de cada unidad
+    private final int peso;
     private final String nombre;
+    private final int cantidad;
 
     /**
      * Construye un objeto de tipo elemento con un nombre a eleccion
@@ -14,20 +30,101 @@ public class Elemento {
      * @param nombre El nombre del elemento.
      * @param peso El peso del elemento.
      */
-    public Elemento (String nombre, Integer peso) {
+    public Elemento (String nombre, int peso) {
+        this.nombre = nombre;
+        this.peso = peso;
+        this.cantidad = 1;
+    }
+
+    /**
+     * Construye una pila de unidades iguales.
+     * 
+     * @param nombre El nombre del elemento.
+     * @param peso El peso de cada unidad.
+     * @param cantidad La cantidad de unidades (al menos 1).
+     * @throws IllegalArgumentException si la cantidad no es positiva.
+     * @throws ArithmeticException si el peso de la pila no entra en un int.
+     */
+    public Elemento (String nombre, int peso, int cantidad) {
+        if (cantidad < 1) {
+            throw new IllegalArgumentException(nombre + ": cantidad " + cantidad);
+        }
+        Math.multiplyExact(peso, cantidad);
         this.nombre = nombre;
         this.peso = peso;
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Devuelve la instancia compartida del elemento con ese nombre
+     * y peso, creandola la primera vez que se pide.
+     * 
+     * Conviene para elementos comunes que se repiten en muchas
+     * bolsas ("Pluma", "Hueso", ...). Las instancias compartidas no
+     * se liberan.
+     * 
+     * @param nombre El nombre del elemento.
+     * @param peso El peso del elemento.
+     * @return El elemento compartido.
+     */
+    public static Elemento compartido (String nombre, int peso) {
+        ConcurrentHashMap<Integer, Elemento> porPeso = compartidos.get(nombre);
+        if (porPeso == null) {
+            porPeso = compartidos.computeIfAbsent(nombre, n -> new ConcurrentHashMap<Integer, Elemento>());
+        }
+        Elemento elemento = porPeso.get(peso);
+        if (elemento == null) {
+            elemento = porPeso.computeIfAbsent(peso, p -> new Elemento(nombre, p));
+        }
+        return elemento;
     }
 
     /**
-     * Devuelve el peso del elemento.
+     * Devuelve el peso del elemento; en una pila, el de todas sus
+     * unidades.
      * 
      * @return El peso del elemento.
      */
-    public Integer getPeso() {
+    public int getPeso() {
+        return peso * cantidad;
+    }
+
+    /**
+     * Devuelve el peso de cada unidad.
+     * 
+     * @return El peso de una unidad.
+     */
+    public int getPesoUnitario() {
         return peso;
     }
 
+    /**
+     * Devuelve la cantidad de unidades (1 si no es una pila).
+     * 
+     * @return La cantidad de unidades.
+     */
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Devuelve el mismo elemento con otra cantidad de unidades.
+     * Siempre es una instancia nueva: compartir sigue siendo algo
+     * que se pide explicitamente con compartido().
+     * 
+     * @param cantidad La cantidad de unidades (al menos 1).
+     * @return El elemento con esa cantidad.
+     */
+    public Elemento conCantidad(int cantidad) {
+        if (cantidad == this.cantidad) {
+            return this;
+        }
+        if (cantidad == 1) {
+            return new Elemento(this.nombre, this.peso);
+        }
+        return new Elemento(this.nombre, this.peso, cantidad);
+    }
+
     /**
      * Devuelve el nombre del elemento.
      * 
@@ -44,7 +141,7 @@ public class Elemento {
      */
     @Override
     public String toString() {
-        return nombre;
+        return cantidad == 1 ? nombre : nombre + " x" + cantidad;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Elige, entre varios elementos candidatos, el subconjunto de mayor
+ * valor que entra en un peso dado (problema de la mochila 0/1). Lo
+ * usa Bolsa.autoPack().
+ *
+ * El modo exacto es programacion dinamica sobre el peso: un
+ * arreglo long con el mejor valor por peso usado y un bit por
+ * (candidato, peso) para reconstruir la eleccion. Los pesos se
+ * dividen antes por su maximo comun divisor. El costo es
+ * candidatos x peso, de modo que sirve para capacidades realistas.
+ *
+ * El modo aproximado ordena los candidatos por valor por unidad de
+ * peso y los toma mientras entren; se queda con eso o con el mejor
+ * candidato solo, lo que garantiza al menos la mitad del optimo.
+ * Cuesta n log n y sirve para muchos candidatos.
+ *
+ * En los dos modos: de cada nombre se considera solo el candidato
+ * de mayor valor, los de valor negativo se descartan y los de peso
+ * 0 y valor no negativo se eligen siempre.
+ */
+public final class Empaquetador {
+    /**
+     * Como se resuelve la eleccion.
+     */
+    public enum Modo {
+        // EXACTO si candidatos x peso no supera LIMITE_CELDAS, si no APROXIMADO
+        AUTOMATICO,
+        EXACTO,
+        APROXIMADO
+    }
+
+    // celdas (candidato, peso) a partir de las cuales AUTOMATICO aproxima
+    public static final long LIMITE_CELDAS = 1L << 24;
+
+    /**
+     * Valor por omision: el peso del elemento, de modo que se busca
+     * ocupar la mayor parte posible del peso libre.
+     */
+    public static final ToLongFunction<Elemento> PESO = Elemento::getPeso;
+
+    private Empaquetador () {
+    }
+
+    /**
+     * Elige los candidatos a guardar.
+     *
+     * @param candidatos Los elementos candidatos.
+     * @param capacidad El peso disponible.
+     * @param valor El valor de cada elemento.
+     * @param modo Exacto, aproximado o automatico.
+     * @return Los candidatos elegidos, en el orden recibido.
+     */
+    public static List<Elemento> elegir (Collection<Elemento> candidatos, int capacidad,
+                                         ToLongFunction<Elemento> valor, Modo modo) {
+        // un candidato por nombre, el de mayor valor
+        Map<String, Integer> porNombre = new HashMap<String, Integer>();
+        List<Elemento> unicos = new ArrayList<Elemento>(candidatos.size());
+        List<Long> valoresUnicos = new ArrayList<Long>(candidatos.size());
+        for (Elemento candidato : candidatos) {
+            long v = valor.applyAsLong(candidato);
+            if (v < 0 || candidato.getPeso() < 0 || candidato.getPeso() > capacidad) {
+                continue;
+            }
+            Integer anterior = porNombre.get(candidato.getNombre());
+            if (anterior == null) {
+                porNombre.put(candidato.getNombre(), unicos.size());
+                unicos.add(candidato);
+                valoresUnicos.add(v);
+            } else if (v > valoresUnicos.get(anterior)) {
+                unicos.set(anterior, candidato);
+                valoresUnicos.set(anterior, v);
+            }
+        }
+
+        int n = unicos.size();
+        int[] pesos = new int[n];
+        long[] valores = new long[n];
+        long pesoTotal = 0;
+        for (int i = 0; i < n; i++) {
+            pesos[i] = unicos.get(i).getPeso();
+            valores[i] = valoresUnicos.get(i);
+            pesoTotal += pesos[i];
+        }
+
+        boolean[] elegidos;
+        if (pesoTotal <= capacidad) {
+            elegidos = new boolean[n];
+            Arrays.fill(elegidos, true);
+        } else {
+            if (modo == Modo.AUTOMATICO) {
+                modo = (long) n * ((long) capacidad + 1) <= LIMITE_CELDAS ? Modo.EXACTO : Modo.APROXIMADO;
+            }
+            elegidos = modo == Modo.EXACTO
+                ? exacto(pesos, valores, capacidad)
+                : aproximado(pesos, valores, capacidad);
+        }
+
+        List<Elemento> resultado = new ArrayList<Elemento>();
+        for (int i = 0; i < n; i++) {
+            if (elegidos[i]) {
+                resultado.add(unicos.get(i));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Programacion dinamica 0/1 sobre el peso.
+     */
+    static boolean[] exacto (int[] pesos, long[] valores, int capacidad) {
+        int n = pesos.length;
+        int divisor = 0;
+        for (int peso : pesos) {
+            divisor = mcd(divisor, peso);
+        }
+        if (divisor == 0) {
+            divisor = 1;
+        }
+        int limite = capacidad / divisor;
+        int columnas = limite + 1;
+
+        long[] mejor = new long[columnas];
+        long[] tomar = new long[(int) (((long) n * columnas + 63) >>> 6)];
+        boolean[] elegidos = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int peso = pesos[i] / divisor;
+            long valor = valores[i];
+            if (peso == 0) {
+                elegidos[i] = true;
+                continue;
+            }
+            long base = (long) i * columnas;
+            for (int c = limite; c >= peso; c--) {
+                long conEste = mejor[c - peso] + valor;
+                if (conEste > mejor[c]) {
+                    mejor[c] = conEste;
+                    long bit = base + c;
+                    tomar[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+
+        int c = limite;
+        for (int i = n - 1; i >= 0; i--) {
+            long bit = (long) i * columnas + c;
+            if (!elegidos[i] && (tomar[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+                elegidos[i] = true;
+                c -= pesos[i] / divisor;
+            }
+        }
+        return elegidos;
+    }
+
+    /**
+     * Toma los candidatos por valor por unidad de peso mientras
+     * entren, o el mejor candidato solo si vale mas.
+     */
+    static boolean[] aproximado (int[] pesos, long[] valores, int capacidad) {
+        int n = pesos.length;
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Double.compare(
+            densidad(valores[b], pesos[b]), densidad(valores[a], pesos[a])));
+
+        boolean[] elegidos = new boolean[n];
+        long libre = capacidad;
+        long valorTotal = 0;
+        int mejorSolo = -1;
+        for (int i : orden) {
+            if (pesos[i] <= libre) {
+                elegidos[i] = true;
+                libre -= pesos[i];
+                valorTotal += valores[i];
+            }
+            if (pesos[i] > 0 && (mejorSolo < 0 || valores[i] > valores[mejorSolo])) {
+                mejorSolo = i;
+            }
+        }
+        if (mejorSolo >= 0 && !elegidos[mejorSolo] && valores[mejorSolo] > valorTotal) {
+            Arrays.fill(elegidos, false);
+            elegidos[mejorSolo] = true;
+            for (int i = 0; i < n; i++) {
+                if (pesos[i] == 0) {
+                    elegidos[i] = true;
+                }
+            }
+        }
+        return elegidos;
+    }
+
+    private static double densidad (long valor, int peso) {
+        return peso == 0 ? Double.POSITIVE_INFINITY : (double) valor / peso;
+    }
+
+    private static int mcd (int a, int b) {
+        while (b != 0) {
+            int resto = a % b;
+            a = b;
+            b = resto;
+        }
+        return a;
+    }
+}
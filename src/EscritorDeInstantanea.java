@@ -0,0 +1,218 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Guarda el estado de muchos personajes en un archivo binario
+ * compacto (instantanea) que LectorDeInstantanea puede abrir
+ * mapeado en memoria.
+ *
+ * Formato (enteros big-endian):
+ *
+ *   Encabezado (32 bytes)
+ *     int MAGICO, int VERSION, int personajes, int cadenas,
+ *     long inicio de la tabla de cadenas, long inicio del indice
+ *   Registros de personajes, uno detras de otro
+ *   Tabla de cadenas: un int de desplazamiento por cadena y luego
+ *     cada cadena como int largo + bytes UTF-8
+ *   Indice: un int por personaje con el inicio de su registro
+ *
+ * Todos los nombres (personajes, bolsas, calderos, recetas y
+ * elementos) se guardan una sola vez en la tabla de cadenas y los
+ * registros los referencian por numero.
+ *
+ * Registro de un personaje:
+ *
+ *   int nombre, int vida, int vida maxima, int peso maximo de bolsa,
+ *   byte marcas (CON_ELEMENTO | CON_BOLSA | CON_CALDERO)
+ *   [elemento] int nombre, int peso unitario, int unidades
+ *   [bolsa]    int nombre, int peso maximo, int peso actual,
+ *              int cantidad, cantidad x elemento
+ *   [caldero]  int nombre, int capacidad, byte estado
+ *              CON_RECETA: int nombre, byte cerrada, int cantidad,
+ *                  cantidad x (int nombre, byte incorporado, [int peso])
+ *              CON_POCIMA: elemento
+ *
+ * Todo elemento ocupa LARGO_ELEMENTO bytes. La version 2 agrego
+ * las unidades, para guardar las pilas de las bolsas.
+ *
+ * La instantanea no puede superar los 2 GB.
+ */
+public class EscritorDeInstantanea {
+    public static final int MAGICO = 0x52504749;
+    public static final int VERSION = 2;
+    public static final int LARGO_ENCABEZADO = 32;
+    public static final int LARGO_ELEMENTO = 12;
+
+    public static final int CON_ELEMENTO = 1;
+    public static final int CON_BOLSA = 2;
+    public static final int CON_CALDERO = 4;
+
+    public static final int CALDERO_VACIO = 0;
+    public static final int CON_RECETA = 1;
+    public static final int CON_POCIMA = 2;
+
+    private final Map<String, Integer> numeros;
+    private final List<String> cadenas;
+    private DataOutputStream salida;
+
+    public EscritorDeInstantanea () {
+        this.numeros = new HashMap<String, Integer>();
+        this.cadenas = new ArrayList<String>();
+    }
+
+    /**
+     * Escribe la instantanea de los personajes en el archivo,
+     * reemplazandolo si existe.
+     *
+     * @param archivo El archivo de destino.
+     * @param personajes Los personajes a guardar.
+     * @throws IOException si no se puede escribir el archivo.
+     */
+    public void escribir (Path archivo, Collection<Personaje> personajes) throws IOException {
+        this.numeros.clear();
+        this.cadenas.clear();
+        int[] indice = new int[personajes.size()];
+        long inicioCadenas;
+        long inicioIndice;
+
+        try (DataOutputStream salida = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(archivo.toFile()), 1 << 16))) {
+            this.salida = salida;
+            salida.write(new byte[LARGO_ENCABEZADO]);
+
+            int p = 0;
+            for (Personaje personaje : personajes) {
+                indice[p++] = salida.size();
+                this.escribirPersonaje(personaje);
+                if (salida.size() < 0) {
+                    throw new IOException("La instantanea supera los 2 GB");
+                }
+            }
+
+            inicioCadenas = salida.size();
+            this.escribirCadenas();
+
+            inicioIndice = salida.size();
+            for (int inicio : indice) {
+                salida.writeInt(inicio);
+            }
+            if (salida.size() < 0) {
+                throw new IOException("La instantanea supera los 2 GB");
+            }
+        } finally {
+            this.salida = null;
+        }
+
+        try (RandomAccessFile encabezado = new RandomAccessFile(archivo.toFile(), "rw")) {
+            encabezado.writeInt(MAGICO);
+            encabezado.writeInt(VERSION);
+            encabezado.writeInt(indice.length);
+            encabezado.writeInt(this.cadenas.size());
+            encabezado.writeLong(inicioCadenas);
+            encabezado.writeLong(inicioIndice);
+        }
+    }
+
+    private void escribirPersonaje (Personaje personaje) throws IOException {
+        Elemento objeto = personaje.getElemento();
+        Bolsa bolsa = personaje.getBolsa();
+        Caldero caldero = personaje.getCaldero();
+
+        this.salida.writeInt(this.numero(personaje.getNombre()));
+        this.salida.writeInt(personaje.getVida());
+        this.salida.writeInt(personaje.getVidaMaxima());
+        this.salida.writeInt(personaje.getPesoMaximoBolsa());
+        this.salida.writeByte(
+            (objeto != null ? CON_ELEMENTO : 0) |
+            (bolsa != null ? CON_BOLSA : 0) |
+            (caldero != null ? CON_CALDERO : 0));
+
+        if (objeto != null) {
+            this.escribirElemento(objeto);
+        }
+        if (bolsa != null) {
+            List<Elemento> elementos = bolsa.getElementosEnLaBolsa();
+            this.salida.writeInt(this.numero(bolsa.getNombre()));
+            this.salida.writeInt(bolsa.getPesoMaximo());
+            this.salida.writeInt(bolsa.getPesoActual());
+            this.salida.writeInt(elementos.size());
+            for (Elemento elemento : elementos) {
+                this.escribirElemento(elemento);
+            }
+        }
+        if (caldero != null) {
+            this.escribirCaldero(caldero);
+        }
+    }
+
+    private void escribirCaldero (Caldero caldero) throws IOException {
+        this.salida.writeInt(this.numero(caldero.getNombre()));
+        this.salida.writeInt(caldero.getCapacidad());
+        Receta receta = caldero.getReceta();
+        Elemento pocima = caldero.verPocima();
+        if (receta != null) {
+            this.salida.writeByte(CON_RECETA);
+            this.salida.writeInt(this.numero(receta.getNombre()));
+            this.salida.writeByte(receta.isCerrada() ? 1 : 0);
+            Map<String, Elemento> ingredientes = caldero.getIngredientes();
+            this.salida.writeInt(ingredientes.size());
+            for (Map.Entry<String, Elemento> ingrediente : ingredientes.entrySet()) {
+                this.salida.writeInt(this.numero(ingrediente.getKey()));
+                if (ingrediente.getValue() != null) {
+                    this.salida.writeByte(1);
+                    this.salida.writeInt(ingrediente.getValue().getPeso());
+                } else {
+                    this.salida.writeByte(0);
+                }
+            }
+        } else if (pocima != null) {
+            this.salida.writeByte(CON_POCIMA);
+            this.escribirElemento(pocima);
+        } else {
+            this.salida.writeByte(CALDERO_VACIO);
+        }
+    }
+
+    private void escribirElemento (Elemento elemento) throws IOException {
+        this.salida.writeInt(this.numero(elemento.getNombre()));
+        this.salida.writeInt(elemento.getPesoUnitario());
+        this.salida.writeInt(elemento.getCantidad());
+    }
+
+    private void escribirCadenas () throws IOException {
+        byte[][] bytes = new byte[this.cadenas.size()][];
+        int desplazamiento = 4 * this.cadenas.size();
+        for (int c = 0; c < bytes.length; c++) {
+            bytes[c] = this.cadenas.get(c).getBytes(StandardCharsets.UTF_8);
+            this.salida.writeInt(desplazamiento);
+            desplazamiento += 4 + bytes[c].length;
+        }
+        for (byte[] cadena : bytes) {
+            this.salida.writeInt(cadena.length);
+            this.salida.write(cadena);
+        }
+    }
+
+    /**
+     * Devuelve el numero de la cadena en la tabla, agregandola si es nueva.
+     */
+    private int numero (String cadena) {
+        Integer numero = this.numeros.get(cadena);
+        if (numero == null) {
+            numero = this.cadenas.size();
+            this.numeros.put(cadena, numero);
+            this.cadenas.add(cadena);
+        }
+        return numero;
+    }
+}
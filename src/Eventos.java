@@ -0,0 +1,47 @@
+/**
+ * Guarda el sumidero de eventos que usan todas las bolsas,
+ * calderos y personajes.
+ *
+ * Por omision los rechazos no se informan (SumideroDeEventos.NINGUNO):
+ * quien quiera los mensajes de consola debe instalar
+ * SumideroDeEventos.CONSOLA.
+ */
+public final class Eventos {
+    private static volatile SumideroDeEventos sumidero = SumideroDeEventos.NINGUNO;
+
+    private Eventos () {
+    }
+
+    /**
+     * Instala el sumidero de eventos.
+     *
+     * @param nuevo El sumidero; null equivale a NINGUNO.
+     */
+    public static void setSumidero (SumideroDeEventos nuevo) {
+        sumidero = nuevo != null ? nuevo : SumideroDeEventos.NINGUNO;
+    }
+
+    /**
+     * Devuelve el sumidero instalado.
+     *
+     * @return El sumidero de eventos.
+     */
+    public static SumideroDeEventos getSumidero () {
+        return sumidero;
+    }
+
+    /**
+     * Informa un rechazo al sumidero instalado (y lo cuenta en
+     * Metricas si estan activas) y devuelve el resultado.
+     *
+     * @return El mismo resultado recibido.
+     */
+    static ResultadoOperacion rechazo (SumideroDeEventos.Operacion operacion, ResultadoOperacion resultado,
+                                       Object origen, String nombre, int cantidad) {
+        if (Metricas.isActivas()) {
+            Metricas.contarRechazo(operacion, resultado);
+        }
+        sumidero.rechazo(operacion, resultado, origen, nombre, cantidad);
+        return resultado;
+    }
+}
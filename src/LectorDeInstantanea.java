@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+
+/**
+ * Lee una instantanea escrita por EscritorDeInstantanea.
+ *
+ * El archivo se mapea en memoria y no se decodifica al abrirlo:
+ * cada personaje se reconstruye recien cuando se lo pide
+ * (getPersonaje), y el contenido de su bolsa recien cuando se usa
+ * la bolsa por primera vez. Las cadenas se decodifican una vez y
+ * quedan guardadas.
+ *
+ * Puede usarse desde varios hilos.
+ */
+public class LectorDeInstantanea implements AutoCloseable {
+    private final FileChannel canal;
+    private final MappedByteBuffer datos;
+    private final int cantidadPersonajes;
+    private final int inicioCadenas;
+    private final int inicioIndice;
+    private final String[] cadenas;
+
+    /**
+     * Abre la instantanea.
+     *
+     * @param archivo El archivo a leer.
+     * @throws IOException si no se puede leer o no es una instantanea valida.
+     */
+    public LectorDeInstantanea (Path archivo) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        this.datos = this.canal.map(FileChannel.MapMode.READ_ONLY, 0, this.canal.size());
+        if (
+            this.datos.getInt(0) != EscritorDeInstantanea.MAGICO ||
+            this.datos.getInt(4) != EscritorDeInstantanea.VERSION
+        ) {
+            this.canal.close();
+            throw new IOException(archivo + ": no es una instantanea valida");
+        }
+        this.cantidadPersonajes = this.datos.getInt(8);
+        this.cadenas = new String[this.datos.getInt(12)];
+        this.inicioCadenas = (int) this.datos.getLong(16);
+        this.inicioIndice = (int) this.datos.getLong(24);
+    }
+
+    /**
+     * Devuelve la cantidad de personajes guardados.
+     *
+     * @return La cantidad de personajes.
+     */
+    public int getCantidadPersonajes () {
+        return this.cantidadPersonajes;
+    }
+
+    /**
+     * Reconstruye el personaje guardado en la posicion dada. Cada
+     * llamada devuelve un objeto nuevo.
+     *
+     * @param posicion La posicion del personaje (0 .. cantidad - 1).
+     * @return El personaje, con su bolsa sin decodificar.
+     */
+    public Personaje getPersonaje (int posicion) {
+        int p = this.datos.getInt(this.inicioIndice + 4 * posicion);
+
+        Personaje personaje = new Personaje(
+            this.cadena(this.datos.getInt(p)),
+            this.datos.getInt(p + 8),
+            this.datos.getInt(p + 12));
+        personaje.setVida(this.datos.getInt(p + 4));
+        int marcas = this.datos.get(p + 16);
+        p += 17;
+
+        if ((marcas & EscritorDeInstantanea.CON_ELEMENTO) != 0) {
+            personaje.setElemento(this.elemento(p));
+            p += EscritorDeInstantanea.LARGO_ELEMENTO;
+        }
+        if ((marcas & EscritorDeInstantanea.CON_BOLSA) != 0) {
+            int cantidad = this.datos.getInt(p + 12);
+            personaje.setBolsa(new BolsaDiferida(this, p));
+            p += 16 + EscritorDeInstantanea.LARGO_ELEMENTO * cantidad;
+        }
+        if ((marcas & EscritorDeInstantanea.CON_CALDERO) != 0) {
+            personaje.setCaldero(this.caldero(p));
+        }
+        return personaje;
+    }
+
+    /**
+     * Reconstruye todos los personajes.
+     *
+     * @return Los personajes, en el orden en que se guardaron.
+     */
+    public List<Personaje> getPersonajes () {
+        List<Personaje> personajes = new ArrayList<Personaje>(this.cantidadPersonajes);
+        for (int p = 0; p < this.cantidadPersonajes; p++) {
+            personajes.add(this.getPersonaje(p));
+        }
+        return personajes;
+    }
+
+    private Caldero caldero (int p) {
+        Caldero caldero = new Caldero(this.cadena(this.datos.getInt(p)), this.datos.getInt(p + 4));
+        int estado = this.datos.get(p + 8);
+        p += 9;
+        if (estado == EscritorDeInstantanea.CON_RECETA) {
+            Receta receta = new Receta(this.cadena(this.datos.getInt(p)));
+            boolean cerrada = this.datos.get(p + 4) != 0;
+            int cantidad = this.datos.getInt(p + 5);
+            p += 9;
+            List<Elemento> incorporados = new ArrayList<Elemento>();
+            for (int i = 0; i < cantidad; i++) {
+                String ingrediente = this.cadena(this.datos.getInt(p));
+                receta.addIngrediente(ingrediente);
+                if (this.datos.get(p + 4) != 0) {
+                    incorporados.add(new Elemento(ingrediente, this.datos.getInt(p + 5)));
+                    p += 9;
+                } else {
+                    p += 5;
+                }
+            }
+            if (cerrada) {
+                receta.cerrarReceta();
+            }
+            caldero.setReceta(receta);
+            for (Elemento incorporado : incorporados) {
+                caldero.addIngrediente(incorporado);
+            }
+        } else if (estado == EscritorDeInstantanea.CON_POCIMA) {
+            caldero.restaurarPocima(this.elemento(p));
+        }
+        return caldero;
+    }
+
+    private Elemento elemento (int p) {
+        String nombre = this.cadena(this.datos.getInt(p));
+        int unidades = this.datos.getInt(p + 8);
+        if (unidades == 1) {
+            return new Elemento(nombre, this.datos.getInt(p + 4));
+        }
+        return new Elemento(nombre, this.datos.getInt(p + 4), unidades);
+    }
+
+    private String cadena (int numero) {
+        String cadena = this.cadenas[numero];
+        if (cadena == null) {
+            int inicio = this.inicioCadenas + this.datos.getInt(this.inicioCadenas + 4 * numero);
+            byte[] bytes = new byte[this.datos.getInt(inicio)];
+            this.datos.get(inicio + 4, bytes);
+            cadena = new String(bytes, StandardCharsets.UTF_8);
+            this.cadenas[numero] = cadena;
+        }
+        return cadena;
+    }
+
+    /**
+     * Cierra el archivo. Los personajes ya obtenidos siguen siendo
+     * validos, pero sus bolsas sin decodificar no pueden usarse.
+     */
+    @Override
+    public void close () throws IOException {
+        this.canal.close();
+    }
+
+    /**
+     * Bolsa que conoce su nombre, peso maximo y peso actual pero no
+     * decodifica sus elementos hasta que se la usa por primera vez.
+     */
+    private static class BolsaDiferida extends Bolsa {
+        private final LectorDeInstantanea lector;
+        private final int inicio;
+        private volatile boolean cargada;
+
+        BolsaDiferida (LectorDeInstantanea lector, int inicio) {
+            super(lector.cadena(lector.datos.getInt(inicio)), lector.datos.getInt(inicio + 4));
+            this.lector = lector;
+            this.inicio = inicio;
+            super.setPesoActual(lector.datos.getInt(inicio + 8));
+        }
+
+        private void cargar () {
+            if (this.cargada) {
+                return;
+            }
+            synchronized (this) {
+                if (!this.cargada) {
+                    Map<String, Elemento> elementos = super.getMapaPorNombre();
+                    NavigableSet<Elemento> indice = super.getIndicePorPeso();
+                    int cantidad = this.lector.datos.getInt(this.inicio + 12);
+                    for (int i = 0; i < cantidad; i++) {
+                        Elemento elemento = this.lector.elemento(
+                            this.inicio + 16 + EscritorDeInstantanea.LARGO_ELEMENTO * i);
+                        elementos.put(elemento.getNombre(), elemento);
+                        indice.add(elemento);
+                    }
+                    this.cargada = true;
+                }
+            }
+        }
+
+        @Override
+        protected boolean agregar (Elemento obj) {
+            this.cargar();
+            return super.agregar(obj);
+        }
+
+        @Override
+        protected boolean agregarTodos (Collection<Elemento> elementos) {
+            this.cargar();
+            return super.agregarTodos(elementos);
+        }
+
+        @Override
+        protected Elemento quitar (String nombre) {
+            this.cargar();
+            return super.quitar(nombre);
+        }
+
+        @Override
+        protected boolean apilar (Elemento unidades) {
+            this.cargar();
+            return super.apilar(unidades);
+        }
+
+        @Override
+        protected Elemento desapilar (String nombre, int cantidad) {
+            this.cargar();
+            return super.desapilar(nombre, cantidad);
+        }
+
+        @Override
+        public Collection<Elemento> getVistaConPrefijo (String pre) {
+            this.cargar();
+            return super.getVistaConPrefijo(pre);
+        }
+
+        @Override
+        protected NavigableSet<Elemento> getIndicePorPeso () {
+            this.cargar();
+            return super.getIndicePorPeso();
+        }
+
+        @Override
+        protected NavigableMap<String, Elemento> getMapaPorNombre () {
+            this.cargar();
+            return super.getMapaPorNombre();
+        }
+
+        @Override
+        public String getKeySet () {
+            this.cargar();
+            return super.getKeySet();
+        }
+
+        @Override
+        public Map<String, Elemento> getMapaDeElementos () {
+            this.cargar();
+            return super.getMapaDeElementos();
+        }
+    }
+}
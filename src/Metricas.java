@@ -0,0 +1,323 @@
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metricas de las operaciones de bolsas, calderos y personajes:
+ * cantidad de llamadas e histograma de latencias por operacion, y
+ * cantidad de rechazos por operacion y motivo.
+ *
+ * Los contadores son LongAdder, que reparten las sumas entre
+ * celdas para que varios hilos no compitan por el mismo valor. El
+ * histograma tiene una celda por potencia de dos de nanosegundos,
+ * de modo que los percentiles son aproximados (el limite superior
+ * de la celda).
+ *
+ * Por omision estan desactivadas: cada operacion solo lee un
+ * campo volatile, sin llamar a System.nanoTime() ni sumar nada.
+ * Los rechazos se cuentan desde Eventos.
+ */
+public final class Metricas {
+    static final long SIN_MEDIR = Long.MIN_VALUE;
+    // CELDAS -> una celda por potencia de dos (ver Histograma); Simulador usa las mismas
+    static final int CELDAS = 64;
+
+    private static final SumideroDeEventos.Operacion[] OPERACIONES = SumideroDeEventos.Operacion.values();
+    private static final ResultadoOperacion[] RESULTADOS = ResultadoOperacion.values();
+
+    private static volatile boolean activas = false;
+    // latencias[operacion] -> histograma de la operacion
+    private static final Histograma[] latencias = new Histograma[OPERACIONES.length];
+    // rechazos[operacion][resultado] -> rechazos por motivo
+    private static final LongAdder[][] rechazos = new LongAdder[OPERACIONES.length][RESULTADOS.length];
+
+    static {
+        for (int o = 0; o < OPERACIONES.length; o++) {
+            latencias[o] = new Histograma();
+            for (int r = 0; r < RESULTADOS.length; r++) {
+                rechazos[o][r] = new LongAdder();
+            }
+        }
+    }
+
+    private Metricas () {
+    }
+
+    /**
+     * Empieza a medir. Los valores acumulados se conservan.
+     */
+    public static void activar () {
+        activas = true;
+    }
+
+    /**
+     * Deja de medir. Los valores acumulados se conservan.
+     */
+    public static void desactivar () {
+        activas = false;
+    }
+
+    public static boolean isActivas () {
+        return activas;
+    }
+
+    /**
+     * Pone todos los contadores en cero.
+     */
+    public static void reiniciar () {
+        for (int o = 0; o < OPERACIONES.length; o++) {
+            latencias[o].reiniciar();
+            for (int r = 0; r < RESULTADOS.length; r++) {
+                rechazos[o][r].reset();
+            }
+        }
+    }
+
+    /**
+     * Marca el inicio de una operacion.
+     *
+     * @return El instante actual, o SIN_MEDIR si estan desactivadas.
+     */
+    static long inicio () {
+        return activas ? System.nanoTime() : SIN_MEDIR;
+    }
+
+    /**
+     * Registra una llamada a la operacion y su latencia desde inicio.
+     *
+     * @param operacion La operacion.
+     * @param inicio El valor devuelto por inicio().
+     */
+    static void medir (SumideroDeEventos.Operacion operacion, long inicio) {
+        if (inicio != SIN_MEDIR) {
+            latencias[operacion.ordinal()].agregar(System.nanoTime() - inicio);
+        }
+    }
+
+    static void contarRechazo (SumideroDeEventos.Operacion operacion, ResultadoOperacion resultado) {
+        rechazos[operacion.ordinal()][resultado.ordinal()].increment();
+    }
+
+    /**
+     * Devuelve la cantidad de llamadas medidas de la operacion.
+     *
+     * @param operacion La operacion.
+     * @return Las llamadas medidas.
+     */
+    public static long getLlamadas (SumideroDeEventos.Operacion operacion) {
+        return latencias[operacion.ordinal()].getCantidad();
+    }
+
+    /**
+     * Devuelve la cantidad de rechazos de la operacion por el motivo.
+     *
+     * @param operacion La operacion.
+     * @param motivo El motivo del rechazo.
+     * @return Los rechazos contados.
+     */
+    public static long getRechazos (SumideroDeEventos.Operacion operacion, ResultadoOperacion motivo) {
+        return rechazos[operacion.ordinal()][motivo.ordinal()].sum();
+    }
+
+    /**
+     * Devuelve la cantidad de rechazos por el motivo, en todas las
+     * operaciones.
+     *
+     * @param motivo El motivo del rechazo.
+     * @return Los rechazos contados.
+     */
+    public static long getRechazos (ResultadoOperacion motivo) {
+        long total = 0;
+        for (int o = 0; o < OPERACIONES.length; o++) {
+            total += rechazos[o][motivo.ordinal()].sum();
+        }
+        return total;
+    }
+
+    /**
+     * Devuelve el percentil aproximado de latencia de la operacion.
+     *
+     * @param operacion La operacion.
+     * @param percentil El percentil, entre 0 y 100.
+     * @return La latencia en nanosegundos, o 0 si no hay llamadas.
+     */
+    public static long getPercentil (SumideroDeEventos.Operacion operacion, double percentil) {
+        return latencias[operacion.ordinal()].percentil(percentil);
+    }
+
+    /**
+     * Arma un texto con una metrica por linea ("clave valor"):
+     *
+     *   llamadas.<operacion> n
+     *   latencia_ns.<operacion>.{media,p50,p90,p99,max} ns
+     *   rechazos.<operacion>.<motivo> n
+     *
+     * Se omiten las operaciones sin llamadas ni rechazos y los
+     * motivos sin rechazos.
+     *
+     * @return Las metricas en el momento de la llamada.
+     */
+    public static String getInstantanea () {
+        StringBuilder texto = new StringBuilder();
+        for (int o = 0; o < OPERACIONES.length; o++) {
+            String operacion = OPERACIONES[o].name();
+            Histograma histograma = latencias[o];
+            long llamadas = histograma.getCantidad();
+            if (llamadas > 0) {
+                texto.append("llamadas.").append(operacion).append(' ').append(llamadas).append('\n');
+                String latencia = "latencia_ns." + operacion;
+                texto.append(latencia).append(".media ").append(histograma.getSuma() / llamadas).append('\n');
+                texto.append(latencia).append(".p50 ").append(histograma.percentil(50)).append('\n');
+                texto.append(latencia).append(".p90 ").append(histograma.percentil(90)).append('\n');
+                texto.append(latencia).append(".p99 ").append(histograma.percentil(99)).append('\n');
+                texto.append(latencia).append(".max ").append(histograma.percentil(100)).append('\n');
+            }
+            for (int r = 0; r < RESULTADOS.length; r++) {
+                long cantidad = rechazos[o][r].sum();
+                if (cantidad > 0) {
+                    texto.append("rechazos.").append(operacion).append('.').append(RESULTADOS[r].name())
+                        .append(' ').append(cantidad).append('\n');
+                }
+            }
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Escribe getInstantanea() en el archivo. Se escribe primero un
+     * archivo temporal y luego se lo mueve, de modo que quien lea el
+     * archivo nunca vea una instantanea a medias.
+     *
+     * @param archivo El archivo de destino.
+     * @throws IOException si no se puede escribir.
+     */
+    public static void exportar (Path archivo) throws IOException {
+        Path directorio = archivo.toAbsolutePath().getParent();
+        Path temporal = Files.createTempFile(directorio, archivo.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporal, getInstantanea().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Publica getInstantanea() en http://localhost:puerto/metricas.
+     *
+     * @param puerto El puerto (0 elige uno libre).
+     * @return El servidor ya iniciado; se detiene con stop().
+     * @throws IOException si no se puede abrir el puerto.
+     */
+    public static HttpServer servir (int puerto) throws IOException {
+        HttpServer servidor = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto), 0);
+        servidor.createContext("/metricas", intercambio -> {
+            byte[] cuerpo = getInstantanea().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        });
+        servidor.start();
+        return servidor;
+    }
+
+    /**
+     * Devuelve la celda del histograma que cuenta el valor: la
+     * celda c cuenta los valores entre 2^c y 2^(c+1) - 1 (la celda
+     * 0 tambien cuenta el 0 y los negativos).
+     */
+    static int celda (long nanos) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(nanos, 0) | 1);
+    }
+
+    /**
+     * Devuelve el percentil aproximado de un histograma por
+     * potencias de dos (ver celda): el limite superior de la celda
+     * donde el acumulado llega al percentil.
+     *
+     * @param cuentas Cuantos valores hay en cada una de las CELDAS.
+     * @param percentil El percentil, entre 0 y 100.
+     * @return El limite superior de la celda, o 0 si no hay valores.
+     */
+    static long percentil (long[] cuentas, double percentil) {
+        long cantidad = 0;
+        for (long cuenta : cuentas) {
+            cantidad += cuenta;
+        }
+        if (cantidad == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(cantidad * percentil / 100));
+        long acumulado = 0;
+        for (int c = 0; c < CELDAS; c++) {
+            acumulado += cuentas[c];
+            if (acumulado >= objetivo) {
+                return c == 63 ? Long.MAX_VALUE : (1L << (c + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Histograma de latencias con una celda por potencia de dos:
+     * la celda c cuenta los valores entre 2^c y 2^(c+1) - 1 (la
+     * celda 0 tambien cuenta el 0).
+     */
+    private static class Histograma {
+        private final LongAdder[] celdas;
+        private final LongAdder suma;
+
+        Histograma () {
+            this.celdas = new LongAdder[CELDAS];
+            for (int c = 0; c < CELDAS; c++) {
+                this.celdas[c] = new LongAdder();
+            }
+            this.suma = new LongAdder();
+        }
+
+        void agregar (long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            this.celdas[celda(nanos)].increment();
+            this.suma.add(nanos);
+        }
+
+        long getCantidad () {
+            long cantidad = 0;
+            for (LongAdder celda : this.celdas) {
+                cantidad += celda.sum();
+            }
+            return cantidad;
+        }
+
+        long getSuma () {
+            return this.suma.sum();
+        }
+
+        long percentil (double percentil) {
+            long[] cuentas = new long[CELDAS];
+            for (int c = 0; c < CELDAS; c++) {
+                cuentas[c] = this.celdas[c].sum();
+            }
+            return Metricas.percentil(cuentas, percentil);
+        }
+
+        void reiniciar () {
+            for (LongAdder celda : this.celdas) {
+                celda.reset();
+            }
+            this.suma.reset();
+        }
+    }
+}
@@ -16,6 +16,9 @@ public class Personaje {
     private Elemento objeto;
     // bolsa -> la Bolsa de elementos
     private Bolsa bolsa;
+    // diario -> diario donde se anotan los cambios (null si no hay)
+    private Diario diario;
+    private int numeroEnDiario;
 
     /**
      * Crea un personaje con el nombre dado y configura los
@@ -44,32 +47,42 @@ public class Personaje {
      * no supere el maximo soportado por el personaje.  Si el
      * personaje ya tiene una bolsa asociada, la nueva bolsa
      * debe tener mayor capacidad que la actual.  Si no se
-     * cumple algunos de los requisito se debe imprimir:
+     * cumple algunos de los requisito se informa el rechazo al
+     * sumidero de eventos (Eventos); con SumideroDeEventos.CONSOLA
+     * se imprime:
      *         "Bolsa inapropiada"
      * 
      * En caso de reemplazar la bolsa actual, deben pasarse
-     * todos los objetos a la nueva bolsa.
+     * todos los objetos a la nueva bolsa.  Los objetos se pasan
+     * todos juntos (addElementos); si alguno no entra en la nueva
+     * bolsa no se pasa ninguno y la bolsa se considera inapropiada.
      * 
      * @param bolsa La nueva bolsa del personaje.
+     * @return HECHO, BOLSA_EXCEDE_PERSONAJE, BOLSA_MAS_CHICA o
+     *         CONTENIDO_NO_ENTRA.
      */
-    public void setBolsa(Bolsa bolsa) {
-        if(bolsa.getPesoMaximo() <= this.PESO_MAXIMO_BOLSA) {
+    public ResultadoOperacion setBolsa(Bolsa bolsa) {
+        long inicio = Metricas.inicio();
+        try {
+            if(bolsa.getPesoMaximo() > this.PESO_MAXIMO_BOLSA) {
+                return Eventos.rechazo(SumideroDeEventos.Operacion.PERSONAJE_BOLSA,
+                    ResultadoOperacion.BOLSA_EXCEDE_PERSONAJE, this, bolsa.getNombre(), 0);
+            }
             if(this.bolsa != null) {
-                if(this.bolsa.getPesoMaximo() < bolsa.getPesoMaximo()) {
-                    for (Elemento elementoEnLaBolsaAntigua: this.bolsa.getElementosEnLaBolsa()) {
-                        bolsa.addElemento(elementoEnLaBolsaAntigua);
-                    }
-                    this.bolsa = bolsa;
-                } else {
-                    System.out.println("Bolsa inapropiada");
+                if(this.bolsa.getPesoMaximo() >= bolsa.getPesoMaximo()) {
+                    return Eventos.rechazo(SumideroDeEventos.Operacion.PERSONAJE_BOLSA,
+                        ResultadoOperacion.BOLSA_MAS_CHICA, this, bolsa.getNombre(), 0);
+                }
+                if(!bolsa.addElementos(this.bolsa.getElementosEnLaBolsa(), true).isEmpty()) {
+                    return Eventos.rechazo(SumideroDeEventos.Operacion.PERSONAJE_BOLSA,
+                        ResultadoOperacion.CONTENIDO_NO_ENTRA, this, bolsa.getNombre(), 0);
                 }
-            } else {
-                this.bolsa = bolsa;
             }
-        } else {
-            System.out.println("Bolsa inapropiada");
+            this.bolsa = bolsa;
+            return ResultadoOperacion.HECHO;
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.PERSONAJE_BOLSA, inicio);
         }
-
     }
 
     /**
@@ -85,19 +98,37 @@ public class Personaje {
      * Guarda el elemento que tiene en sus manos en la bolsa, siempre
      * y cuando haya lugar suficiente.  Las manos quedan vacias (null).
      * 
-     * Si las manos estan vacias (null), mostrar "No hay elemento
-     * para agregar a la bolsa"
+     * Si no se puede guardar se informa el rechazo al sumidero de
+     * eventos (Eventos); con SumideroDeEventos.CONSOLA se muestra
+     * "No hay elemento para agregar a la bolsa"
+     * Si es la bolsa la que rechaza el elemento, el rechazo lo
+     * informa la bolsa (una sola vez).
+     * 
+     * @return HECHO, MANOS_VACIAS, SIN_BOLSA o el rechazo de la bolsa
+     *         (SIN_LUGAR, NOMBRE_REPETIDO).
      */
-    public void guardarElemento() {
-        if(
-            this.objeto != null &&
-            this.getBolsa() != null &&
-            this.getBolsa().getPesoLibre() >= this.objeto.getPeso()
-        ) {
-            this.getBolsa().addElemento(this.objeto);
-            this.objeto = null;
-        } else {
-            System.out.println("No hay elemento para agregar a la bolsa");
+    public ResultadoOperacion guardarElemento() {
+        long inicio = Metricas.inicio();
+        try {
+            ResultadoOperacion resultado;
+            if(this.objeto == null) {
+                resultado = ResultadoOperacion.MANOS_VACIAS;
+            } else if(this.getBolsa() == null) {
+                resultado = ResultadoOperacion.SIN_BOLSA;
+            } else if(this.getBolsa().getPesoLibre() < this.objeto.getPeso()) {
+                resultado = ResultadoOperacion.SIN_LUGAR;
+            } else {
+                resultado = this.getBolsa().addElemento(this.objeto);
+                if(resultado.isHecho()) {
+                    this.setElemento(null);
+                }
+                // la bolsa ya informo su rechazo
+                return resultado;
+            }
+            return Eventos.rechazo(SumideroDeEventos.Operacion.PERSONAJE_GUARDAR, resultado, this,
+                this.objeto != null ? this.objeto.getNombre() : null, 0);
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.PERSONAJE_GUARDAR, inicio);
         }
     }
 
@@ -105,20 +136,27 @@ public class Personaje {
      * Toma un elemento de la bolsa (delElemento) y lo pone
      * en las manos del personaje.
      * 
-     * Si no existe el elemento se debe imprimir
+     * Si no existe el elemento se informa el rechazo al sumidero
+     * de eventos (Eventos); con SumideroDeEventos.CONSOLA se imprime
      *       "No se cuenta con el <nombre>"
      * donde <nombre> es el nombre del elemento buscado.
      * 
      * @param nombre El elemento a tomar de la bolsa.
+     * @return HECHO o ELEMENTO_INEXISTENTE.
      */
-    public void tomarElemento (String nombre) {
-        Elemento elementoTomado = this.bolsa.delElemento(nombre);
-        if(elementoTomado != null) {
-            this.objeto = elementoTomado;
-        } else {
-            System.out.println("No se cuenta con el " + nombre);
+    public ResultadoOperacion tomarElemento (String nombre) {
+        long inicio = Metricas.inicio();
+        try {
+            Elemento elementoTomado = this.bolsa.delElemento(nombre);
+            if(elementoTomado == null) {
+                return Eventos.rechazo(SumideroDeEventos.Operacion.PERSONAJE_TOMAR,
+                    ResultadoOperacion.ELEMENTO_INEXISTENTE, this, nombre, 0);
+            }
+            this.setElemento(elementoTomado);
+            return ResultadoOperacion.HECHO;
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.PERSONAJE_TOMAR, inicio);
         }
-
     }
     
     /**
@@ -142,35 +180,48 @@ public class Personaje {
     /**
      * Prepara la pocima de la receta en el caldero.
      * 
-     * Se debe agregar la receta al caldero (setReceta)
-     * y luego, tomar de la bolsa los ingredientes.
+     * Se debe agregar la receta al caldero (setReceta); si el
+     * caldero la rechaza no se toca la bolsa. Luego, se toman de
+     * la bolsa los ingredientes: una unidad de cada uno, aunque en
+     * la bolsa haya una pila (delUnidades).
      * 
      * En caso de no contar con todos los ingredientes se
-     * debe imprimir:
+     * informa el rechazo al sumidero de eventos (Eventos); con
+     * SumideroDeEventos.CONSOLA se imprime:
      *       "Faltan <n> ingredientes para <receta>"
      * donde <n> es la cantidad de ingredientes faltantes y
      * <receta> es el nombre de la receta.
      * 
      * @param receta
+     * @return HECHO, FALTAN_INGREDIENTES o el rechazo del caldero.
      */
-    public void prepararReceta (Receta receta) {
-        int elementosFaltanterCounter = 0;
+    public ResultadoOperacion prepararReceta (Receta receta) {
+        long inicio = Metricas.inicio();
+        try {
+            int elementosFaltanterCounter = 0;
 
-        this.getCaldero().setReceta(receta);
-        for (String ingredientesParaLaRecetaIterator : this.getCaldero().getIngredientesFaltantes()) {
-            Elemento ingredienteParaLaReceta = this.getBolsa().delElemento(ingredientesParaLaRecetaIterator);
+            ResultadoOperacion resultado = this.getCaldero().setReceta(receta);
+            if (!resultado.isHecho()) {
+                // el caldero ya informo su rechazo
+                return resultado;
+            }
+            for (String ingredientesParaLaRecetaIterator : this.getCaldero().getIngredientesFaltantes()) {
+                Elemento ingredienteParaLaReceta = this.getBolsa().delUnidades(ingredientesParaLaRecetaIterator, 1);
         
-            if (ingredienteParaLaReceta != null) {
-                this.getCaldero().addIngrediente(ingredienteParaLaReceta);
-            } else {
-                elementosFaltanterCounter += 1;
+                if (ingredienteParaLaReceta != null) {
+                    this.getCaldero().addIngrediente(ingredienteParaLaReceta);
+                } else {
+                    elementosFaltanterCounter += 1;
+                }
             }
-        }
 
-        if(elementosFaltanterCounter > 0) {
-            System.out.println("Faltan " + elementosFaltanterCounter + " ingredientes para " + receta.getNombre());
-        } else {
-            this.getCaldero().prepararPocima();
+            if(elementosFaltanterCounter > 0) {
+                return Eventos.rechazo(SumideroDeEventos.Operacion.PERSONAJE_PREPARAR,
+                    ResultadoOperacion.FALTAN_INGREDIENTES, this, receta.getNombre(), elementosFaltanterCounter);
+            }
+            return this.getCaldero().prepararPocima();
+        } finally {
+            Metricas.medir(SumideroDeEventos.Operacion.PERSONAJE_PREPARAR, inicio);
         }
     }
 
@@ -194,12 +245,41 @@ public class Personaje {
         this.vida = MAX_VIDA;
     }
 
+    public Integer getVidaMaxima() {
+        return MAX_VIDA;
+    }
+
+    public Integer getPesoMaximoBolsa() {
+        return PESO_MAXIMO_BOLSA;
+    }
+
     public Elemento getElemento () {
         return objeto;
     }
 
+    /**
+     * Pone el elemento en las manos del personaje (null: manos
+     * vacias). Si hay diario, el cambio queda anotado.
+     * 
+     * @param objeto El elemento a sostener.
+     */
     public void setElemento (Elemento objeto) {
         this.objeto = objeto;
+        if (this.diario != null) {
+            this.diario.anotarEnManos(this.numeroEnDiario, objeto);
+        }
+    }
+
+    /**
+     * Vincula el personaje con el diario que anota sus cambios.
+     * Lo llama Diario.registrar().
+     * 
+     * @param diario El diario.
+     * @param numero El numero del personaje dentro del diario.
+     */
+    void setDiario (Diario diario, int numero) {
+        this.diario = diario;
+        this.numeroEnDiario = numero;
     }
 
 }
@@ -0,0 +1,437 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Planifica y prepara pocimas cuyos ingredientes pueden ser, a su
+ * vez, pocimas de otras recetas del recetario ("Pocima de X" es la
+ * pocima que prepara Caldero con la receta X).
+ *
+ * planificar() arma el arbol de preparaciones: cada ingrediente se
+ * toma de la bolsa si queda alguna unidad que no uso ya otra parte
+ * del plan (de una pila se toma una unidad por uso) o, si no, se
+ * prepara con la receta que lo produce. Cada preparacion
+ * consume sus propios ingredientes, de modo que una misma pocima
+ * que se necesita dos veces se prepara dos veces.
+ *
+ * No se arma un grafo de subplanes compartidos ni se guarda el
+ * subplan de cada receta: cada uso de una pocima consume sus
+ * propios ingredientes, y cuales quedan en la bolsa depende de lo
+ * que ya tomaron las otras partes del plan, asi que el subplan de
+ * una receta no puede reusarse en otro lugar del arbol. Lo unico
+ * que se recuerda durante la planificacion son las recetas que ya
+ * se vio que no pueden prepararse, para no volver a recorrer su
+ * subarbol. Las recetas que dependen de si mismas (directa o
+ * indirectamente) no se expanden: el ingrediente queda faltante.
+ *
+ * preparar() ejecuta un plan con fork/join: las preparaciones
+ * independientes corren en paralelo, cada una en un caldero libre
+ * del grupo que le alcance, y las pocimas intermedias pasan
+ * directamente a la preparacion que las usa, sin pasar por la
+ * bolsa.
+ *
+ * El recetario no cambia despues de construido: el planificador
+ * puede usarse desde varios hilos.
+ */
+public class PlanificadorDePocimas {
+    // productoras -> nombre de la pocima -> receta que la prepara
+    private final Map<String, Receta> productoras;
+
+    /**
+     * Al deshacer una preparacion fallida, algunos ingredientes ya
+     * no entraron en la bolsa.
+     */
+    public static class IngredientesSinGuardar extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Elemento> elementos;
+
+        IngredientesSinGuardar (String bolsa, List<Elemento> elementos) {
+            super(bolsa + ": no se pudieron devolver " + elementos);
+            this.elementos = elementos;
+        }
+
+        /**
+         * @return Los ingredientes y pocimas que quedaron fuera de la bolsa.
+         */
+        public List<Elemento> getElementos () {
+            return this.elementos;
+        }
+    }
+
+    /**
+     * Una preparacion del plan: la receta, los ingredientes que se
+     * toman de la bolsa, las preparaciones de las que salen los
+     * demas y los ingredientes que no se consiguen.
+     */
+    public static class Paso {
+        private final Receta receta;
+        private final List<String> deLaBolsa;
+        private final List<Paso> previos;
+        private final List<String> faltantes;
+        // completo -> ni este paso ni sus previos tienen faltantes
+        private boolean completo;
+        // porCiclo -> algun faltante se debe a una receta del camino
+        private boolean porCiclo;
+
+        Paso (Receta receta) {
+            this.receta = receta;
+            this.deLaBolsa = new ArrayList<String>();
+            this.previos = new ArrayList<Paso>();
+            this.faltantes = new ArrayList<String>();
+        }
+
+        public Receta getReceta() {
+            return receta;
+        }
+
+        public List<String> getDeLaBolsa() {
+            return Collections.unmodifiableList(deLaBolsa);
+        }
+
+        public List<Paso> getPrevios() {
+            return Collections.unmodifiableList(previos);
+        }
+
+        public List<String> getFaltantes() {
+            return Collections.unmodifiableList(faltantes);
+        }
+
+        @Override
+        public String toString() {
+            return receta.getNombre();
+        }
+    }
+
+    /**
+     * Plan para preparar una receta.
+     */
+    public static class Plan {
+        private final Paso raiz;
+        private final List<Paso> orden;
+        private final List<String> faltantes;
+
+        Plan (Paso raiz) {
+            this.raiz = raiz;
+            this.orden = new ArrayList<Paso>();
+            this.faltantes = new ArrayList<String>();
+            this.recorrer(raiz);
+        }
+
+        private void recorrer (Paso paso) {
+            for (Paso previo : paso.previos) {
+                this.recorrer(previo);
+            }
+            this.faltantes.addAll(paso.faltantes);
+            this.orden.add(paso);
+        }
+
+        /**
+         * @return true si no falta ningun ingrediente.
+         */
+        public boolean isPosible() {
+            return faltantes.isEmpty();
+        }
+
+        /**
+         * @return La preparacion final.
+         */
+        public Paso getRaiz() {
+            return raiz;
+        }
+
+        /**
+         * Devuelve las preparaciones en un orden en que pueden
+         * hacerse de a una: cada una despues de sus previas.
+         *
+         * @return Las preparaciones, la final en ultimo lugar.
+         */
+        public List<Paso> getOrden() {
+            return Collections.unmodifiableList(orden);
+        }
+
+        /**
+         * @return Los ingredientes que no estan en la bolsa ni pueden prepararse.
+         */
+        public List<String> getFaltantes() {
+            return Collections.unmodifiableList(faltantes);
+        }
+
+        @Override
+        public String toString() {
+            return orden + (faltantes.isEmpty() ? "" : " faltan " + faltantes);
+        }
+    }
+
+    /**
+     * Crea el planificador. Las recetas sin cerrar no pueden usarse
+     * y se ignoran; si dos recetas tienen el mismo nombre se usa la
+     * primera.
+     *
+     * @param recetario Las recetas disponibles.
+     */
+    public PlanificadorDePocimas (Collection<Receta> recetario) {
+        this.productoras = new HashMap<String, Receta>();
+        for (Receta receta : recetario) {
+            if (receta.isCerrada()) {
+                this.productoras.putIfAbsent(Caldero.nombreDePocima(receta.getNombre()), receta);
+            }
+        }
+    }
+
+    /**
+     * Arma el plan para preparar la receta con el contenido de la
+     * bolsa. No modifica la bolsa.
+     *
+     * @param objetivo La receta a preparar.
+     * @param bolsa La bolsa de la que salen los ingredientes.
+     * @return El plan (ver Plan.isPosible()).
+     */
+    public Plan planificar (Receta objetivo, Bolsa bolsa) {
+        Planificacion planificacion = new Planificacion(bolsa);
+        return new Plan(planificacion.resolver(objetivo));
+    }
+
+    /**
+     * Estado de una planificacion: los nombres de la bolsa ya
+     * asignados, las recetas del camino actual y las que no pueden
+     * prepararse.
+     */
+    private class Planificacion {
+        private final Bolsa bolsa;
+        // usados -> nombre -> unidades de la bolsa ya asignadas
+        private final Map<String, Integer> usados;
+        private final Set<Receta> enCamino;
+        private final Set<Receta> imposibles;
+
+        Planificacion (Bolsa bolsa) {
+            this.bolsa = bolsa;
+            this.usados = new HashMap<String, Integer>();
+            this.enCamino = new HashSet<Receta>();
+            this.imposibles = new HashSet<Receta>();
+        }
+
+        Paso resolver (Receta receta) {
+            Paso paso = new Paso(receta);
+            this.enCamino.add(receta);
+            paso.completo = true;
+            for (String ingrediente : receta.getIngredientes()) {
+                int usadas = this.usados.getOrDefault(ingrediente, 0);
+                if (usadas < this.bolsa.getCantidad(ingrediente)) {
+                    this.usados.put(ingrediente, usadas + 1);
+                    paso.deLaBolsa.add(ingrediente);
+                    continue;
+                }
+                Receta productora = productoras.get(ingrediente);
+                if (productora == null || this.imposibles.contains(productora)) {
+                    paso.faltantes.add(ingrediente);
+                    paso.completo = false;
+                } else if (this.enCamino.contains(productora)) {
+                    paso.faltantes.add(ingrediente);
+                    paso.completo = false;
+                    paso.porCiclo = true;
+                } else {
+                    Paso previo = this.resolver(productora);
+                    paso.previos.add(previo);
+                    paso.completo &= previo.completo;
+                    paso.porCiclo |= previo.porCiclo;
+                }
+            }
+            this.enCamino.remove(receta);
+            // un fallo por ciclo depende del camino: no se recuerda
+            if (!paso.completo && !paso.porCiclo) {
+                this.imposibles.add(receta);
+            }
+            return paso;
+        }
+    }
+
+    /**
+     * Prepara un plan posible. Las preparaciones independientes se
+     * hacen en paralelo en el ForkJoinPool comun, cada una en el
+     * primer caldero libre que le alcance; si no hay, espera.
+     *
+     * Si algo falla (por ejemplo, otro hilo saco un ingrediente de
+     * la bolsa mientras tanto) los ingredientes sacados de la bolsa
+     * para las preparaciones que no se hicieron vuelven a ella, y
+     * las pocimas intermedias que si se prepararon tambien quedan
+     * en la bolsa. Si para entonces alguno ya no entra (otro hilo
+     * la lleno), se lanza IngredientesSinGuardar con lo que quedo
+     * afuera.
+     *
+     * @param plan El plan, armado con planificar().
+     * @param bolsa La bolsa de la que salen los ingredientes.
+     * @param calderos Los calderos que pueden usarse (vacios).
+     * @return La pocima, o null si el plan no es posible, alguna
+     *         receta no entra en ningun caldero o falto algo.
+     * @throws IngredientesSinGuardar Si algo de lo sacado no pudo
+     *         volver a la bolsa.
+     */
+    public Elemento preparar (Plan plan, Bolsa bolsa, Collection<Caldero> calderos) {
+        if (!plan.isPosible()) {
+            return null;
+        }
+        int capacidad = 0;
+        for (Caldero caldero : calderos) {
+            capacidad = Math.max(capacidad, caldero.getCapacidad());
+        }
+        for (Paso paso : plan.getOrden()) {
+            if (paso.receta.getCantidadIngredientes() > capacidad) {
+                return null;
+            }
+        }
+        List<Elemento> sinGuardar = Collections.synchronizedList(new ArrayList<Elemento>());
+        Elemento pocima = ForkJoinPool.commonPool().invoke(
+            new Preparacion(plan.getRaiz(), bolsa, new Calderos(calderos), sinGuardar));
+        if (!sinGuardar.isEmpty()) {
+            throw new IngredientesSinGuardar(bolsa.getNombre(), new ArrayList<Elemento>(sinGuardar));
+        }
+        return pocima;
+    }
+
+    /**
+     * Una preparacion del plan: primero las previas (en paralelo),
+     * despues la propia.
+     */
+    private static class Preparacion extends RecursiveTask<Elemento> {
+        private static final long serialVersionUID = 1L;
+
+        private final Paso paso;
+        private final Bolsa bolsa;
+        private final Calderos calderos;
+        // sinGuardar -> lo que al deshacer no volvio a la bolsa
+        private final List<Elemento> sinGuardar;
+
+        Preparacion (Paso paso, Bolsa bolsa, Calderos calderos, List<Elemento> sinGuardar) {
+            this.paso = paso;
+            this.bolsa = bolsa;
+            this.calderos = calderos;
+            this.sinGuardar = sinGuardar;
+        }
+
+        @Override
+        protected Elemento compute () {
+            List<Preparacion> previas = new ArrayList<Preparacion>(this.paso.previos.size());
+            for (Paso previo : this.paso.previos) {
+                previas.add(new Preparacion(previo, this.bolsa, this.calderos, this.sinGuardar));
+            }
+            invokeAll(previas);
+
+            List<Elemento> ingredientes = new ArrayList<Elemento>(this.paso.receta.getCantidadIngredientes());
+            boolean completo = true;
+            for (Preparacion previa : previas) {
+                Elemento pocima = previa.join();
+                if (pocima != null) {
+                    ingredientes.add(pocima);
+                } else {
+                    completo = false;
+                }
+            }
+            if (completo) {
+                for (String nombre : this.paso.deLaBolsa) {
+                    Elemento elemento = this.bolsa.delUnidades(nombre, 1);
+                    if (elemento == null) {
+                        completo = false;
+                        break;
+                    }
+                    ingredientes.add(elemento);
+                }
+            }
+            if (!completo) {
+                this.sinGuardar.addAll(this.bolsa.addUnidades(ingredientes));
+                return null;
+            }
+
+            Caldero caldero = this.calderos.tomar(this.paso.receta.getCantidadIngredientes());
+            try {
+                caldero.setReceta(this.paso.receta);
+                for (Elemento ingrediente : ingredientes) {
+                    caldero.addIngrediente(ingrediente);
+                }
+                caldero.prepararPocima();
+                return caldero.getPocima();
+            } finally {
+                this.calderos.devolver(caldero);
+            }
+        }
+    }
+
+    /**
+     * Calderos libres del grupo. Quien no encuentra uno que le
+     * alcance espera sin ocupar un hilo del ForkJoinPool
+     * (managedBlock compensa con otro hilo).
+     */
+    private static class Calderos {
+        private final List<Caldero> libres;
+
+        Calderos (Collection<Caldero> calderos) {
+            this.libres = new ArrayList<Caldero>(calderos);
+        }
+
+        Caldero tomar (int ingredientes) {
+            Espera espera = new Espera(this, ingredientes);
+            boolean interrumpido = false;
+            while (espera.caldero == null) {
+                try {
+                    ForkJoinPool.managedBlock(espera);
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                }
+            }
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+            return espera.caldero;
+        }
+
+        synchronized Caldero intentarTomar (int ingredientes) {
+            for (int c = 0; c < this.libres.size(); c++) {
+                if (this.libres.get(c).getCapacidad() >= ingredientes) {
+                    return this.libres.remove(c);
+                }
+            }
+            return null;
+        }
+
+        synchronized void devolver (Caldero caldero) {
+            this.libres.add(caldero);
+            this.notifyAll();
+        }
+    }
+
+    private static class Espera implements ForkJoinPool.ManagedBlocker {
+        private final Calderos calderos;
+        private final int ingredientes;
+        private Caldero caldero;
+
+        Espera (Calderos calderos, int ingredientes) {
+            this.calderos = calderos;
+            this.ingredientes = ingredientes;
+        }
+
+        @Override
+        public boolean isReleasable () {
+            if (this.caldero == null) {
+                this.caldero = this.calderos.intentarTomar(this.ingredientes);
+            }
+            return this.caldero != null;
+        }
+
+        @Override
+        public boolean block () throws InterruptedException {
+            synchronized (this.calderos) {
+                while ((this.caldero = this.calderos.intentarTomar(this.ingredientes)) == null) {
+                    this.calderos.wait();
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Servicio que prepara muchos pedidos (personaje, receta) en
+ * paralelo sobre un grupo de calderos compartidos.
+ *
+ * Los pedidos que toman ingredientes de la misma bolsa (aunque
+ * sean de personajes distintos que la comparten) se preparan en
+ * orden y uno por vez; los de bolsas distintas se reparten entre
+ * los hilos. Cada
+ * preparacion toma un caldero libre del grupo y lo devuelve al
+ * terminar.
+ *
+ * A diferencia de Personaje.prepararReceta, antes de sacar algo de
+ * la bolsa se verifica que esten todos los ingredientes: si falta
+ * alguno la bolsa queda como estaba. De cada ingrediente se toma
+ * una unidad (delUnidades), aunque en la bolsa haya una pila. Si
+ * la bolsa es compartida y otro hilo se lleva un ingrediente entre
+ * la verificacion y la toma, lo ya tomado vuelve a la bolsa antes
+ * de tocar el caldero. Tampoco se imprime nada: cada pedido tiene
+ * su Resultado.
+ */
+public class PreparacionEnLote implements AutoCloseable {
+    private final BlockingQueue<Caldero> calderos;
+    private final int capacidad;
+    private final ExecutorService hilos;
+
+    /**
+     * Un pedido de preparacion.
+     */
+    public static class Pedido {
+        private final Personaje personaje;
+        private final Receta receta;
+
+        public Pedido (Personaje personaje, Receta receta) {
+            this.personaje = personaje;
+            this.receta = receta;
+        }
+
+        public Personaje getPersonaje() {
+            return personaje;
+        }
+
+        public Receta getReceta() {
+            return receta;
+        }
+    }
+
+    /**
+     * Estado final de un pedido.
+     */
+    public enum Estado {
+        // se preparo la pocima
+        PREPARADA,
+        // la receta no esta cerrada o supera la capacidad de los calderos
+        RECETA_RECHAZADA,
+        // el personaje no tiene bolsa
+        SIN_BOLSA,
+        // faltan ingredientes en la bolsa
+        FALTAN_INGREDIENTES
+    }
+
+    /**
+     * Resultado de un pedido: su estado, la pocima preparada (o
+     * null), la cantidad de ingredientes faltantes y los que se
+     * sacaron de la bolsa y ya no pudieron volver a ella.
+     */
+    public static class Resultado {
+        private final Pedido pedido;
+        private final Estado estado;
+        private final Elemento pocima;
+        private final int faltantes;
+        private final List<Elemento> sinGuardar;
+
+        Resultado (Pedido pedido, Estado estado, Elemento pocima, int faltantes) {
+            this(pedido, estado, pocima, faltantes, Collections.<Elemento>emptyList());
+        }
+
+        Resultado (Pedido pedido, Estado estado, Elemento pocima, int faltantes, List<Elemento> sinGuardar) {
+            this.pedido = pedido;
+            this.estado = estado;
+            this.pocima = pocima;
+            this.faltantes = faltantes;
+            this.sinGuardar = sinGuardar;
+        }
+
+        public Pedido getPedido() {
+            return pedido;
+        }
+
+        public Estado getEstado() {
+            return estado;
+        }
+
+        public Elemento getPocima() {
+            return pocima;
+        }
+
+        public int getFaltantes() {
+            return faltantes;
+        }
+
+        /**
+         * @return Los ingredientes tomados que no entraron de nuevo
+         *         en la bolsa al deshacer (lista vacia si no hubo).
+         */
+        public List<Elemento> getSinGuardar() {
+            return sinGuardar;
+        }
+
+        @Override
+        public String toString() {
+            if (estado == Estado.PREPARADA) {
+                return pocima.getNombre();
+            } else if (estado == Estado.FALTAN_INGREDIENTES) {
+                return "Faltan " + faltantes + " ingredientes para " + pedido.getReceta().getNombre();
+            }
+            return estado.toString();
+        }
+    }
+
+    /**
+     * Crea el servicio con un hilo por procesador.
+     *
+     * @param cantidadCalderos La cantidad de calderos del grupo.
+     * @param capacidad La capacidad de cada caldero.
+     */
+    public PreparacionEnLote (int cantidadCalderos, int capacidad) {
+        this(cantidadCalderos, capacidad, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crea el servicio.
+     *
+     * @param cantidadCalderos La cantidad de calderos del grupo.
+     * @param capacidad La capacidad de cada caldero.
+     * @param cantidadHilos La cantidad de hilos que preparan.
+     */
+    public PreparacionEnLote (int cantidadCalderos, int capacidad, int cantidadHilos) {
+        this.capacidad = capacidad;
+        this.calderos = new ArrayBlockingQueue<Caldero>(cantidadCalderos);
+        for (int c = 0; c < cantidadCalderos; c++) {
+            this.calderos.add(new Caldero("Caldero " + c, capacidad));
+        }
+        this.hilos = Executors.newFixedThreadPool(Math.min(cantidadHilos, cantidadCalderos));
+    }
+
+    /**
+     * Prepara todos los pedidos y espera a que terminen.
+     *
+     * @param pedidos Los pedidos a preparar.
+     * @return Un resultado por pedido, en el mismo orden.
+     */
+    public List<Resultado> preparar (List<Pedido> pedidos) {
+        // porBolsa -> bolsa de la que salen los ingredientes -> indices de sus pedidos
+        Map<Bolsa, List<Integer>> porBolsa = new IdentityHashMap<Bolsa, List<Integer>>();
+        List<Integer> sinBolsa = new ArrayList<Integer>();
+        for (int p = 0; p < pedidos.size(); p++) {
+            Bolsa bolsa = pedidos.get(p).getPersonaje().getBolsa();
+            if (bolsa == null) {
+                sinBolsa.add(p);
+            } else {
+                porBolsa.computeIfAbsent(bolsa, k -> new ArrayList<Integer>()).add(p);
+            }
+        }
+        List<List<Integer>> grupos = new ArrayList<List<Integer>>(porBolsa.values());
+        if (!sinBolsa.isEmpty()) {
+            grupos.add(sinBolsa);
+        }
+
+        Resultado[] resultados = new Resultado[pedidos.size()];
+        List<Future<?>> tareas = new ArrayList<Future<?>>(grupos.size());
+        for (List<Integer> indices : grupos) {
+            tareas.add(this.hilos.submit(() -> {
+                for (int p : indices) {
+                    resultados[p] = this.prepararPedido(pedidos.get(p));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            try {
+                tarea.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        List<Resultado> lista = new ArrayList<Resultado>(resultados.length);
+        for (Resultado resultado : resultados) {
+            lista.add(resultado);
+        }
+        return lista;
+    }
+
+    /**
+     * Prepara un pedido en un caldero libre del grupo.
+     */
+    private Resultado prepararPedido (Pedido pedido) throws InterruptedException {
+        Receta receta = pedido.getReceta();
+        Bolsa bolsa = pedido.getPersonaje().getBolsa();
+        if (!receta.isCerrada() || receta.getCantidadIngredientes() > this.capacidad) {
+            return new Resultado(pedido, Estado.RECETA_RECHAZADA, null, 0);
+        }
+        if (bolsa == null) {
+            return new Resultado(pedido, Estado.SIN_BOLSA, null, 0);
+        }
+
+        Caldero caldero = this.calderos.take();
+        try {
+            caldero.setReceta(receta);
+            List<String> ingredientes = caldero.getIngredientesFaltantes();
+            int faltantes = 0;
+            for (String ingrediente : ingredientes) {
+                if (!bolsa.contieneElemento(ingrediente)) {
+                    faltantes++;
+                }
+            }
+            if (faltantes > 0) {
+                caldero.cancelarReceta();
+                return new Resultado(pedido, Estado.FALTAN_INGREDIENTES, null, faltantes);
+            }
+            List<Elemento> tomados = new ArrayList<Elemento>(ingredientes.size());
+            for (String ingrediente : ingredientes) {
+                if (faltantes > 0) {
+                    // ya no se prepara: solo se cuentan los que faltan
+                    if (!bolsa.contieneElemento(ingrediente)) {
+                        faltantes++;
+                    }
+                    continue;
+                }
+                Elemento elemento = bolsa.delUnidades(ingrediente, 1);
+                if (elemento == null) {
+                    faltantes++;
+                } else {
+                    tomados.add(elemento);
+                }
+            }
+            if (faltantes > 0) {
+                // otro hilo cambio la bolsa despues de verificar
+                caldero.cancelarReceta();
+                return new Resultado(pedido, Estado.FALTAN_INGREDIENTES, null, faltantes,
+                    bolsa.addUnidades(tomados));
+            }
+            for (Elemento elemento : tomados) {
+                caldero.addIngrediente(elemento);
+            }
+            caldero.prepararPocima();
+            return new Resultado(pedido, Estado.PREPARADA, caldero.getPocima(), 0);
+        } finally {
+            this.calderos.put(caldero);
+        }
+    }
+
+    /**
+     * Detiene los hilos del servicio.
+     */
+    @Override
+    public void close () {
+        this.hilos.shutdown();
+    }
+}
@@ -1,4 +1,3 @@
-import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -20,6 +19,8 @@ public class Receta {
     private Boolean cerrada;
     private Set<String> ingredientes;
     private String nombre;
+    // compilada -> forma inmutable, se genera al cerrar la receta
+    private volatile RecetaCompilada compilada;
     
     /**
      * El constructor debe inicializar el objeto con un nombre
@@ -71,18 +72,36 @@ public class Receta {
      * Cambia el estado de la receta cuando tenga al menos dos (2) ingredientes.
      * En caso contrario, no hace nada.
      * 
+     * Al cerrarla se genera su forma compilada (RecetaCompilada) y
+     * los ingredientes pasan a leerse desde ella.
+     * 
      * No puede revertirse.
      * 
      * @return true si se pudo cerrar la receta, false en caso contrario
      */
     public Boolean cerrarReceta () {
+        if (this.cerrada) {
+            return true;
+        }
         if (this.getCantidadIngredientes() >= 2) {
+            this.compilada = new RecetaCompilada(this.nombre, this.ingredientes);
+            this.ingredientes = this.compilada.getIngredientes();
             this.cerrada = true;
             return true;
         }
         return false;
     }
 
+    /**
+     * Devuelve la forma inmutable de la receta, que puede
+     * compartirse entre calderos e hilos.
+     * 
+     * @return La receta compilada, o null si la receta no esta cerrada.
+     */
+    public RecetaCompilada getCompilada () {
+        return compilada;
+    }
+
 
     /**
      * Genera una cadena con la informacion sobre la receta.
@@ -108,22 +127,34 @@ public class Receta {
      */
     @Override
     public String toString() {
-        Iterator<String> ingredientesIterator = this.getIngredientes().iterator();
-        String recetaAsStringToPrint = "";
+        RecetaCompilada compilada = this.compilada;
+        if (compilada != null) {
+            return compilada.toString();
+        }
+        return generarTexto(this.getNombre(), this.cerrada, this.getIngredientes());
+    }
+
+    /**
+     * Arma el texto de una receta con el formato de toString.
+     * 
+     * @param nombre El nombre de la receta.
+     * @param cerrada El estado de la receta.
+     * @param ingredientes Los ingredientes, en orden.
+     * @return El texto de la receta.
+     */
+    static String generarTexto(String nombre, boolean cerrada, Iterable<String> ingredientes) {
+        StringBuilder recetaAsStringToPrint = new StringBuilder();
 
         //ADDING THE HEADER OF THE RECETA
-        if(this.cerrada) {
-            recetaAsStringToPrint = recetaAsStringToPrint + "Receta " + this.getNombre() + " (completa)\nIngredientes:\n";
-        } else {
-            recetaAsStringToPrint = recetaAsStringToPrint + "Receta " + this.getNombre() + " (incompleta)\nIngredientes:\n";
-        }
-        
+        recetaAsStringToPrint.append("Receta ").append(nombre);
+        recetaAsStringToPrint.append(cerrada ? " (completa)\nIngredientes:\n" : " (incompleta)\nIngredientes:\n");
+
         //ADDING THE BODY OF THE RECETA
-        while(ingredientesIterator.hasNext()) {
-            recetaAsStringToPrint = recetaAsStringToPrint + ingredientesIterator.next() + "\n";
+        for (String ingrediente : ingredientes) {
+            recetaAsStringToPrint.append(ingrediente).append('\n');
         }
 
-        return recetaAsStringToPrint;
+        return recetaAsStringToPrint.toString();
     }
 
     /**
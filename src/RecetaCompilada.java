@@ -0,0 +1,207 @@
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Forma inmutable de una receta cerrada.
+ *
+ * Guarda los ingredientes en un arreglo ordenado y calcula una
+ * unica vez el hash y el texto de la receta. Todos sus campos son
+ * finales, por lo que una misma instancia puede compartirse entre
+ * muchos calderos y leerse desde varios hilos sin sincronizar.
+ *
+ * Cada ingrediente se registra en el CatalogoDeIngredientes y se
+ * arma una tabla de direccionamiento abierto (identificador ->
+ * posicion) sobre arreglos de int, para ubicar un ingrediente sin
+ * comparar cadenas.
+ */
+public final class RecetaCompilada {
+    private final String nombre;
+    private final String[] ingredientes;
+    private final int[] ids;
+    // tablaIds / tablaPosiciones -> tabla hash de identificador a posicion
+    private final int[] tablaIds;
+    private final int[] tablaPosiciones;
+    private final Set<String> conjunto;
+    private final int hash;
+    private final String texto;
+
+    /**
+     * Construye la forma compilada a partir de los ingredientes.
+     *
+     * @param nombre El nombre de la receta.
+     * @param ingredientes Los ingredientes (se ordenan y se copian).
+     */
+    public RecetaCompilada (String nombre, Collection<String> ingredientes) {
+        this.nombre = nombre;
+        this.ingredientes = ingredientes.toArray(new String[0]);
+        Arrays.sort(this.ingredientes);
+        this.ids = new int[this.ingredientes.length];
+        int capacidadTabla = Integer.highestOneBit(Math.max(2, this.ingredientes.length) * 2 - 1) * 2;
+        this.tablaIds = new int[capacidadTabla];
+        this.tablaPosiciones = new int[capacidadTabla];
+        Arrays.fill(this.tablaIds, CatalogoDeIngredientes.SIN_ID);
+        for (int posicion = 0; posicion < this.ingredientes.length; posicion++) {
+            int id = CatalogoDeIngredientes.idDe(this.ingredientes[posicion]);
+            this.ids[posicion] = id;
+            int casilla = casillaInicial(id);
+            while (this.tablaIds[casilla] != CatalogoDeIngredientes.SIN_ID) {
+                casilla = (casilla + 1) & (capacidadTabla - 1);
+            }
+            this.tablaIds[casilla] = id;
+            this.tablaPosiciones[casilla] = posicion;
+        }
+        this.conjunto = new Ingredientes();
+        this.hash = 31 * nombre.hashCode() + Arrays.hashCode(this.ingredientes);
+        this.texto = Receta.generarTexto(nombre, true, Arrays.asList(this.ingredientes));
+    }
+
+    public String getNombre () {
+        return nombre;
+    }
+
+    /**
+     * Devuelve la cantidad de ingredientes de la receta.
+     *
+     * @return La cantidad de ingredientes.
+     */
+    public int getCantidadIngredientes () {
+        return ingredientes.length;
+    }
+
+    /**
+     * Devuelve el ingrediente en la posicion dada (orden por nombre).
+     *
+     * @param posicion La posicion del ingrediente.
+     * @return El nombre del ingrediente.
+     */
+    public String getIngrediente (int posicion) {
+        return ingredientes[posicion];
+    }
+
+    /**
+     * Devuelve el identificador de catalogo del ingrediente en la
+     * posicion dada.
+     *
+     * @param posicion La posicion del ingrediente.
+     * @return El identificador del ingrediente.
+     */
+    public int getId (int posicion) {
+        return ids[posicion];
+    }
+
+    /**
+     * Devuelve la posicion de un ingrediente dentro de la receta.
+     *
+     * @param id El identificador de catalogo del ingrediente.
+     * @return La posicion, o -1 si no es parte de la receta.
+     */
+    public int posicionDe (int id) {
+        int casilla = casillaInicial(id);
+        while (tablaIds[casilla] != CatalogoDeIngredientes.SIN_ID) {
+            if (tablaIds[casilla] == id) {
+                return tablaPosiciones[casilla];
+            }
+            casilla = (casilla + 1) & (tablaIds.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Devuelve la posicion de un ingrediente dentro de la receta.
+     *
+     * @param ingrediente El nombre del ingrediente.
+     * @return La posicion, o -1 si no es parte de la receta.
+     */
+    public int posicionDe (String ingrediente) {
+        int id = CatalogoDeIngredientes.buscarId(ingrediente);
+        return id == CatalogoDeIngredientes.SIN_ID ? -1 : posicionDe(id);
+    }
+
+    /**
+     * Devuelve los ingredientes como un conjunto de solo lectura,
+     * ordenado por nombre y respaldado por el arreglo.
+     *
+     * @return Los ingredientes de la receta.
+     */
+    public Set<String> getIngredientes () {
+        return conjunto;
+    }
+
+    /**
+     * Verifica si la receta lleva el ingrediente.
+     *
+     * @param ingrediente El nombre del ingrediente.
+     * @return true si el ingrediente es parte de la receta.
+     */
+    public boolean contieneIngrediente (String ingrediente) {
+        return posicionDe(ingrediente) >= 0;
+    }
+
+    private int casillaInicial (int id) {
+        int mezcla = id * 0x9E3779B9;
+        return (mezcla ^ (mezcla >>> 16)) & (tablaIds.length - 1);
+    }
+
+    @Override
+    public boolean equals (Object otro) {
+        if (this == otro) {
+            return true;
+        }
+        if (!(otro instanceof RecetaCompilada)) {
+            return false;
+        }
+        RecetaCompilada receta = (RecetaCompilada) otro;
+        return hash == receta.hash &&
+            nombre.equals(receta.nombre) &&
+            Arrays.equals(ingredientes, receta.ingredientes);
+    }
+
+    @Override
+    public int hashCode () {
+        return hash;
+    }
+
+    @Override
+    public String toString () {
+        return texto;
+    }
+
+    /**
+     * Vista de conjunto sobre el arreglo ordenado de ingredientes.
+     */
+    private final class Ingredientes extends AbstractSet<String> {
+        @Override
+        public int size () {
+            return ingredientes.length;
+        }
+
+        @Override
+        public boolean contains (Object o) {
+            return o instanceof String && contieneIngrediente((String) o);
+        }
+
+        @Override
+        public Iterator<String> iterator () {
+            return new Iterator<String>() {
+                private int siguiente = 0;
+
+                @Override
+                public boolean hasNext () {
+                    return siguiente < ingredientes.length;
+                }
+
+                @Override
+                public String next () {
+                    if (siguiente >= ingredientes.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return ingredientes[siguiente++];
+                }
+            };
+        }
+    }
+}
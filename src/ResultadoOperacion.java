@@ -0,0 +1,39 @@
+/**
+ * Resultado de las operaciones que pueden rechazarse: HECHO o el
+ * motivo del rechazo.
+ */
+public enum ResultadoOperacion {
+    // la operacion se realizo
+    HECHO,
+    // ya hay un elemento con el mismo nombre en la bolsa
+    NOMBRE_REPETIDO,
+    // el peso excede el peso libre de la bolsa
+    SIN_LUGAR,
+    // la receta tiene mas ingredientes que la capacidad del caldero
+    RECETA_EXCEDE_CAPACIDAD,
+    // el caldero ya tiene una receta o una pocima
+    CALDERO_OCUPADO,
+    // faltan ingredientes para preparar la pocima
+    FALTAN_INGREDIENTES,
+    // el peso maximo de la bolsa supera el que soporta el personaje
+    BOLSA_EXCEDE_PERSONAJE,
+    // la bolsa nueva no es mayor que la actual
+    BOLSA_MAS_CHICA,
+    // el contenido de la bolsa actual no entra en la nueva
+    CONTENIDO_NO_ENTRA,
+    // el personaje no tiene nada en las manos
+    MANOS_VACIAS,
+    // el personaje no tiene bolsa
+    SIN_BOLSA,
+    // no hay un elemento con ese nombre en la bolsa
+    ELEMENTO_INEXISTENTE;
+
+    /**
+     * Indica si la operacion se realizo.
+     *
+     * @return true si es HECHO.
+     */
+    public boolean isHecho () {
+        return this == HECHO;
+    }
+}
@@ -0,0 +1,301 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Simulador de carga sin interfaz: crea muchos personajes, cada uno
+ * con su bolsa y su caldero, y los hace operar a la vez durante un
+ * tiempo con una mezcla aleatoria de guardarElemento,
+ * tomarElemento, setBolsa (bolsas cada vez mas grandes) y
+ * prepararReceta.
+ *
+ * Cada personaje es una tarea que ejecuta un lote de operaciones y
+ * vuelve a encolarse hasta que se cumple el tiempo, de modo que
+ * todos los personajes avanzan aunque haya menos hilos que
+ * personajes. Si la JVM tiene hilos virtuales (Java 21 o
+ * posterior) se usa un hilo virtual por tarea; si no, un grupo
+ * fijo de hilos.
+ *
+ * Al terminar se informan las operaciones por segundo, los
+ * percentiles de latencia (histograma por potencias de dos) y los
+ * bytes asignados por segundo (solo con hilos de plataforma, que
+ * es donde la JVM los informa).
+ *
+ * Los resultados se pueden repetir: cada personaje usa su propio
+ * generador, derivado de la semilla.
+ */
+public class Simulador {
+    private static final int LOTE = 64;
+    private static final int PESO_MAXIMO = 200;
+    private static final int[] BOLSAS = {20, 50, 100, PESO_MAXIMO};
+    private static final int NOMBRES = 40;
+
+    private final int cantidadPersonajes;
+    private final long duracionMs;
+    private final int[] mezcla;
+    private final long semilla;
+    private final int hilos;
+    private final String[] nombres;
+    private final List<Receta> recetario;
+
+    /**
+     * Resultado de una simulacion.
+     */
+    public static class Reporte {
+        private final long operaciones;
+        private final long rechazos;
+        private final long nanos;
+        private final long[] latencias;
+        private final long bytes;
+        private final String modo;
+
+        Reporte (long operaciones, long rechazos, long nanos, long[] latencias, long bytes, String modo) {
+            this.operaciones = operaciones;
+            this.rechazos = rechazos;
+            this.nanos = nanos;
+            this.latencias = latencias;
+            this.bytes = bytes;
+            this.modo = modo;
+        }
+
+        public long getOperaciones() {
+            return operaciones;
+        }
+
+        public long getRechazos() {
+            return rechazos;
+        }
+
+        public double getOperacionesPorSegundo() {
+            return operaciones * 1e9 / nanos;
+        }
+
+        /**
+         * Devuelve el percentil aproximado de latencia.
+         *
+         * @param percentil El percentil, entre 0 y 100.
+         * @return La latencia en nanosegundos (limite superior de la celda).
+         */
+        public long getPercentil(double percentil) {
+            return Metricas.percentil(latencias, percentil);
+        }
+
+        /**
+         * Devuelve los bytes asignados por segundo, o -1 si la JVM
+         * no los informa.
+         *
+         * @return Los bytes asignados por segundo.
+         */
+        public double getBytesPorSegundo() {
+            return bytes < 0 ? -1 : bytes * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "%s: %d operaciones (%d rechazadas) en %.1f s, %.0f ops/s, latencia p50 %d ns, "
+                    + "p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns, %s",
+                modo, operaciones, rechazos, nanos / 1e9, getOperacionesPorSegundo(),
+                getPercentil(50), getPercentil(90), getPercentil(99), getPercentil(99.9), getPercentil(100),
+                bytes < 0 ? "asignacion no disponible" : String.format("%.1f MB/s asignados", getBytesPorSegundo() / 1e6));
+        }
+    }
+
+    /**
+     * Crea el simulador.
+     *
+     * @param cantidadPersonajes La cantidad de personajes.
+     * @param duracionMs Cuanto dura la simulacion.
+     * @param mezcla Pesos relativos de guardarElemento, tomarElemento,
+     *        setBolsa y prepararReceta (cuatro valores).
+     * @param semilla La semilla de los generadores aleatorios.
+     * @param hilos Los hilos de plataforma a usar si no hay hilos
+     *        virtuales (0: uno por procesador).
+     */
+    public Simulador (int cantidadPersonajes, long duracionMs, int[] mezcla, long semilla, int hilos) {
+        if (mezcla.length != 4) {
+            throw new IllegalArgumentException("La mezcla debe tener cuatro pesos");
+        }
+        this.cantidadPersonajes = cantidadPersonajes;
+        this.duracionMs = duracionMs;
+        this.mezcla = new int[4];
+        for (int o = 0; o < 4; o++) {
+            this.mezcla[o] = (o > 0 ? this.mezcla[o - 1] : 0) + mezcla[o];
+        }
+        if (this.mezcla[3] <= 0) {
+            throw new IllegalArgumentException("La mezcla no tiene ninguna operacion");
+        }
+        this.semilla = semilla;
+        this.hilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        this.nombres = Benchmark.nombres(NOMBRES);
+        this.recetario = new ArrayList<Receta>();
+        SplittableRandom azar = new SplittableRandom(semilla);
+        for (int r = 0; r < 8; r++) {
+            Receta receta = new Receta("Receta" + r);
+            for (int i = 0; i < 3; i++) {
+                receta.addIngrediente(this.nombres[azar.nextInt(NOMBRES)]);
+            }
+            receta.cerrarReceta();
+            this.recetario.add(receta);
+        }
+    }
+
+    /**
+     * Ejecuta la simulacion y espera a que termine.
+     *
+     * @return El reporte de la simulacion.
+     * @throws InterruptedException si se interrumpe la espera.
+     */
+    public Reporte ejecutar () throws InterruptedException {
+        ExecutorService ejecutor = hilosVirtuales();
+        String modo = "hilos virtuales";
+        if (ejecutor == null) {
+            ejecutor = Executors.newFixedThreadPool(this.hilos);
+            modo = this.hilos + " hilos de plataforma";
+        }
+
+        SplittableRandom azar = new SplittableRandom(this.semilla);
+        List<Jugador> jugadores = new ArrayList<Jugador>(this.cantidadPersonajes);
+        for (int p = 0; p < this.cantidadPersonajes; p++) {
+            jugadores.add(new Jugador(p, azar.split()));
+        }
+
+        CountDownLatch terminados = new CountDownLatch(this.cantidadPersonajes);
+        long inicio = System.nanoTime();
+        long fin = inicio + this.duracionMs * 1_000_000L;
+        for (Jugador jugador : jugadores) {
+            jugador.lanzar(ejecutor, fin, terminados);
+        }
+        terminados.await();
+        long nanos = System.nanoTime() - inicio;
+        ejecutor.shutdown();
+
+        long operaciones = 0;
+        long rechazos = 0;
+        long bytes = 0;
+        long[] latencias = new long[Metricas.CELDAS];
+        for (Jugador jugador : jugadores) {
+            operaciones += jugador.operaciones;
+            rechazos += jugador.rechazos;
+            bytes = bytes < 0 || jugador.bytes < 0 ? -1 : bytes + jugador.bytes;
+            for (int c = 0; c < Metricas.CELDAS; c++) {
+                latencias[c] += jugador.latencias[c];
+            }
+        }
+        return new Reporte(operaciones, rechazos, nanos, latencias, bytes, modo);
+    }
+
+    /**
+     * Devuelve un ejecutor con un hilo virtual por tarea, o null si
+     * la JVM no los tiene (antes de Java 21).
+     */
+    private static ExecutorService hilosVirtuales () {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Un personaje de la simulacion con su generador y sus
+     * contadores. Sus lotes se ejecutan de a uno, de modo que los
+     * contadores no necesitan sincronizacion.
+     */
+    private class Jugador implements Runnable {
+        private final Personaje personaje;
+        private final SplittableRandom azar;
+        private final long[] latencias;
+        private int bolsa;
+        private long operaciones;
+        private long rechazos;
+        private long bytes;
+
+        private ExecutorService ejecutor;
+        private long fin;
+        private CountDownLatch terminados;
+
+        Jugador (int numero, SplittableRandom azar) {
+            this.personaje = new Personaje("Personaje" + numero, 100, PESO_MAXIMO);
+            this.personaje.setBolsa(new Bolsa("Bolsa", BOLSAS[0]));
+            this.personaje.setCaldero(new Caldero("Caldero", 5));
+            this.azar = azar;
+            this.latencias = new long[Metricas.CELDAS];
+        }
+
+        void lanzar (ExecutorService ejecutor, long fin, CountDownLatch terminados) {
+            this.ejecutor = ejecutor;
+            this.fin = fin;
+            this.terminados = terminados;
+            ejecutor.execute(this);
+        }
+
+        @Override
+        public void run () {
+            long bytesInicio = Benchmark.bytesAsignados();
+            for (int i = 0; i < LOTE; i++) {
+                long inicio = System.nanoTime();
+                boolean hecho = this.operar();
+                long nanos = System.nanoTime() - inicio;
+                this.latencias[Metricas.celda(nanos)]++;
+                this.operaciones++;
+                if (!hecho) {
+                    this.rechazos++;
+                }
+            }
+            long bytesFin = Benchmark.bytesAsignados();
+            this.bytes = this.bytes < 0 || bytesInicio < 0 || bytesFin < 0
+                ? -1 : this.bytes + bytesFin - bytesInicio;
+
+            if (System.nanoTime() < this.fin) {
+                this.ejecutor.execute(this);
+            } else {
+                this.terminados.countDown();
+            }
+        }
+
+        private boolean operar () {
+            int sorteo = this.azar.nextInt(mezcla[3]);
+            if (sorteo < mezcla[0]) {
+                if (this.personaje.getElemento() == null) {
+                    this.personaje.setElemento(Elemento.compartido(
+                        nombres[this.azar.nextInt(NOMBRES)], 1 + this.azar.nextInt(5)));
+                }
+                if (this.personaje.guardarElemento().isHecho()) {
+                    return true;
+                }
+                // si no entra en la bolsa lo suelta
+                this.personaje.setElemento(null);
+                return false;
+            } else if (sorteo < mezcla[1]) {
+                return this.personaje.tomarElemento(nombres[this.azar.nextInt(NOMBRES)]).isHecho();
+            } else if (sorteo < mezcla[2]) {
+                if (this.bolsa + 1 == BOLSAS.length) {
+                    return false;
+                }
+                if (this.personaje.setBolsa(new Bolsa("Bolsa", BOLSAS[this.bolsa + 1])).isHecho()) {
+                    this.bolsa++;
+                    return true;
+                }
+                return false;
+            } else {
+                return this.preparar();
+            }
+        }
+
+        private boolean preparar () {
+            Caldero caldero = this.personaje.getCaldero();
+            Receta receta = recetario.get(this.azar.nextInt(recetario.size()));
+            if (this.personaje.prepararReceta(receta).isHecho()) {
+                this.personaje.setElemento(caldero.getPocima());
+                return true;
+            }
+            // devuelve a la bolsa lo que llego a entrar en el caldero
+            this.personaje.getBolsa().addElementos(caldero.cancelarReceta(), false);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Recibe los rechazos de las operaciones de bolsas, calderos y
+ * personajes. Se instala con Eventos.setSumidero().
+ *
+ * Para no armar cadenas en cada rechazo se pasan los datos sueltos:
+ * el objeto que rechazo la operacion (Bolsa, Caldero o Personaje),
+ * un nombre relacionado (el elemento o la receta, puede ser null)
+ * y una cantidad (los ingredientes faltantes, o 0).
+ *
+ * Puede llamarse desde varios hilos a la vez.
+ */
+public interface SumideroDeEventos {
+    /**
+     * Operaciones de bolsas, calderos y personajes. BOLSA_QUITAR y
+     * CALDERO_INGREDIENTE nunca se rechazan; solo se miden (Metricas).
+     */
+    enum Operacion {
+        BOLSA_AGREGAR,
+        BOLSA_QUITAR,
+        BOLSA_TRANSFERIR,
+        CALDERO_RECETA,
+        CALDERO_INGREDIENTE,
+        CALDERO_PREPARAR,
+        PERSONAJE_BOLSA,
+        PERSONAJE_GUARDAR,
+        PERSONAJE_TOMAR,
+        PERSONAJE_PREPARAR
+    }
+
+    /**
+     * Informa que una operacion fue rechazada.
+     *
+     * @param operacion La operacion rechazada.
+     * @param resultado El motivo del rechazo.
+     * @param origen El objeto que rechazo la operacion.
+     * @param nombre El elemento o la receta involucrados (puede ser null).
+     * @param cantidad La cantidad de ingredientes faltantes, o 0.
+     */
+    void rechazo (Operacion operacion, ResultadoOperacion resultado, Object origen, String nombre, int cantidad);
+
+    /**
+     * No hace nada con los rechazos. Es el sumidero por omision.
+     */
+    SumideroDeEventos NINGUNO = (operacion, resultado, origen, nombre, cantidad) -> { };
+
+    /**
+     * Imprime los mensajes historicos en la consola:
+     *
+     *   "<bolsa>: No se puede agregar <elemento>"
+     *   "<bolsa>: No se puede transferir <elemento>"
+     *   "<caldero>: No se puede agregar la receta"
+     *   "<caldero>: No se puede preparar la pocima"
+     *   "Bolsa inapropiada"
+     *   "No hay elemento para agregar a la bolsa"
+     *   "No se cuenta con el <elemento>"
+     *   "Faltan <n> ingredientes para <receta>"
+     */
+    SumideroDeEventos CONSOLA = (operacion, resultado, origen, nombre, cantidad) -> {
+        switch (operacion) {
+            case BOLSA_AGREGAR:
+                System.out.println(((Bolsa) origen).getNombre() + ": No se puede agregar " + nombre);
+                break;
+            case BOLSA_TRANSFERIR:
+                System.out.println(((Bolsa) origen).getNombre() + ": No se puede transferir " + nombre);
+                break;
+            case CALDERO_RECETA:
+                System.out.println(((Caldero) origen).getNombre() + ": No se puede agregar la receta");
+                break;
+            case CALDERO_PREPARAR:
+                System.out.println(((Caldero) origen).getNombre() + ": No se puede preparar la pocima");
+                break;
+            case PERSONAJE_BOLSA:
+                System.out.println("Bolsa inapropiada");
+                break;
+            case PERSONAJE_GUARDAR:
+                System.out.println("No hay elemento para agregar a la bolsa");
+                break;
+            case PERSONAJE_TOMAR:
+                System.out.println("No se cuenta con el " + nombre);
+                break;
+            case PERSONAJE_PREPARAR:
+                System.out.println("Faltan " + cantidad + " ingredientes para " + nombre);
+                break;
+            default:
+                break;
+        }
+    };
+}
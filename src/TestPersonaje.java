@@ -1,7 +1,12 @@
 public class TestPersonaje 
 {
     public void ejecutarTests () {
+      Eventos.setSumidero(SumideroDeEventos.CONSOLA);
       testPersonajePrecheck();
+      testPersonajeCambioDeBolsa();
+      testPersonajeResultados();
+      testPersonajeRecetaConPilas();
+      testPersonajeRecetaRechazada();
     }
     
     public void testPersonajePrecheck() {
@@ -47,4 +52,116 @@ public class TestPersonaje
         System.out.println(caldero);
     }
       
+
+    public void testPersonajeCambioDeBolsa() {
+        Personaje mago = new Personaje("Gandalf", 100, 60);
+        Bolsa chica = new Bolsa("Bolsita", 10);
+        chica.addElemento(new Elemento ("Espada", 8));
+        mago.setBolsa(chica);
+
+        Bolsa llena = new Bolsa("Morral", 20);
+        llena.addElemento(new Elemento ("Piedra", 15));
+        mago.setBolsa(llena);
+        System.out.println(mago.getBolsa().getNombre() + ": " + mago.getBolsa().getElementosEnLaBolsa());
+
+        Bolsa grande = new Bolsa("Mochila", 50);
+        mago.setBolsa(grande);
+        System.out.println(mago.getBolsa().getNombre() + ": " + mago.getBolsa().getElementosEnLaBolsa());
+    }
+
+    public void testPersonajeResultados() {
+        SumideroDeEventos anterior = Eventos.getSumidero();
+        StringBuilder eventos = new StringBuilder();
+        Eventos.setSumidero((operacion, resultado, origen, nombre, cantidad) ->
+            eventos.append(operacion).append(' ').append(resultado).append(' ')
+                .append(nombre).append(' ').append(cantidad).append('\n'));
+        try {
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.cerrarReceta();
+
+            Personaje mago = new Personaje("Gandalf", 100, 60);
+            System.out.println(mago.guardarElemento());
+            System.out.println(mago.setBolsa(new Bolsa("Cofre", 80)));
+            System.out.println(mago.setBolsa(new Bolsa("Mochila", 10)));
+            System.out.println(mago.getBolsa().addElemento(new Elemento ("Pluma", 1)));
+            System.out.println(mago.getBolsa().addElemento(new Elemento ("Pluma", 1)));
+            System.out.println(mago.getBolsa().addElemento(new Elemento ("Espada", 10)));
+            System.out.println(mago.setBolsa(new Bolsa("Bolsita", 5)));
+            System.out.println(mago.tomarElemento("Espada"));
+            mago.setElemento(new Elemento ("Pluma", 2));
+            System.out.println(mago.guardarElemento() + " " + mago.getElemento());
+            mago.setCaldero(new Caldero("chico", 1));
+            System.out.println(mago.getCaldero().setReceta(receta));
+            mago.setCaldero(new Caldero("mediano", 5));
+            System.out.println(mago.prepararReceta(receta));
+            System.out.println(mago.getCaldero().setReceta(receta));
+            System.out.println(mago.getCaldero().prepararPocima());
+            System.out.print(eventos);
+        } finally {
+            Eventos.setSumidero(anterior);
+        }
+    }
+
+    public void testPersonajeRecetaConPilas() {
+        try {
+            Personaje mago = new Personaje("Gandalf", 100, 60);
+            mago.setBolsa(new Bolsa("Mochila",50));
+            mago.setCaldero(new Caldero("chico", 5));
+            mago.getBolsa().addUnidades(new Elemento ("Pluma", 1, 3));
+            mago.getBolsa().addUnidades(new Elemento ("Sangre", 2, 2));
+
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.cerrarReceta();
+            for (int i = 0; i < 3; i++) {
+                ResultadoOperacion resultado = mago.prepararReceta(receta);
+                Elemento pocima = mago.getCaldero().getPocima();
+                System.out.println(resultado + " " + pocima + " " + (pocima == null ? 0 : pocima.getPeso())
+                        + " " + mago.getBolsa().getElementosEnLaBolsa() + " " + mago.getBolsa().getPesoActual());
+                mago.getCaldero().cancelarReceta();
+            }
+
+            Caldero caldero = new Caldero("mediano", 5);
+            caldero.setReceta(receta);
+            caldero.addIngrediente(new Elemento ("Pluma", 1, 10));
+            caldero.addIngrediente(new Elemento ("Sangre", 2));
+            caldero.prepararPocima();
+            System.out.println(caldero.getPocima().getPeso());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testPersonajeRecetaRechazada() {
+        try {
+            Receta voladora = new Receta("voladora");
+            voladora.addIngrediente("Pluma");
+            voladora.addIngrediente("Sangre");
+            voladora.cerrarReceta();
+            Receta fuego = new Receta("fuego");
+            fuego.addIngrediente("Azufre");
+            fuego.cerrarReceta();
+
+            Personaje mago = new Personaje("Gandalf", 100, 60);
+            mago.setBolsa(new Bolsa("Mochila", 50));
+            mago.getBolsa().addElemento(new Elemento ("Pluma", 1));
+            mago.getBolsa().addElemento(new Elemento ("Sangre", 2));
+            mago.getBolsa().addElemento(new Elemento ("Azufre", 3));
+
+            mago.setCaldero(new Caldero("chico", 1));
+            System.out.println(mago.prepararReceta(voladora) + " " + mago.getBolsa().getElementosEnLaBolsa());
+
+            mago.setCaldero(new Caldero("mediano", 5));
+            mago.getCaldero().setReceta(fuego);
+            System.out.println(mago.prepararReceta(voladora) + " " + mago.getCaldero().getPocima()
+                + " " + mago.getBolsa().getElementosEnLaBolsa());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
 }
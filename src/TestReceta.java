@@ -1,6 +1,8 @@
 public class TestReceta {
     public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
         testRecetaPrecheck();
+        testRecetaCompilada();
     }
     
     public void testRecetaPrecheck() {
@@ -20,4 +22,30 @@ public class TestReceta {
             System.out.println(e.getMessage());
         }
     }
+
+    public void testRecetaCompilada() {
+        try {
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Sangre");
+            receta.addIngrediente("Pluma");
+            System.out.println(receta.getCompilada());
+
+            receta.cerrarReceta();
+            receta.addIngrediente("Hueso");
+            RecetaCompilada compilada = receta.getCompilada();
+            System.out.println(compilada.getIngredientes() + " " + compilada.contieneIngrediente("Pluma")
+                    + " " + compilada.contieneIngrediente("Hueso"));
+
+            Receta otra = new Receta("voladora");
+            otra.addIngrediente("Pluma");
+            otra.addIngrediente("Sangre");
+            otra.cerrarReceta();
+            System.out.println(compilada.equals(otra.getCompilada()) + " "
+                    + (compilada.hashCode() == otra.getCompilada().hashCode()));
+            System.out.println(receta.toString() == receta.toString());
+        }
+        catch (Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
 }
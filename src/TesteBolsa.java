@@ -1,6 +1,17 @@
 public class TesteBolsa {
     public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
         testBolsaPrecheck();
+        testBolsaPrefijo();
+        testBolsaAddElementos();
+        testBolsaElementosCompartidos();
+        testBolsaAutoPack();
+        testBolsaPorPeso();
+        testBolsaTransferir();
+        testBolsaCopiaDeElementos();
+        testBolsaMapaSoloLectura();
+        testBolsaStream();
+        testBolsaUnidades();
     }
     
     public void testBolsaPrecheck() {
@@ -26,4 +37,241 @@ public class TesteBolsa {
             System.out.println(e.getMessage());
         }
     }
+
+    public void testBolsaPrefijo() {
+        try {
+            Bolsa bolsa = new Bolsa("Mochila",50);
+            bolsa.addElemento(new Elemento ("Pluma", 1));
+            bolsa.addElemento(new Elemento ("Pluma de fenix", 2));
+            bolsa.addElemento(new Elemento ("Plumero", 1));
+            bolsa.addElemento(new Elemento ("Pocion", 1));
+            bolsa.addElemento(new Elemento ("Hueso", 1));
+
+            System.out.println(bolsa.getElementosConPrefijo("Pluma"));
+            System.out.println(bolsa.getElementosConPrefijo("P"));
+            System.out.println(bolsa.getElementosConPrefijo(""));
+            System.out.println(bolsa.getElementosConPrefijo("Z"));
+
+            java.util.Collection<Elemento> vista = bolsa.getVistaConPrefijo("Plum");
+            bolsa.addElemento(new Elemento ("Plumaje", 1));
+            System.out.println(vista);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaAddElementos() {
+        try {
+            Bolsa bolsa = new Bolsa("Mochila",10);
+            bolsa.addElemento(new Elemento ("Hueso", 1));
+
+            java.util.List<Elemento> lote = new java.util.ArrayList<Elemento>();
+            lote.add(new Elemento ("Pluma", 2));
+            lote.add(new Elemento ("Hueso", 1));
+            lote.add(new Elemento ("Espada", 8));
+
+            System.out.println("Rechazados: " + bolsa.addElementos(lote, true));
+            System.out.println(bolsa.getElementosEnLaBolsa() + " Peso libre: " + bolsa.getPesoLibre());
+
+            System.out.println("Rechazados: " + bolsa.addElementos(lote, false));
+            System.out.println(bolsa.getElementosEnLaBolsa() + " Peso libre: " + bolsa.getPesoLibre());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaElementosCompartidos() {
+        try {
+            Bolsa mochila = new Bolsa("Mochila",50);
+            Bolsa morral = new Bolsa("Morral",50);
+            mochila.addElemento(Elemento.compartido("Pluma", 1));
+            morral.addElemento(Elemento.compartido("Pluma", 1));
+            morral.addElemento(Elemento.compartido("Hueso", 2));
+
+            System.out.println((mochila.getElementosConPrefijo("Pluma").get(0)
+                    == morral.getElementosConPrefijo("Pluma").get(0))
+                    + " " + (Elemento.compartido("Pluma", 1) == Elemento.compartido("Pluma", 2))
+                    + " Peso libre: " + morral.getPesoLibre());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaAutoPack() {
+        try {
+            Bolsa mochila = new Bolsa("Mochila",12);
+            mochila.addElemento(new Elemento ("Hueso", 2));
+
+            java.util.List<Elemento> candidatos = new java.util.ArrayList<Elemento>();
+            candidatos.add(new Elemento ("Espada", 6));
+            candidatos.add(new Elemento ("Escudo", 5));
+            candidatos.add(new Elemento ("Arco", 5));
+            candidatos.add(new Elemento ("Pluma", 3));
+            candidatos.add(new Elemento ("Hueso", 1));
+
+            System.out.println("Sobrantes: " + mochila.autoPack(candidatos));
+            System.out.println(mochila.getElementosEnLaBolsa() + " Peso libre: " + mochila.getPesoLibre());
+
+            Bolsa morral = new Bolsa("Morral",10);
+            System.out.println("Sobrantes: " + morral.autoPack(candidatos, Empaquetador.PESO,
+                    Empaquetador.Modo.APROXIMADO));
+            System.out.println(morral.getElementosEnLaBolsa() + " Peso libre: " + morral.getPesoLibre());
+
+            Bolsa cartera = new Bolsa("Cartera",10);
+            System.out.println("Sobrantes: " + cartera.autoPack(candidatos,
+                    e -> e.getNombre().length(), Empaquetador.Modo.EXACTO));
+            System.out.println(cartera.getElementosEnLaBolsa() + " Peso libre: " + cartera.getPesoLibre());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaPorPeso() {
+        try {
+            Bolsa bolsa = new Bolsa("Mochila",30);
+            bolsa.addElemento(new Elemento ("Hueso", 1));
+            bolsa.addElemento(new Elemento ("Espada", 10));
+            bolsa.addElemento(new Elemento ("Escudo", 8));
+            bolsa.addElemento(new Elemento ("Arco", 5));
+            bolsa.addElemento(new Elemento ("Pluma", 1));
+            bolsa.delElemento("Escudo");
+            bolsa.addElemento(new Elemento ("Casco", 4));
+
+            System.out.println(bolsa.getMasPesados(2) + " " + bolsa.getMasPesados(10));
+            System.out.println(bolsa.getElementosPorPeso(1, 4) + " " + bolsa.getElementosPorPeso(6, 9));
+
+            java.util.Collection<Elemento> vista = bolsa.getVistaPorPeso(5, Integer.MAX_VALUE);
+            bolsa.addElemento(new Elemento ("Yelmo", 6));
+            System.out.println(vista);
+
+            System.out.println("Peso libre: " + bolsa.getPesoLibre() + " "
+                    + bolsa.getParaLiberar(5) + " " + bolsa.getParaLiberar(8)
+                    + " " + bolsa.getParaLiberar(20) + " " + bolsa.getParaLiberar(31));
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaTransferir() {
+        try {
+            Bolsa mochila = new Bolsa("Mochila",20);
+            Bolsa morral = new Bolsa("Morral",10);
+            mochila.addElemento(new Elemento ("Espada", 8));
+            mochila.addElemento(new Elemento ("Hueso", 1));
+            mochila.addElemento(new Elemento ("Pluma", 1));
+            mochila.addElemento(new Elemento ("Escudo", 5));
+            morral.addElemento(new Elemento ("Pluma", 1));
+
+            System.out.println(mochila.transferir("Espada", morral) + " " + mochila.getElementosEnLaBolsa()
+                    + " " + morral.getElementosEnLaBolsa() + " " + mochila.getPesoLibre() + " " + morral.getPesoLibre());
+            System.out.println(mochila.transferir("Espada", morral));
+            System.out.println(mochila.transferir(java.util.Arrays.asList("Hueso", "Pluma"), morral));
+            System.out.println(morral.transferir(java.util.Arrays.asList("Espada", "Pluma"), mochila));
+            System.out.println(mochila.transferir(java.util.Arrays.asList("Hueso", "Escudo"), morral));
+            System.out.println(mochila.getElementosEnLaBolsa() + " " + morral.getElementosEnLaBolsa()
+                    + " " + mochila.getPesoLibre() + " " + morral.getPesoLibre());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaCopiaDeElementos() {
+        try {
+            Bolsa bolsa = new Bolsa("Mochila",20);
+            bolsa.addElemento(new Elemento ("Espada", 8));
+            bolsa.addElemento(new Elemento ("Hueso", 1));
+            long version = bolsa.getVersion();
+            java.util.List<Elemento> copia = bolsa.getElementosEnLaBolsa();
+            System.out.println(copia + " " + (copia == bolsa.getElementosEnLaBolsa()));
+
+            // los intentos fallidos no cambian la version
+            bolsa.addElemento(new Elemento ("Hueso", 1));
+            bolsa.delElemento("Pluma");
+            System.out.println((bolsa.getVersion() == version) + " " + (copia == bolsa.getElementosEnLaBolsa()));
+
+            bolsa.delElemento("Hueso");
+            System.out.println(copia + " " + bolsa.getElementosEnLaBolsa() + " " + (bolsa.getVersion() > version));
+            bolsa.getElementosEnLaBolsa().clear();
+        }
+        catch(UnsupportedOperationException e){
+            System.out.println("La copia no se puede modificar");
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaMapaSoloLectura() {
+        try {
+            Bolsa bolsa = new Bolsa("Mochila",20);
+            bolsa.addElemento(new Elemento ("Espada", 8));
+            System.out.println(bolsa.getMapaDeElementos() + " " + bolsa.contieneElemento("Espada"));
+            bolsa.getMapaDeElementos().put("Hueso", new Elemento ("Hueso", 1));
+        }
+        catch(UnsupportedOperationException e){
+            System.out.println("El mapa no se puede modificar");
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaStream() {
+        try {
+            Bolsa bolsa = new Bolsa("Mochila",1000);
+            for (int i = 0; i < 40; i++) {
+                bolsa.addElemento(new Elemento ((i % 2 == 0 ? "Flecha " : "Pocion ") + i, 1 + i % 5));
+            }
+            java.util.Map<String, Integer> porTipo = bolsa.parallelStream().collect(
+                java.util.stream.Collectors.groupingBy(e -> e.getNombre().split(" ")[0],
+                    java.util.TreeMap::new, java.util.stream.Collectors.summingInt(Elemento::getPeso)));
+            System.out.println(porTipo + " " + bolsa.stream().mapToInt(Elemento::getPeso).sum()
+                    + " " + bolsa.getPesoActual());
+            System.out.println(bolsa.parallelStream().filter(e -> e.getPeso() > 3).count() + " "
+                    + bolsa.stream().filter(e -> e.getPeso() > 3).count());
+
+            java.util.Spliterator<Elemento> resto = bolsa.spliterator();
+            java.util.Spliterator<Elemento> mitad = resto.trySplit();
+            System.out.println(mitad.estimateSize() + " " + resto.estimateSize() + " "
+                    + resto.hasCharacteristics(java.util.Spliterator.SUBSIZED));
+
+            // el Stream recorre la bolsa como estaba al pedirlo
+            java.util.stream.Stream<Elemento> elementos = bolsa.stream();
+            bolsa.delElemento("Flecha 0");
+            System.out.println(elementos.count() + " " + bolsa.stream().count());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaUnidades() {
+        try {
+            Bolsa bolsa = new Bolsa("Carcaj",100);
+            System.out.println(bolsa.addUnidades(new Elemento ("Flecha", 1, 50)) + " "
+                    + bolsa.addUnidades(new Elemento ("Flecha", 1, 30)) + " "
+                    + bolsa.getCantidad("Flecha") + " " + bolsa.getPesoActual() + " " + bolsa.getElementosEnLaBolsa());
+            System.out.println(bolsa.addUnidades(new Elemento ("Flecha", 2, 5)));
+            System.out.println(bolsa.addUnidades(new Elemento ("Flecha", 1, 30)));
+            System.out.println(bolsa.addElemento(new Elemento ("Flecha", 1)));
+
+            Elemento quitadas = bolsa.delUnidades("Flecha", 30);
+            System.out.println(quitadas + " " + quitadas.getPeso() + " " + bolsa.getCantidad("Flecha")
+                    + " " + bolsa.getPesoActual() + " " + bolsa.delUnidades("Flecha", 60));
+            bolsa.addElemento(new Elemento ("Arco", 5));
+            System.out.println(bolsa.getMasPesados(1) + " " + bolsa.getParaLiberar(60));
+            System.out.println(bolsa.delUnidades("Flecha", 50) + " " + bolsa.contieneElemento("Flecha")
+                    + " " + bolsa.getCantidad("Flecha") + " " + bolsa.getPesoActual());
+            bolsa.delUnidades("Flecha", 0);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
 }
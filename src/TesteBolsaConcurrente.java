@@ -0,0 +1,269 @@
+public class TesteBolsaConcurrente {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testBolsaConcurrentePrecheck();
+        testBolsaConcurrenteCapacidad();
+        testBolsaConcurrenteIndicePorPeso();
+        testBolsaConcurrenteTransferir();
+        testBolsaConcurrenteCopiaDeElementos();
+        testBolsaConcurrenteUnidades();
+    }
+
+    public void testBolsaConcurrentePrecheck() {
+        try {
+            Bolsa bolsa = new BolsaConcurrente("Alijo",50);
+
+            System.out.println("Peso libre: " + bolsa.getPesoLibre());
+
+            bolsa.addElemento(new Elemento ("Hueso", 1));
+            bolsa.addElemento(new Elemento ("Espada", 10));
+            bolsa.addElemento(new Elemento ("Hueso", 2));
+
+            System.out.println("Peso libre: " + bolsa.getPesoLibre());
+            System.out.println(bolsa.getElementosEnLaBolsa());
+
+            bolsa.delElemento("Hueso");
+            System.out.println(bolsa.delElemento("Hueso"));
+
+            System.out.println("Peso libre: " + bolsa.getPesoLibre());
+            System.out.println(bolsa.getElementosEnLaBolsa());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Varios hilos intentan llenar la misma bolsa a la vez; el
+     * peso nunca debe superar el maximo.
+     */
+    public void testBolsaConcurrenteCapacidad() {
+        try {
+            Bolsa bolsa = new BolsaConcurrente("Alijo",100);
+            Thread[] hilos = new Thread[8];
+            for (int h = 0; h < hilos.length; h++) {
+                final int hilo = h;
+                hilos[h] = new Thread(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        bolsa.addElemento(new Elemento ("Oro " + hilo + "-" + i, 1));
+                    }
+                });
+            }
+            java.io.PrintStream salida = System.out;
+            System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));
+            for (Thread hilo : hilos) {
+                hilo.start();
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+            System.setOut(salida);
+
+            System.out.println("Peso actual: " + bolsa.getPesoActual());
+            System.out.println("Elementos: " + bolsa.getElementosEnLaBolsa().size());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Varios hilos agregan y quitan los mismos nombres a la vez; al
+     * terminar el indice por peso debe tener lo mismo que el mapa.
+     */
+    public void testBolsaConcurrenteIndicePorPeso() {
+        SumideroDeEventos anterior = Eventos.getSumidero();
+        Eventos.setSumidero(SumideroDeEventos.NINGUNO);
+        try {
+            Bolsa bolsa = new BolsaConcurrente("Alijo",1000);
+            Thread[] hilos = new Thread[4];
+            for (int h = 0; h < hilos.length; h++) {
+                final int hilo = h;
+                hilos[h] = new Thread(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        String nombre = "Oro " + (i * 7 + hilo) % 50;
+                        if (i % 2 == 0) {
+                            bolsa.addElemento(new Elemento (nombre, 1 + (i + hilo) % 9));
+                        } else {
+                            bolsa.delElemento(nombre);
+                        }
+                    }
+                });
+            }
+            for (Thread hilo : hilos) {
+                hilo.start();
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+
+            java.util.List<Elemento> porPeso = bolsa.getElementosPorPeso(0, Integer.MAX_VALUE);
+            int peso = 0;
+            for (Elemento elemento : porPeso) {
+                peso += elemento.getPeso();
+            }
+            System.out.println((porPeso.size() == bolsa.getElementosEnLaBolsa().size())
+                    + " " + porPeso.containsAll(bolsa.getElementosEnLaBolsa())
+                    + " " + (peso == bolsa.getPesoActual()));
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+        finally {
+            Eventos.setSumidero(anterior);
+        }
+    }
+
+    /**
+     * Varios hilos pasan elementos al azar entre pocas bolsas
+     * chicas, en los dos sentidos; al terminar no debe faltar ni
+     * sobrar ningun elemento y ninguna bolsa debe pasarse de peso.
+     */
+    public void testBolsaConcurrenteTransferir() {
+        SumideroDeEventos anterior = Eventos.getSumidero();
+        Eventos.setSumidero(SumideroDeEventos.NINGUNO);
+        try {
+            Bolsa[] bolsas = new Bolsa[3];
+            for (int b = 0; b < bolsas.length; b++) {
+                bolsas[b] = new BolsaConcurrente("Alijo" + b, 40);
+            }
+            for (int e = 0; e < 40; e++) {
+                bolsas[e % bolsas.length].addElemento(new Elemento ("Oro " + e, 1 + e % 3));
+            }
+            Thread[] hilos = new Thread[4];
+            for (int h = 0; h < hilos.length; h++) {
+                final java.util.Random azar = new java.util.Random(h);
+                hilos[h] = new Thread(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        Bolsa origen = bolsas[azar.nextInt(bolsas.length)];
+                        Bolsa destino = bolsas[azar.nextInt(bolsas.length)];
+                        if (azar.nextBoolean()) {
+                            origen.transferir("Oro " + azar.nextInt(40), destino);
+                        } else {
+                            origen.transferir(java.util.Arrays.asList(
+                                "Oro " + azar.nextInt(20), "Oro " + (20 + azar.nextInt(20))), destino);
+                        }
+                    }
+                });
+            }
+            for (Thread hilo : hilos) {
+                hilo.start();
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+
+            java.util.Set<String> nombres = new java.util.HashSet<String>();
+            int cantidad = 0;
+            boolean pesosCorrectos = true;
+            for (Bolsa bolsa : bolsas) {
+                int peso = 0;
+                for (Elemento elemento : bolsa.getElementosEnLaBolsa()) {
+                    nombres.add(elemento.getNombre());
+                    peso += elemento.getPeso();
+                    cantidad++;
+                }
+                pesosCorrectos &= peso == bolsa.getPesoActual() && peso <= bolsa.getPesoMaximo();
+            }
+            System.out.println(cantidad + " " + nombres.size() + " " + pesosCorrectos);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+        finally {
+            Eventos.setSumidero(anterior);
+        }
+    }
+
+    /**
+     * Un hilo agrega "A i" y despues "B i", y los quita en el orden
+     * inverso; mientras tanto otro hilo pide copias de la bolsa.
+     * Ninguna copia debe tener un "B i" sin su "A i", ni cambiar
+     * mientras la bolsa no cambia.
+     */
+    public void testBolsaConcurrenteCopiaDeElementos() {
+        try {
+            Bolsa bolsa = new BolsaConcurrente("Alijo", Integer.MAX_VALUE);
+            for (int i = 0; i < 50; i++) {
+                bolsa.addElemento(new Elemento ("Relleno " + i, 1));
+            }
+            Thread escritor = new Thread(() -> {
+                for (int vuelta = 0; vuelta < 2000; vuelta++) {
+                    for (int i = 0; i < 8; i++) {
+                        bolsa.addElemento(new Elemento ("A " + i, 1));
+                        bolsa.addElemento(new Elemento ("B " + i, 1));
+                    }
+                    for (int i = 0; i < 8; i++) {
+                        bolsa.delElemento("B " + i);
+                        bolsa.delElemento("A " + i);
+                    }
+                }
+            });
+            escritor.start();
+            boolean consistentes = true;
+            int copias = 0;
+            while (escritor.isAlive() || copias == 0) {
+                java.util.Set<String> nombres = new java.util.HashSet<String>();
+                for (Elemento elemento : bolsa.getElementosEnLaBolsa()) {
+                    nombres.add(elemento.getNombre());
+                }
+                for (String nombre : nombres) {
+                    if (nombre.startsWith("B ") && !nombres.contains("A " + nombre.substring(2))) {
+                        consistentes = false;
+                    }
+                }
+                copias++;
+            }
+            escritor.join();
+            java.util.List<Elemento> copia = bolsa.getElementosEnLaBolsa();
+            System.out.println(consistentes + " " + copia.size() + " " + (copia == bolsa.getElementosEnLaBolsa()));
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Varios hilos agregan y quitan flechas de la misma pila; al
+     * terminar la cantidad y el peso deben coincidir con lo hecho.
+     */
+    public void testBolsaConcurrenteUnidades() {
+        SumideroDeEventos anterior = Eventos.getSumidero();
+        Eventos.setSumidero(SumideroDeEventos.NINGUNO);
+        try {
+            Bolsa bolsa = new BolsaConcurrente("Carcaj", 1000);
+            java.util.concurrent.atomic.AtomicInteger agregadas = new java.util.concurrent.atomic.AtomicInteger();
+            Thread[] hilos = new Thread[4];
+            for (int h = 0; h < hilos.length; h++) {
+                final java.util.Random azar = new java.util.Random(h);
+                hilos[h] = new Thread(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        int cantidad = 1 + azar.nextInt(5);
+                        if (azar.nextBoolean()) {
+                            if (bolsa.addUnidades(new Elemento ("Flecha", 2, cantidad)) == ResultadoOperacion.HECHO) {
+                                agregadas.addAndGet(cantidad);
+                            }
+                        } else if (bolsa.delUnidades("Flecha", cantidad) != null) {
+                            agregadas.addAndGet(-cantidad);
+                        }
+                    }
+                });
+            }
+            for (Thread hilo : hilos) {
+                hilo.start();
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+            System.out.println((bolsa.getCantidad("Flecha") == agregadas.get()) + " "
+                    + (bolsa.getPesoActual() == 2 * agregadas.get()) + " " + (bolsa.getPesoActual() <= 1000)
+                    + " " + bolsa.getElementosEnLaBolsa().size());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+        finally {
+            Eventos.setSumidero(anterior);
+        }
+    }
+}
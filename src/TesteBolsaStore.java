@@ -0,0 +1,130 @@
+public class TesteBolsaStore {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testBolsaStorePrecheck();
+        testBolsaStoreConPersonaje();
+        testBolsaStoreUnidades();
+        testBolsaStorePorPeso();
+        testBolsaStoreTransferir();
+    }
+
+    public void testBolsaStorePrecheck() {
+        try {
+            BolsaStore almacen = new BolsaStore(1);
+            Bolsa bolsa = almacen.crearBolsa("Mochila",50);
+            Bolsa otra = almacen.crearBolsa("Morral",50);
+
+            System.out.println("Peso libre: " + bolsa.getPesoLibre());
+
+            bolsa.addElemento(new Elemento ("Hueso", 1));
+            bolsa.addElemento(new Elemento ("Espada", 10));
+            bolsa.addElemento(new Elemento ("Hueso", 3));
+            for (int i = 0; i < 20; i++) {
+                otra.addElemento(new Elemento ("Flecha " + (char) ('a' + i), 1));
+            }
+            bolsa.addElemento(new Elemento ("Pluma", 1));
+            bolsa.addElemento(new Elemento ("Pluma de fenix", 2));
+
+            System.out.println("Peso libre: " + bolsa.getPesoLibre());
+            System.out.println(bolsa.getElementosEnLaBolsa() + " " + bolsa.getKeySet());
+            System.out.println(bolsa.getElementosConPrefijo("Pluma"));
+
+            bolsa.delElemento("Hueso");
+            System.out.println(bolsa.delElemento("Hueso"));
+            almacen.compactar();
+
+            System.out.println("Peso libre: " + bolsa.getPesoLibre());
+            System.out.println(bolsa.getElementosEnLaBolsa());
+            System.out.println(otra.getElementosConPrefijo("Flecha").size() + " " + otra.getPesoActual()
+                    + " " + almacen.getCantidadObjetos());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaStoreConPersonaje() {
+        BolsaStore almacen = new BolsaStore(2);
+        Personaje mago = new Personaje("Gandalf", 100, 60);
+        mago.setBolsa(almacen.crearBolsa("Bolsita", 10));
+        mago.setElemento(new Elemento ("Pluma", 1));
+        mago.guardarElemento();
+        mago.getBolsa().addElemento(new Elemento ("Sangre", 1));
+        mago.setBolsa(almacen.crearBolsa("Mochila", 50));
+
+        Receta receta = new Receta("voladora");
+        receta.addIngrediente("Pluma");
+        receta.addIngrediente("Sangre");
+        receta.cerrarReceta();
+        mago.setCaldero(new Caldero("chico", 5));
+        mago.prepararReceta(receta);
+
+        System.out.println(mago.getBolsa().getNombre() + ": " + mago.getBolsa().getElementosEnLaBolsa()
+                + " " + mago.getCaldero());
+    }
+
+    public void testBolsaStoreUnidades() {
+        try {
+            BolsaStore almacen = new BolsaStore(2);
+            Bolsa carcaj = almacen.crearBolsa("Carcaj", 100);
+            Bolsa mochila = almacen.crearBolsa("Mochila", 50);
+            carcaj.addUnidades(new Elemento ("Flecha", 1, 40));
+            for (int i = 0; i < 10; i++) {
+                mochila.addElemento(new Elemento ("Piedra " + i, 1));
+            }
+            carcaj.addUnidades(new Elemento ("Flecha", 1, 20));
+            carcaj.addElemento(new Elemento ("Arco", 5));
+            carcaj.addUnidades(new Elemento ("Flecha", 2, 1));
+            System.out.println(carcaj.getElementosEnLaBolsa() + " " + carcaj.getCantidad("Flecha") + " "
+                    + carcaj.getPesoActual() + " " + almacen.getCantidadObjetos());
+
+            almacen.compactar();
+            Elemento quitadas = carcaj.delUnidades("Flecha", 15);
+            System.out.println(quitadas + " " + carcaj.getElementosEnLaBolsa() + " " + carcaj.getPesoActual()
+                    + " " + carcaj.delUnidades("Flecha", 46) + " " + carcaj.delUnidades("Flecha", 45)
+                    + " " + carcaj.getPesoActual() + " " + mochila.getPesoActual());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaStorePorPeso() {
+        try {
+            BolsaStore almacen = new BolsaStore(2);
+            Bolsa mochila = almacen.crearBolsa("Mochila", 100);
+            mochila.addElemento(new Elemento ("Espada", 10));
+            mochila.addElemento(new Elemento ("Hueso", 1));
+            mochila.addUnidades(new Elemento ("Flecha", 1, 4));
+            System.out.println(mochila.getMasPesados(2) + " " + mochila.getElementosPorPeso(2, 10));
+
+            // el indice ya armado sigue los cambios
+            mochila.addUnidades(new Elemento ("Flecha", 1, 8));
+            mochila.addElemento(new Elemento ("Escudo", 7));
+            mochila.delElemento("Espada");
+            mochila.delUnidades("Flecha", 3);
+            System.out.println(mochila.getMasPesados(2) + " " + mochila.getElementosPorPeso(2, 10)
+                    + " " + mochila.getParaLiberar(90));
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testBolsaStoreTransferir() {
+        try {
+            BolsaStore almacen = new BolsaStore(2);
+            Bolsa mochila = almacen.crearBolsa("Mochila", 50);
+            Bolsa carcaj = almacen.crearBolsa("Carcaj", 50);
+            mochila.addElemento(new Elemento ("Espada", 10));
+            mochila.addUnidades(new Elemento ("Flecha", 1, 20));
+            carcaj.addUnidades(new Elemento ("Flecha", 2, 5));
+            System.out.println(mochila.transferir("Flecha", carcaj) + " " + carcaj.addUnidades(new Elemento ("Flecha", 1, 1)));
+            System.out.println(mochila.transferir("Espada", carcaj) + " " + mochila.getElementosEnLaBolsa()
+                    + " " + carcaj.getElementosEnLaBolsa() + " " + carcaj.getPesoActual());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class TesteBuscadorDeRecetas {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testBuscadorPrecheck();
+    }
+
+    private Receta receta(String nombre, String... ingredientes) {
+        Receta receta = new Receta(nombre);
+        for (String ingrediente : ingredientes) {
+            receta.addIngrediente(ingrediente);
+        }
+        receta.cerrarReceta();
+        return receta;
+    }
+
+    private List<String> nombres(List<Receta> recetas) {
+        List<String> nombres = new ArrayList<String>();
+        for (Receta receta : recetas) {
+            nombres.add(receta.getNombre());
+        }
+        return nombres;
+    }
+
+    public void testBuscadorPrecheck() {
+        try {
+            List<Receta> recetario = new ArrayList<Receta>();
+            recetario.add(receta("voladora", "Pluma", "Sangre", "Hueso"));
+            recetario.add(receta("curativa", "Raiz", "Sangre"));
+            recetario.add(receta("de fuerza", "Hueso", "Raiz", "Escama", "Sangre"));
+            recetario.add(receta("de fuego", "Escama", "Azufre"));
+            recetario.add(new Receta("sin cerrar"));
+            BuscadorDeRecetas buscador = new BuscadorDeRecetas(recetario);
+
+            Bolsa bolsa = new Bolsa("Mochila", 50);
+            bolsa.addElemento(new Elemento ("Pluma", 1));
+            bolsa.addElemento(new Elemento ("Sangre", 1));
+            bolsa.addElemento(new Elemento ("Hueso", 1));
+            bolsa.addElemento(new Elemento ("Raiz", 1));
+
+            System.out.println(buscador.getCantidadRecetas());
+            System.out.println(nombres(buscador.getRecetasPosibles(bolsa, new Caldero("Caldero chico", 5))));
+            System.out.println(nombres(buscador.getRecetasPosibles(bolsa, 2)));
+            System.out.println(buscador.getRecetasCercanas(bolsa, 5, 1));
+            System.out.println(bolsa.getElementosEnLaBolsa());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+}
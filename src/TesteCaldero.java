@@ -1,6 +1,10 @@
 public class TesteCaldero {
     public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
         testCalderoPrecheck();
+        testCalderoFaltantes();
+        testCalderoStreamIngredientes();
+        testCalderoPilas();
     }
     
     public void testCalderoPrecheck() {
@@ -33,4 +37,77 @@ public class TesteCaldero {
             System.out.println(e.getMessage());
         }
     }
+
+    public void testCalderoFaltantes() {
+        try {
+            Caldero caldero = new Caldero("Caldero chico",5);
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.cerrarReceta();
+            caldero.setReceta(receta);
+
+            caldero.addIngrediente(new Elemento("Piedra", 7));
+            caldero.addIngrediente(new Elemento("Pluma", 5));
+            caldero.addIngrediente(new Elemento("Pluma", 1));
+            System.out.println(caldero.getCantidadFaltantes() + " " + caldero.getIngredientesFaltantes()
+                    + " " + caldero.verificarIngredientes());
+
+            caldero.addIngrediente(new Elemento("Sangre", 2));
+            System.out.println(caldero.getCantidadFaltantes() + " " + caldero.getIngredientesFaltantes()
+                    + " " + caldero.verificarIngredientes());
+
+            caldero.prepararPocima();
+            Elemento pocima = caldero.getPocima();
+            System.out.println(pocima + " " + pocima.getPeso());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testCalderoStreamIngredientes() {
+        try {
+            Caldero caldero = new Caldero("Caldero chico",5);
+            System.out.println(caldero.streamIngredientes().count());
+
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.addIngrediente("Hueso");
+            receta.cerrarReceta();
+            caldero.setReceta(receta);
+            caldero.addIngrediente(new Elemento("Pluma", 1));
+            caldero.addIngrediente(new Elemento("Hueso", 4));
+
+            java.util.stream.Stream<Elemento> ingredientes = caldero.streamIngredientes();
+            caldero.addIngrediente(new Elemento("Sangre", 2));
+            System.out.println(ingredientes.mapToInt(Elemento::getPeso).sum() + " "
+                    + caldero.streamIngredientes().parallel().mapToInt(Elemento::getPeso).sum());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testCalderoPilas() {
+        try {
+            Caldero caldero = new Caldero("Caldero chico",5);
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.cerrarReceta();
+            System.out.println(caldero.addIngrediente(new Elemento("Pluma", 1, 3)));
+            caldero.setReceta(receta);
+            Elemento resto = caldero.addIngrediente(new Elemento("Pluma", 1, 3));
+            System.out.println(resto + " " + resto.getPeso() + " " + caldero.addIngrediente(new Elemento("Hueso", 4))
+                    + " " + caldero.addIngrediente(new Elemento("Sangre", 2)));
+            caldero.prepararPocima();
+            Elemento pocima = caldero.getPocima();
+            System.out.println(pocima + " " + pocima.getPeso());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,82 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class TesteCalderoAsincrono {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testCalderoAsincronoPrecheck();
+    }
+
+    public void testCalderoAsincronoPrecheck() {
+        ScheduledExecutorService temporizador = CalderoAsincrono.crearTemporizador();
+        try {
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.cerrarReceta();
+            List<Elemento> ingredientes = new ArrayList<Elemento>();
+            ingredientes.add(new Elemento ("Pluma", 1));
+            ingredientes.add(new Elemento ("Sangre", 2));
+            List<Elemento> incompletos = ingredientes.subList(0, 1);
+
+            CalderoAsincrono caldero = new CalderoAsincrono(
+                new Caldero("chico", 5), 2, temporizador, Duration.ofMillis(20));
+            List<CompletableFuture<Elemento>> pocimas = new ArrayList<CompletableFuture<Elemento>>();
+            pocimas.add(caldero.preparar(receta, ingredientes));
+            pocimas.add(caldero.preparar(receta, incompletos));
+            pocimas.add(caldero.preparar(receta, ingredientes));
+            pocimas.add(caldero.preparar(receta, ingredientes));
+            System.out.println(caldero.isOcupado() + " " + caldero.getEnCola() + " " + pocimas.get(0).isDone());
+
+            for (CompletableFuture<Elemento> pocima : pocimas) {
+                try {
+                    Elemento lista = pocima.get();
+                    System.out.println(lista + " " + lista.getPeso());
+                } catch (ExecutionException e) {
+                    System.out.println(e.getCause().getMessage());
+                    if (e.getCause() instanceof CalderoAsincrono.PocimaNoPreparada) {
+                        System.out.println(((CalderoAsincrono.PocimaNoPreparada) e.getCause()).getIngredientes());
+                    }
+                }
+            }
+            System.out.println(caldero.isOcupado() + " " + caldero.getEnCola());
+
+            CalderoAsincrono chico = new CalderoAsincrono(
+                new Caldero("diminuto", 1), 2, temporizador, Duration.ofMillis(20));
+            try {
+                chico.preparar(receta, ingredientes).get();
+            } catch (ExecutionException e) {
+                System.out.println(e.getCause().getMessage());
+            }
+
+            // de una pila el caldero usaria una unidad: se rechaza
+            List<Elemento> conPila = new ArrayList<Elemento>();
+            conPila.add(new Elemento ("Pluma", 1, 5));
+            conPila.add(new Elemento ("Sangre", 2));
+            try {
+                caldero.preparar(receta, conPila).get();
+            } catch (ExecutionException e) {
+                System.out.println(e.getCause().getMessage() + " " + caldero.isOcupado());
+            }
+
+            // un ingrediente ajeno a la receta se perderia: tambien se rechaza
+            List<Elemento> conAjeno = new ArrayList<Elemento>(ingredientes);
+            conAjeno.add(new Elemento ("Hueso", 4));
+            try {
+                caldero.preparar(receta, conAjeno).get();
+            } catch (ExecutionException e) {
+                System.out.println(e.getCause().getMessage() + " " + caldero.isOcupado());
+            }
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+        finally {
+            temporizador.shutdown();
+        }
+    }
+}
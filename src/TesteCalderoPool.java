@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class TesteCalderoPool {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testCalderoPoolPrecheck();
+        testCalderoPoolCriterio();
+    }
+
+    private static Receta receta(String nombre, int ingredientes) {
+        Receta receta = new Receta(nombre);
+        for (int i = 0; i < ingredientes; i++) {
+            receta.addIngrediente("Ingrediente " + i);
+        }
+        receta.cerrarReceta();
+        return receta;
+    }
+
+    private static List<Caldero> calderos() {
+        List<Caldero> calderos = new ArrayList<Caldero>();
+        calderos.add(new Caldero("grande", 8));
+        calderos.add(new Caldero("mediano", 4));
+        calderos.add(new Caldero("chico", 2));
+        return calderos;
+    }
+
+    public void testCalderoPoolPrecheck() {
+        try {
+            CalderoPool grupo = new CalderoPool("Taller", calderos(), 1);
+            CompletableFuture<Caldero> dos = grupo.asignar(receta("dos", 2));
+            CompletableFuture<Caldero> tres = grupo.asignar(receta("tres", 3));
+            CompletableFuture<Caldero> otraDos = grupo.asignar(receta("otra dos", 2));
+            CompletableFuture<Caldero> cuatro = grupo.asignar(receta("cuatro", 4));
+            System.out.println(dos.get() + " " + tres.get() + " " + otraDos.get() + " " + cuatro.isDone());
+            System.out.println(grupo);
+
+            for (CompletableFuture<Caldero> rechazado : List.of(grupo.asignar(receta("cinco", 5)),
+                                                                  grupo.asignar(receta("nueve", 9)))) {
+                try {
+                    rechazado.get();
+                } catch (ExecutionException e) {
+                    System.out.println(e.getCause().getMessage());
+                }
+            }
+
+            // el chico no le alcanza a la receta en cola
+            Caldero chico = dos.get();
+            chico.addIngrediente(new Elemento("Ingrediente 0", 1));
+            chico.addIngrediente(new Elemento("Ingrediente 1", 1));
+            chico.prepararPocima();
+            System.out.println(grupo.devolver(chico) + " " + cuatro.isDone());
+
+            Caldero mediano = tres.get();
+            mediano.addIngrediente(new Elemento("Ingrediente 0", 3));
+            System.out.println(grupo.devolver(mediano) + " " + cuatro.get() + " " + grupo);
+
+            try {
+                grupo.devolver(new Caldero("ajeno", 3));
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+            System.out.println(grupo.getAsignaciones() + " "
+                    + String.format("%.2f", grupo.getAprovechamiento()) + " "
+                    + (grupo.getUtilizacion() > 0 && grupo.getUtilizacion() <= 1));
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testCalderoPoolCriterio() {
+        try {
+            for (CalderoPool.Criterio criterio : CalderoPool.Criterio.values()) {
+                CalderoPool grupo = new CalderoPool("Taller", calderos(), 4, criterio);
+                CompletableFuture<Caldero> dos = grupo.asignar(receta("dos", 2));
+                CompletableFuture<Caldero> ocho = grupo.asignar(receta("ocho", 8));
+                System.out.println(criterio + " " + dos.get() + " " + ocho.isDone() + " "
+                        + String.format("%.2f", grupo.getAprovechamiento()));
+            }
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class TesteDiario {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testDiarioPrecheck();
+        testDiarioRegistroCortado();
+        testDiarioPilas();
+    }
+
+    public void testDiarioPrecheck() {
+        try {
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.cerrarReceta();
+
+            Path archivo = Files.createTempFile("rpg", ".diario");
+            try (Diario diario = new Diario(archivo, 5)) {
+                Personaje mago = nuevoMago(diario);
+                mago.getBolsa().addElemento(new Elemento ("Espada", 10));
+                mago.getBolsa().addElemento(new Elemento ("Pluma", 1));
+                mago.getBolsa().addElemento(new Elemento ("Sangre", 2));
+                mago.getBolsa().addElemento(new Elemento ("Hueso", 1));
+                mago.tomarElemento("Espada");
+                mago.prepararReceta(receta);
+                Elemento pocima = mago.getCaldero().getPocima();
+                mago.getBolsa().addElemento(pocima);
+                mago.getCaldero().setReceta(receta);
+                mago.getCaldero().addIngrediente(new Elemento ("Pluma", 4));
+                System.out.println(diario.getAnotados());
+                diario.sincronizar();
+                System.out.println(diario.getConfirmados());
+            }
+
+            try (Diario diario = new Diario(archivo, 0)) {
+                Personaje mago = nuevoMago(diario);
+                System.out.println(diario.reproducir());
+                System.out.println(mago.getElemento() + " " + mago.getBolsa().getPesoLibre() + " "
+                        + mago.getBolsa().getElementosEnLaBolsa() + " " + mago.getCaldero() + " "
+                        + mago.getCaldero().getIngredientesFaltantes());
+                System.out.println(diario.getAnotados());
+            }
+            Files.delete(archivo);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testDiarioRegistroCortado() {
+        try {
+            Path archivo = Files.createTempFile("rpg", ".diario");
+            try (Diario diario = new Diario(archivo, 0)) {
+                Bolsa bolsa = new Bolsa("Mochila", 50);
+                diario.registrar(bolsa);
+                bolsa.addElemento(new Elemento ("Espada", 10));
+                bolsa.addElemento(new Elemento ("Pluma", 1));
+            }
+            long largo = Files.size(archivo);
+            Files.write(archivo, new byte[] {0, 0, 0, 40, 2, 0}, StandardOpenOption.APPEND);
+
+            try (Diario diario = new Diario(archivo, 0)) {
+                Bolsa bolsa = new Bolsa("Mochila", 50);
+                diario.registrar(bolsa);
+                System.out.println(diario.reproducir());
+                System.out.println(Files.size(archivo) == largo);
+                bolsa.delElemento("Espada");
+            }
+
+            try (Diario diario = new Diario(archivo, 0)) {
+                Bolsa bolsa = new Bolsa("Mochila", 50);
+                diario.registrar(bolsa);
+                System.out.println(diario.reproducir());
+                System.out.println(bolsa.getElementosEnLaBolsa() + " " + bolsa.getPesoLibre());
+            }
+            Files.delete(archivo);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static Personaje nuevoMago(Diario diario) {
+        Personaje mago = new Personaje("Gandalf", 100, 60);
+        mago.setBolsa(new Bolsa("Mochila", 50));
+        mago.setCaldero(new Caldero("chico", 5));
+        diario.registrar(mago);
+        diario.registrar(mago.getBolsa());
+        diario.registrar(mago.getCaldero());
+        return mago;
+    }
+
+    public void testDiarioPilas() {
+        try {
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.cerrarReceta();
+
+            Path archivo = Files.createTempFile("rpg", ".diario");
+            try (Diario diario = new Diario(archivo, 0)) {
+                Personaje mago = nuevoMago(diario);
+                mago.getBolsa().addUnidades(new Elemento ("Pluma", 1, 5));
+                mago.getBolsa().addUnidades(new Elemento ("Pluma", 1, 5));
+                mago.getBolsa().addElemento(new Elemento ("Sangre", 2, 3));
+                mago.getBolsa().delUnidades("Pluma", 4);
+                mago.prepararReceta(receta);
+                mago.setElemento(new Elemento ("Flecha", 1, 20));
+            }
+
+            try (Diario diario = new Diario(archivo, 0)) {
+                Personaje mago = nuevoMago(diario);
+                System.out.println(diario.reproducir());
+                System.out.println(mago.getElemento() + " " + mago.getBolsa().getElementosEnLaBolsa() + " "
+                        + mago.getBolsa().getPesoActual() + " " + mago.getCaldero());
+            }
+            Files.delete(archivo);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TesteInstantanea {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testInstantaneaPrecheck();
+        testInstantaneaPilas();
+    }
+
+    public void testInstantaneaPrecheck() {
+        try {
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.addIngrediente("Hueso");
+            receta.cerrarReceta();
+
+            Personaje mago = new Personaje("Gandalf", 100, 60);
+            mago.setVida(40);
+            mago.setBolsa(new Bolsa("Mochila", 50));
+            mago.getBolsa().addElemento(new Elemento ("Espada", 10));
+            mago.getBolsa().addElemento(new Elemento ("Pluma", 1));
+            mago.setElemento(new Elemento ("Baston", 3));
+            mago.setCaldero(new Caldero("chico", 5));
+            mago.getCaldero().setReceta(receta);
+            mago.getCaldero().addIngrediente(new Elemento ("Sangre", 2));
+
+            Personaje elfo = new Personaje("Legolas", 80, 30);
+            elfo.setCaldero(new Caldero("mediano", 5));
+            elfo.getCaldero().setReceta(receta);
+            elfo.getCaldero().addIngrediente(new Elemento ("Pluma", 1));
+            elfo.getCaldero().addIngrediente(new Elemento ("Sangre", 1));
+            elfo.getCaldero().addIngrediente(new Elemento ("Hueso", 1));
+            elfo.getCaldero().prepararPocima();
+
+            List<Personaje> personajes = new ArrayList<Personaje>();
+            personajes.add(mago);
+            personajes.add(elfo);
+            personajes.add(new Personaje("Frodo", 10, 10));
+
+            Path archivo = Files.createTempFile("rpg", ".instantanea");
+            new EscritorDeInstantanea().escribir(archivo, personajes);
+
+            try (LectorDeInstantanea lector = new LectorDeInstantanea(archivo)) {
+                System.out.println(lector.getCantidadPersonajes());
+                for (Personaje personaje : lector.getPersonajes()) {
+                    System.out.println(personaje.getNombre() + " " + personaje.getVida() + "/"
+                            + personaje.getVidaMaxima() + " " + personaje.getElemento() + " "
+                            + (personaje.getBolsa() == null ? null : personaje.getBolsa().getNombre() + " "
+                                + personaje.getBolsa().getPesoLibre() + " "
+                                + personaje.getBolsa().getElementosEnLaBolsa())
+                            + " " + personaje.getCaldero());
+                }
+
+                Personaje restaurado = lector.getPersonaje(0);
+                System.out.println(restaurado.getCaldero().getIngredientesFaltantes());
+                restaurado.getBolsa().addElemento(new Elemento ("Hueso", 1));
+                // el caldero restaurado ya tiene la receta: se completa a mano
+                for (String faltante : restaurado.getCaldero().getIngredientesFaltantes()) {
+                    restaurado.getCaldero().addIngrediente(restaurado.getBolsa().delUnidades(faltante, 1));
+                }
+                restaurado.getCaldero().prepararPocima();
+                Elemento pocima = restaurado.getCaldero().getPocima();
+                System.out.println(pocima + " " + pocima.getPeso() + " " + restaurado.getBolsa().getElementosEnLaBolsa());
+                System.out.println(lector.getPersonaje(1).getCaldero().getPocima().getPeso());
+            }
+            Files.delete(archivo);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testInstantaneaPilas() {
+        try {
+            Personaje arquero = new Personaje("Legolas", 80, 100);
+            arquero.setBolsa(new Bolsa("Carcaj", 100));
+            arquero.getBolsa().addUnidades(new Elemento ("Flecha", 1, 60));
+            arquero.getBolsa().addElemento(new Elemento ("Cuerda", 2));
+            arquero.setElemento(new Elemento ("Daga", 3, 2));
+            List<Personaje> personajes = new ArrayList<Personaje>();
+            personajes.add(arquero);
+
+            Path archivo = Files.createTempFile("rpg", ".instantanea");
+            new EscritorDeInstantanea().escribir(archivo, personajes);
+            try (LectorDeInstantanea lector = new LectorDeInstantanea(archivo)) {
+                Personaje restaurado = lector.getPersonaje(0);
+                Bolsa carcaj = restaurado.getBolsa();
+                System.out.println(restaurado.getElemento() + " " + restaurado.getElemento().getPeso() + " "
+                        + carcaj.getElementosEnLaBolsa() + " " + carcaj.getPesoActual());
+                carcaj.delUnidades("Flecha", 10);
+                System.out.println(carcaj.getCantidad("Flecha") + " " + carcaj.getPesoActual());
+            }
+            Files.delete(archivo);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+}
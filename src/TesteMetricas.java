@@ -0,0 +1,66 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TesteMetricas {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testMetricasPrecheck();
+    }
+
+    public void testMetricasPrecheck() {
+        SumideroDeEventos anterior = Eventos.getSumidero();
+        Eventos.setSumidero(SumideroDeEventos.NINGUNO);
+        try {
+            Receta receta = new Receta("voladora");
+            receta.addIngrediente("Pluma");
+            receta.addIngrediente("Sangre");
+            receta.cerrarReceta();
+
+            Metricas.reiniciar();
+            Bolsa ignorada = new Bolsa("Alijo", 5);
+            ignorada.addElemento(new Elemento ("Espada", 10));
+            System.out.println(Metricas.getLlamadas(SumideroDeEventos.Operacion.BOLSA_AGREGAR) + " "
+                    + Metricas.getRechazos(ResultadoOperacion.SIN_LUGAR));
+
+            Metricas.activar();
+            Personaje mago = new Personaje("Gandalf", 100, 60);
+            mago.setBolsa(new Bolsa("Mochila", 10));
+            mago.getBolsa().addElemento(new Elemento ("Pluma", 1));
+            mago.getBolsa().addElemento(new Elemento ("Pluma", 1));
+            mago.getBolsa().addElemento(new Elemento ("Espada", 10));
+            mago.setCaldero(new Caldero("chico", 1));
+            mago.getCaldero().setReceta(receta);
+            mago.setCaldero(new Caldero("mediano", 5));
+            mago.prepararReceta(receta);
+            Metricas.desactivar();
+            mago.getBolsa().addElemento(new Elemento ("Hueso", 1));
+
+            System.out.println(Metricas.getLlamadas(SumideroDeEventos.Operacion.BOLSA_AGREGAR) + " "
+                    + Metricas.getLlamadas(SumideroDeEventos.Operacion.BOLSA_QUITAR) + " "
+                    + Metricas.getLlamadas(SumideroDeEventos.Operacion.PERSONAJE_PREPARAR));
+            System.out.println(Metricas.getRechazos(SumideroDeEventos.Operacion.BOLSA_AGREGAR,
+                    ResultadoOperacion.NOMBRE_REPETIDO) + " "
+                    + Metricas.getRechazos(ResultadoOperacion.SIN_LUGAR) + " "
+                    + Metricas.getRechazos(ResultadoOperacion.RECETA_EXCEDE_CAPACIDAD) + " "
+                    + Metricas.getRechazos(ResultadoOperacion.FALTAN_INGREDIENTES));
+            System.out.println(Metricas.getPercentil(SumideroDeEventos.Operacion.BOLSA_AGREGAR, 50)
+                    <= Metricas.getPercentil(SumideroDeEventos.Operacion.BOLSA_AGREGAR, 100));
+
+            Path archivo = Files.createTempFile("rpg", ".metricas");
+            Metricas.exportar(archivo);
+            for (String linea : Files.readAllLines(archivo)) {
+                if (linea.startsWith("llamadas.") || linea.startsWith("rechazos.")) {
+                    System.out.println(linea);
+                }
+            }
+            Files.delete(archivo);
+            Metricas.reiniciar();
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+        finally {
+            Eventos.setSumidero(anterior);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestePlanificadorDePocimas {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testPlanificadorPrecheck();
+        testPlanificadorCiclo();
+        testPlanificadorSinLugar();
+        testPlanificadorPilas();
+    }
+
+    private static Receta receta(String nombre, String... ingredientes) {
+        Receta receta = new Receta(nombre);
+        for (String ingrediente : ingredientes) {
+            receta.addIngrediente(ingrediente);
+        }
+        receta.cerrarReceta();
+        return receta;
+    }
+
+    public void testPlanificadorPrecheck() {
+        try {
+            List<Receta> recetario = new ArrayList<Receta>();
+            recetario.add(receta("alas", "Pluma", "Sangre"));
+            recetario.add(receta("fuego", "Azufre", "Carbon"));
+            Receta vuelo = receta("vuelo", "Pocima de alas", "Pocima de fuego", "Hueso");
+            recetario.add(vuelo);
+            PlanificadorDePocimas planificador = new PlanificadorDePocimas(recetario);
+
+            Bolsa bolsa = new Bolsa("Mochila",50);
+            bolsa.addElemento(new Elemento ("Pluma", 1));
+            bolsa.addElemento(new Elemento ("Sangre", 2));
+            bolsa.addElemento(new Elemento ("Azufre", 3));
+            bolsa.addElemento(new Elemento ("Hueso", 4));
+
+            PlanificadorDePocimas.Plan plan = planificador.planificar(vuelo, bolsa);
+            System.out.println(plan + " " + plan.isPosible());
+            System.out.println(planificador.preparar(plan, bolsa, new ArrayList<Caldero>()));
+
+            bolsa.addElemento(new Elemento ("Carbon", 5));
+            plan = planificador.planificar(vuelo, bolsa);
+            System.out.println(plan + " " + plan.isPosible());
+
+            List<Caldero> calderos = new ArrayList<Caldero>();
+            calderos.add(new Caldero("chico", 2));
+            System.out.println(planificador.preparar(plan, bolsa, calderos));
+            calderos.add(new Caldero("grande", 3));
+            Elemento pocima = planificador.preparar(plan, bolsa, calderos);
+            System.out.println(pocima + " " + pocima.getPeso() + " " + bolsa.getElementosEnLaBolsa());
+
+            // la bolsa cambio: lo preparado queda en la bolsa
+            bolsa.addElemento(new Elemento ("Pluma", 1));
+            bolsa.addElemento(new Elemento ("Sangre", 2));
+            bolsa.addElemento(new Elemento ("Azufre", 3));
+            bolsa.addElemento(new Elemento ("Carbon", 5));
+            bolsa.addElemento(new Elemento ("Hueso", 4));
+            plan = planificador.planificar(vuelo, bolsa);
+            bolsa.delElemento("Hueso");
+            System.out.println(planificador.preparar(plan, bolsa, calderos) + " " + bolsa.getElementosEnLaBolsa());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testPlanificadorCiclo() {
+        try {
+            List<Receta> recetario = new ArrayList<Receta>();
+            Receta huevo = receta("huevo", "Pocima de gallina", "Cascara");
+            recetario.add(huevo);
+            recetario.add(receta("gallina", "Pocima de huevo", "Maiz"));
+            recetario.add(receta("tortilla", "Pocima de huevo", "Pocima de gallina"));
+            PlanificadorDePocimas planificador = new PlanificadorDePocimas(recetario);
+
+            Bolsa bolsa = new Bolsa("Mochila",50);
+            bolsa.addElemento(new Elemento ("Cascara", 1));
+            bolsa.addElemento(new Elemento ("Maiz", 1));
+            System.out.println(planificador.planificar(huevo, bolsa));
+            System.out.println(planificador.planificar(recetario.get(2), bolsa));
+
+            bolsa.addElemento(new Elemento ("Pocima de gallina", 3));
+            PlanificadorDePocimas.Plan plan = planificador.planificar(huevo, bolsa);
+            System.out.println(plan + " " + plan.isPosible());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testPlanificadorSinLugar() {
+        Bolsa[] bolsa = new Bolsa[1];
+        try {
+            List<Receta> recetario = new ArrayList<Receta>();
+            recetario.add(receta("alas", "Pluma", "Sangre"));
+            Receta vuelo = receta("vuelo", "Pocima de alas", "Hueso");
+            recetario.add(vuelo);
+            PlanificadorDePocimas planificador = new PlanificadorDePocimas(recetario);
+
+            // otro hilo se lleva la Sangre y llena la bolsa mientras se prepara
+            bolsa[0] = new Bolsa("Alijo", 10) {
+                @Override
+                protected Elemento quitar (String nombre) {
+                    if (nombre.equals("Sangre")) {
+                        this.addElemento(new Elemento ("Roca", this.getPesoLibre()));
+                        return null;
+                    }
+                    return super.quitar(nombre);
+                }
+            };
+            bolsa[0].addElemento(new Elemento ("Pluma", 1));
+            bolsa[0].addElemento(new Elemento ("Sangre", 2));
+            bolsa[0].addElemento(new Elemento ("Hueso", 3));
+            PlanificadorDePocimas.Plan plan = planificador.planificar(vuelo, bolsa[0]);
+            List<Caldero> calderos = new ArrayList<Caldero>();
+            calderos.add(new Caldero("chico", 2));
+            System.out.println(planificador.preparar(plan, bolsa[0], calderos));
+        }
+        catch(PlanificadorDePocimas.IngredientesSinGuardar e){
+            System.out.println(e.getMessage() + " " + e.getElementos().size() + " " + bolsa[0].getElementosEnLaBolsa());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testPlanificadorPilas() {
+        try {
+            List<Receta> recetario = new ArrayList<Receta>();
+            recetario.add(receta("punta", "Flecha", "Azufre"));
+            recetario.add(receta("cola", "Flecha", "Pluma"));
+            Receta salva = receta("salva", "Pocima de punta", "Pocima de cola");
+            recetario.add(salva);
+            PlanificadorDePocimas planificador = new PlanificadorDePocimas(recetario);
+
+            Bolsa bolsa = new Bolsa("Carcaj",600);
+            bolsa.addUnidades(new Elemento ("Flecha", 1, 500));
+            bolsa.addUnidades(new Elemento ("Pluma", 1, 10));
+            bolsa.addElemento(new Elemento ("Azufre", 3));
+
+            PlanificadorDePocimas.Plan plan = planificador.planificar(salva, bolsa);
+            System.out.println(plan + " " + plan.isPosible());
+            List<Caldero> calderos = new ArrayList<Caldero>();
+            calderos.add(new Caldero("chico", 2));
+            Elemento pocima = planificador.preparar(plan, bolsa, calderos);
+            System.out.println(pocima + " " + bolsa.getElementosEnLaBolsa() + " " + bolsa.getPesoActual());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+}
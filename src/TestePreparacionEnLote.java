@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestePreparacionEnLote {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testPreparacionEnLotePrecheck();
+        testPreparacionEnLoteBolsaCambiada();
+        testPreparacionEnLotePilas();
+        testPreparacionEnLoteBolsaCompartida();
+    }
+
+    public void testPreparacionEnLotePrecheck() {
+        try (PreparacionEnLote servicio = new PreparacionEnLote(2, 3)) {
+            Receta voladora = new Receta("voladora");
+            voladora.addIngrediente("Pluma");
+            voladora.addIngrediente("Sangre");
+            voladora.cerrarReceta();
+
+            Receta gigante = new Receta("gigante");
+            gigante.addIngrediente("Pluma");
+            gigante.addIngrediente("Sangre");
+            gigante.addIngrediente("Hueso");
+            gigante.addIngrediente("Raiz");
+            gigante.cerrarReceta();
+
+            Personaje mago = new Personaje("Gandalf", 100, 60);
+            mago.setBolsa(new Bolsa("Mochila", 50));
+            mago.getBolsa().addElemento(new Elemento ("Pluma", 1));
+            mago.getBolsa().addElemento(new Elemento ("Sangre", 2));
+
+            Personaje elfo = new Personaje("Legolas", 100, 60);
+            elfo.setBolsa(new Bolsa("Carcaj", 50));
+            elfo.getBolsa().addElemento(new Elemento ("Pluma", 1));
+
+            List<PreparacionEnLote.Pedido> pedidos = new ArrayList<PreparacionEnLote.Pedido>();
+            pedidos.add(new PreparacionEnLote.Pedido(mago, voladora));
+            pedidos.add(new PreparacionEnLote.Pedido(elfo, voladora));
+            pedidos.add(new PreparacionEnLote.Pedido(mago, voladora));
+            pedidos.add(new PreparacionEnLote.Pedido(mago, gigante));
+            pedidos.add(new PreparacionEnLote.Pedido(new Personaje("Frodo", 10, 10), voladora));
+
+            List<PreparacionEnLote.Resultado> resultados = servicio.preparar(pedidos);
+            System.out.println(resultados);
+            System.out.println(resultados.get(0).getPocima().getPeso());
+            System.out.println(mago.getBolsa().getElementosEnLaBolsa() + " " + elfo.getBolsa().getElementosEnLaBolsa());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testPreparacionEnLoteBolsaCambiada() {
+        try (PreparacionEnLote servicio = new PreparacionEnLote(1, 3)) {
+            Receta voladora = new Receta("voladora");
+            voladora.addIngrediente("Pluma");
+            voladora.addIngrediente("Sangre");
+            voladora.cerrarReceta();
+
+            // otro hilo se lleva la Sangre justo despues de la verificacion
+            Bolsa compartida = new Bolsa("Alijo", 50) {
+                @Override
+                protected Elemento quitar (String nombre) {
+                    if (nombre.equals("Pluma")) {
+                        super.quitar("Sangre");
+                    }
+                    return super.quitar(nombre);
+                }
+            };
+            compartida.addElemento(new Elemento ("Pluma", 1));
+            compartida.addElemento(new Elemento ("Sangre", 2));
+            Personaje mago = new Personaje("Gandalf", 100, 60);
+            mago.setBolsa(compartida);
+
+            List<PreparacionEnLote.Pedido> pedidos = new ArrayList<PreparacionEnLote.Pedido>();
+            pedidos.add(new PreparacionEnLote.Pedido(mago, voladora));
+            PreparacionEnLote.Resultado resultado = servicio.preparar(pedidos).get(0);
+            System.out.println(resultado + " " + resultado.getSinGuardar() + " " + compartida.getElementosEnLaBolsa());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testPreparacionEnLotePilas() {
+        try (PreparacionEnLote servicio = new PreparacionEnLote(1, 3)) {
+            Receta flechaDeFuego = new Receta("flecha de fuego");
+            flechaDeFuego.addIngrediente("Flecha");
+            flechaDeFuego.addIngrediente("Pluma");
+            flechaDeFuego.cerrarReceta();
+
+            Personaje arquero = new Personaje("Legolas", 100, 600);
+            arquero.setBolsa(new Bolsa("Carcaj", 600));
+            arquero.getBolsa().addUnidades(new Elemento ("Flecha", 1, 500));
+            arquero.getBolsa().addUnidades(new Elemento ("Pluma", 1, 10));
+
+            List<PreparacionEnLote.Pedido> pedidos = new ArrayList<PreparacionEnLote.Pedido>();
+            pedidos.add(new PreparacionEnLote.Pedido(arquero, flechaDeFuego));
+            pedidos.add(new PreparacionEnLote.Pedido(arquero, flechaDeFuego));
+            System.out.println(servicio.preparar(pedidos) + " " + arquero.getBolsa().getElementosEnLaBolsa()
+                    + " " + arquero.getBolsa().getPesoActual());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void testPreparacionEnLoteBolsaCompartida() {
+        try (PreparacionEnLote servicio = new PreparacionEnLote(4, 3, 4)) {
+            Receta voladora = new Receta("voladora");
+            voladora.addIngrediente("Pluma");
+            voladora.addIngrediente("Sangre");
+            voladora.cerrarReceta();
+
+            // dos personajes con la misma bolsa: sus pedidos van en orden
+            Bolsa alijo = new Bolsa("Alijo", 50);
+            alijo.addUnidades(new Elemento ("Pluma", 1, 2));
+            alijo.addUnidades(new Elemento ("Sangre", 2, 2));
+            Personaje mago = new Personaje("Gandalf", 100, 60);
+            mago.setBolsa(alijo);
+            Personaje elfo = new Personaje("Legolas", 100, 60);
+            elfo.setBolsa(alijo);
+
+            List<PreparacionEnLote.Pedido> pedidos = new ArrayList<PreparacionEnLote.Pedido>();
+            for (int i = 0; i < 3; i++) {
+                pedidos.add(new PreparacionEnLote.Pedido(mago, voladora));
+                pedidos.add(new PreparacionEnLote.Pedido(elfo, voladora));
+            }
+            pedidos.add(new PreparacionEnLote.Pedido(new Personaje("Frodo", 10, 10), voladora));
+            System.out.println(servicio.preparar(pedidos) + " " + alijo.getElementosEnLaBolsa());
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+    }
+}
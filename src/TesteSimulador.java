@@ -0,0 +1,25 @@
+public class TesteSimulador {
+    public void ejecutarTests () {
+        Eventos.setSumidero(SumideroDeEventos.CONSOLA);
+        testSimuladorPrecheck();
+    }
+
+    public void testSimuladorPrecheck() {
+        SumideroDeEventos anterior = Eventos.getSumidero();
+        Eventos.setSumidero(SumideroDeEventos.NINGUNO);
+        try {
+            Simulador.Reporte reporte = new Simulador(20, 200, new int[] {40, 40, 5, 15}, 7, 2).ejecutar();
+            System.out.println(reporte.getOperaciones() > 0);
+            System.out.println(reporte.getRechazos() <= reporte.getOperaciones());
+            System.out.println(reporte.getPercentil(50) <= reporte.getPercentil(99));
+
+            new Simulador(1, 10, new int[] {1, 1}, 7, 1);
+        }
+        catch(Exception e){
+            System.out.println(e.getMessage());
+        }
+        finally {
+            Eventos.setSumidero(anterior);
+        }
+    }
+}